@@ -3,6 +3,7 @@ plugins {
     alias(libs.plugins.kotlin.android)
     alias(libs.plugins.kotlin.compose)
     alias(libs.plugins.ksp)
+    alias(libs.plugins.androidx.baselineprofile)
 }
 
 android {
@@ -28,6 +29,13 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // 供 :macrobenchmark 使用：与 release 相同的优化，debug 签名，可被 shell 分析
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_17
@@ -39,14 +47,145 @@ android {
     buildFeatures {
         compose = true
     }
+    testOptions {
+        // Robolectric 测试需要读取合并后的 assets（holidays.bin）
+        unitTests.isIncludeAndroidResources = true
+    }
+    androidResources {
+        // holidays.bin 需要不压缩存放，运行时才能通过 AssetFileDescriptor 直接内存映射
+        noCompress += "bin"
+    }
+    sourceSets {
+        // 基线配置生成（nonMinifiedRelease）和基准测试（benchmarkRelease）的构建类型由
+        // baselineprofile 插件创建，与 benchmark 共用导出的 AlarmReceiver 和数据填充接收器
+        listOf("nonMinifiedRelease", "benchmarkRelease").forEach { name ->
+            maybeCreate(name).apply {
+                manifest.srcFile("src/benchmark/AndroidManifest.xml")
+                java.srcDir("src/benchmark/java")
+            }
+        }
+    }
+}
+
+/**
+ * 把 holidays/ 下的文本节假日数据编译为二进制资源 holidays.bin
+ *
+ * 格式（大端）：
+ *   "WKHD" | version:u8 | reserved:u8 | firstYear:u16 | yearCount:u16
+ *   每年：放假位图 6×i64 | 调休上班位图 6×i64（bit = 当年第几天 - 1）
+ *   名称表：count:u16 | 每项 len:u8 + UTF-8
+ *   名称索引：count:u16 | 每项 yearIndex:u16 + dayOfYear:u16 + nameIndex:u16
+ */
+abstract class CompileHolidaysTask : DefaultTask() {
+    
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val sourceDir: DirectoryProperty
+    
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+    
+    @TaskAction
+    fun compile() {
+        val holidays = sortedMapOf<Int, java.util.BitSet>()
+        val workdays = sortedMapOf<Int, java.util.BitSet>()
+        val names = LinkedHashMap<String, Int>()
+        val entries = sortedMapOf<Long, Int>()
+        
+        sourceDir.get().asFileTree.matching { include("*.txt") }.files.sorted().forEach { file ->
+            file.readLines().forEachIndexed { lineIndex, raw ->
+                val line = raw.substringBefore('#').trim()
+                if (line.isEmpty()) return@forEachIndexed
+                val parts = line.split(Regex("\\s+"), limit = 3)
+                require(parts.size >= 2) { "${file.name}:${lineIndex + 1}: expected '<date> <off|work> [name]'" }
+                
+                val range = parts[0].split("..")
+                val first = java.time.LocalDate.parse(range[0])
+                val last = java.time.LocalDate.parse(range.getOrElse(1) { range[0] })
+                val target = when (parts[1]) {
+                    "off" -> holidays
+                    "work" -> workdays
+                    else -> error("${file.name}:${lineIndex + 1}: unknown type '${parts[1]}'")
+                }
+                val nameIndex = parts.getOrNull(2)?.let { names.getOrPut(it) { names.size } }
+                
+                var date = first
+                while (!date.isAfter(last)) {
+                    target.getOrPut(date.year) { java.util.BitSet(366) }.set(date.dayOfYear - 1)
+                    if (nameIndex != null) entries[date.toEpochDay()] = nameIndex
+                    date = date.plusDays(1)
+                }
+            }
+        }
+        
+        val years = (holidays.keys + workdays.keys).sorted()
+        require(years.isNotEmpty()) { "No holiday data in ${sourceDir.get()}" }
+        val firstYear = years.first()
+        val yearCount = years.last() - firstYear + 1
+        
+        val output = outputDir.get().file("holidays.bin").asFile
+        output.parentFile.mkdirs()
+        java.io.DataOutputStream(output.outputStream().buffered()).use { out ->
+            out.writeBytes("WKHD")
+            out.writeByte(1)
+            out.writeByte(0)
+            out.writeShort(firstYear)
+            out.writeShort(yearCount)
+            for (year in firstYear until firstYear + yearCount) {
+                for (bits in listOf(holidays[year], workdays[year])) {
+                    val words = bits?.toLongArray() ?: LongArray(0)
+                    for (i in 0 until 6) out.writeLong(words.getOrElse(i) { 0L })
+                }
+            }
+            out.writeShort(names.size)
+            names.keys.forEach { name ->
+                val bytes = name.toByteArray(Charsets.UTF_8)
+                out.writeByte(bytes.size)
+                out.write(bytes)
+            }
+            out.writeShort(entries.size)
+            entries.forEach { (epochDay, nameIndex) ->
+                val date = java.time.LocalDate.ofEpochDay(epochDay)
+                out.writeShort(date.year - firstYear)
+                out.writeShort(date.dayOfYear - 1)
+                out.writeShort(nameIndex)
+            }
+        }
+        logger.lifecycle("Compiled holidays for $firstYear..${firstYear + yearCount - 1} into ${output.length()} bytes")
+    }
+}
+
+val compileHolidays = tasks.register<CompileHolidaysTask>("compileHolidays") {
+    sourceDir.set(layout.projectDirectory.dir("holidays"))
+    outputDir.set(layout.buildDirectory.dir("generated/holidayAssets"))
+}
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(compileHolidays, CompileHolidaysTask::outputDir)
+    }
+}
+
+// 基线配置与启动配置由 :baselineprofile 生成，保存在 src/release/generated/baselineProfiles 并打包进 release
+baselineProfile {
+    automaticGenerationDuringBuild = false
+    saveInSrc = true
+    dexLayoutOptimization = true
 }
 
 dependencies {
+    // 纯 JVM 的调度核心（触发时间、重复规则、连续打卡、编解码）
+    implementation(project(":core"))
+    
     implementation(libs.androidx.core.ktx)
     implementation(libs.androidx.lifecycle.runtime.ktx)
     implementation(libs.androidx.lifecycle.viewmodel.compose)
     implementation(libs.androidx.activity.compose)
     
+    // 侧载安装时也能应用基线配置
+    implementation(libs.androidx.profileinstaller)
+    baselineProfile(project(":baselineprofile"))
+    
     // Compose
     implementation(platform(libs.androidx.compose.bom))
     implementation(libs.androidx.ui)
@@ -61,6 +200,10 @@ dependencies {
     implementation(libs.androidx.room.ktx)
     ksp(libs.androidx.room.compiler)
     
+    // Paging
+    implementation(libs.androidx.paging.runtime)
+    implementation(libs.androidx.paging.compose)
+    
     // Media3 (ExoPlayer) for video playback
     implementation(libs.androidx.media3.exoplayer)
     implementation(libs.androidx.media3.ui)
@@ -72,4 +215,11 @@ dependencies {
     implementation(libs.kotlinx.coroutines.android)
     
     debugImplementation(libs.androidx.ui.tooling)
+    
+    // JVM 单元测试（不依赖 Android 框架的逻辑）
+    testImplementation(libs.junit)
+    // Robolectric：在 JVM 上运行 Room 数据库测试
+    testImplementation(libs.robolectric)
+    testImplementation(libs.androidx.test.core)
+    testImplementation(libs.mockwebserver)
 }
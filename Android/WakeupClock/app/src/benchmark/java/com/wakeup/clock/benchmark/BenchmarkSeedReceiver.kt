@@ -0,0 +1,89 @@
+package com.wakeup.clock.benchmark
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.util.Log
+import com.wakeup.clock.core.NextTriggerCalculator
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.RepeatMode
+import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.data.settings.SettingsStore
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import java.time.LocalDate
+
+/**
+ * 基准测试数据填充（仅 benchmark 构建类型）
+ * 跳过首次启动引导，并写入指定数量的闹钟和起床记录，不依赖网络
+ *
+ * adb shell am broadcast -a com.wakeup.clock.benchmark.SEED -n com.wakeup.clock/.benchmark.BenchmarkSeedReceiver
+ *     --ei alarm_count 60 --ei record_days 365
+ */
+class BenchmarkSeedReceiver : BroadcastReceiver() {
+    
+    companion object {
+        private const val TAG = "BenchmarkSeedReceiver"
+        const val EXTRA_ALARM_COUNT = "alarm_count"
+        const val EXTRA_RECORD_DAYS = "record_days"
+        
+        private val LABELS = listOf("work", "date", "flight", "train", "meeting", "doctor", "interview", "exam", "other")
+    }
+    
+    override fun onReceive(context: Context, intent: Intent) {
+        val alarmCount = intent.getIntExtra(EXTRA_ALARM_COUNT, 60)
+        val recordDays = intent.getIntExtra(EXTRA_RECORD_DAYS, 365)
+        
+        val pendingResult = goAsync()
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                seed(context.applicationContext, alarmCount, recordDays)
+                Log.d(TAG, "Seeded $alarmCount alarms and $recordDays days of records")
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to seed benchmark data: ${e.message}")
+            } finally {
+                pendingResult.finish()
+            }
+        }
+    }
+    
+    private suspend fun seed(context: Context, alarmCount: Int, recordDays: Int) {
+        val database = AppDatabase.getDatabase(context)
+        
+        SettingsStore.getInstance(context).update { it.copy(hasAcceptedSafetyNotice = true) }
+        
+        // 闹钟全部关闭，避免基准测试过程中真的响铃
+        val alarmDao = database.alarmDao()
+        alarmDao.deleteAllAlarms()
+        for (i in 0 until alarmCount) {
+            val minuteOfDay = (6 * 60 + i * 7) % (24 * 60)
+            alarmDao.insertAlarm(
+                AlarmModel(
+                    id = "benchmark-$i",
+                    minuteOfDay = minuteOfDay,
+                    enabled = false,
+                    label = LABELS[i % LABELS.size],
+                    repeatMode = if (i % 3 == 0) RepeatMode.CUSTOM else RepeatMode.WORKDAYS,
+                    dayMask = if (i % 3 == 0) NextTriggerCalculator.maskOf(listOf(0, 2, 4, 6)).toByte() else 0
+                )
+            )
+        }
+        
+        val recordDao = database.wakeUpRecordDao()
+        recordDao.deleteAllRecords()
+        val today = LocalDate.now()
+        for (i in 0 until recordDays) {
+            val date = today.minusDays(i.toLong())
+            recordDao.insertRecord(
+                WakeUpRecord(
+                    id = "benchmark-$date",
+                    epochDay = date.toEpochDay(),
+                    minuteOfDay = 7 * 60,
+                    alarmLabel = LABELS[i % LABELS.size]
+                )
+            )
+        }
+    }
+}
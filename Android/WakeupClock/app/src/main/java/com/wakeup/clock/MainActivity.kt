@@ -532,13 +532,11 @@ private fun PermissionRow(
 private fun MainContent(viewModel: AlarmViewModel) {
     val navController = rememberNavController()
     
-    val alarms by viewModel.alarms.collectAsState()
+    val alarmRows by viewModel.alarmRows.collectAsState()
     val settings by viewModel.settings.collectAsState()
     val streak by viewModel.streak.collectAsState()
     val countdownText by viewModel.countdownText.collectAsState()
-    
-    // 起床记录（简化处理）
-    val records by remember { mutableStateOf(emptyList<com.wakeup.clock.data.model.WakeUpRecord>()) }
+    val backupStatus by viewModel.backupStatus.collectAsState()
     
     NavHost(
         navController = navController,
@@ -546,7 +544,7 @@ private fun MainContent(viewModel: AlarmViewModel) {
     ) {
         composable("dashboard") {
             DashboardScreen(
-                alarms = alarms,
+                alarms = alarmRows,
                 streak = streak,
                 countdownText = countdownText,
                 themeMode = settings.themeMode,
@@ -554,8 +552,7 @@ private fun MainContent(viewModel: AlarmViewModel) {
                 onToggleAlarm = { viewModel.toggleAlarm(it) },
                 onDeleteAlarm = { viewModel.deleteAlarm(it) },
                 onOpenSettings = { navController.navigate("settings") },
-                onOpenCalendar = { navController.navigate("calendar") },
-                getCountdownText = { viewModel.getCountdownText(it) }
+                onOpenCalendar = { navController.navigate("calendar") }
             )
         }
         
@@ -575,15 +572,39 @@ private fun MainContent(viewModel: AlarmViewModel) {
                 settings = settings,
                 onSettingsChanged = { viewModel.updateSettings(it) },
                 onResetData = { viewModel.resetAllData() },
+                backupStatus = backupStatus,
+                onExportData = { viewModel.exportBackup(it) },
+                onImportData = { viewModel.importBackup(it) },
+                onDismissBackupStatus = { viewModel.clearBackupStatus() },
                 onBack = { navController.popBackStack() }
             )
         }
         
         composable("calendar") {
             CalendarScreen(
-                records = records,
                 streak = streak,
                 themeMode = settings.themeMode,
+                monthModel = { viewModel.monthModel(it) },
+                cachedMonthModel = { viewModel.cachedMonthModel(it) },
+                yearHeatmap = { viewModel.yearHeatmap(it) },
+                onOpenHistory = { navController.navigate("history") },
+                onOpenStatistics = { navController.navigate("statistics") },
+                onBack = { navController.popBackStack() }
+            )
+        }
+        
+        composable("history") {
+            HistoryScreen(
+                history = viewModel.history,
+                themeMode = settings.themeMode,
+                onBack = { navController.popBackStack() }
+            )
+        }
+        
+        composable("statistics") {
+            StatisticsScreen(
+                statistics = remember { viewModel.statistics() },
+                themeMode = settings.themeMode,
                 onBack = { navController.popBackStack() }
             )
         }
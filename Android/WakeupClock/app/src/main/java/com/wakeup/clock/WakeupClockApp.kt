@@ -3,20 +3,53 @@ package com.wakeup.clock
 import android.app.Application
 import android.app.NotificationChannel
 import android.app.NotificationManager
+import android.content.pm.ApplicationInfo
 import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.settings.SettingsStore
+import com.wakeup.clock.manager.AlarmReconciler
+import com.wakeup.clock.manager.FireLatencyProbe
 import com.wakeup.clock.service.AlarmService
+import com.wakeup.clock.util.HolidayChecker
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
 
 /**
  * 应用入口类
  */
 class WakeupClockApp : Application() {
     
+    // 应用级协程作用域（界面关闭后仍需完成的后台写入也在这里执行）
+    val applicationScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    
     override fun onCreate() {
         super.onCreate()
         
         // 初始化数据库
         AppDatabase.getDatabase(this)
         
+        // 开始载入设置快照，之后各处读取设置都来自内存
+        SettingsStore.getInstance(this)
+        
+        // 闹钟表变化时增量同步系统调度
+        val reconciler = AlarmReconciler.getInstance(this)
+        reconciler.observe(applicationScope)
+        
+        // 载入本地节假日数据并按需刷新，数据变化后重新调度
+        applicationScope.launch {
+            if (HolidayChecker.preloadHolidays(this@WakeupClockApp)) {
+                reconciler.reconcile()
+            }
+        }
+        
+        // 可调试构建启动时输出最近响铃的延迟分位数
+        if (applicationInfo.flags and ApplicationInfo.FLAG_DEBUGGABLE != 0) {
+            applicationScope.launch {
+                FireLatencyProbe.getInstance(this@WakeupClockApp).logSummary()
+            }
+        }
+        
         // 创建通知渠道
         createNotificationChannel()
     }
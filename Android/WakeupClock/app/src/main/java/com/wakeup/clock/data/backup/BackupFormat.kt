@@ -0,0 +1,211 @@
+package com.wakeup.clock.data.backup
+
+import android.database.Cursor
+import com.wakeup.clock.core.DateCodec
+import com.wakeup.clock.core.NextTriggerCalculator
+import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.model.Difficulty
+import com.wakeup.clock.data.model.MissionType
+import com.wakeup.clock.data.model.RepeatMode
+import com.wakeup.clock.data.model.ThemeMode
+import com.wakeup.clock.data.model.WakeUpRecord
+import org.json.JSONArray
+import org.json.JSONObject
+
+/**
+ * 备份文件格式（JSON Lines，UTF-8，每行一个对象，按 type 区分）
+ *
+ * ```
+ * {"type":"header","format":"wakeup-clock-backup","version":1,"exportedAt":...,"platform":"android"}
+ * {"type":"settings","themeMode":"auto","language":"zh",...}
+ * {"type":"alarm","id":"...","time":"07:30","customDays":[1,2,3],...}
+ * {"type":"record","id":"...","date":"2025-01-31","time":"07:32","createdAt":...}
+ * {"type":"footer","alarms":3,"records":1024}
+ * ```
+ *
+ * 字段名和取值与 iOS 端模型一致（时间为 "HH:mm"，日期为 "yyyy-MM-dd"，枚举为 iOS 的 rawValue），
+ * 时间戳为毫秒；读取时忽略未知的 type 和字段，便于两端各自扩展
+ */
+object BackupFormat {
+    
+    const val FORMAT = "wakeup-clock-backup"
+    
+    /** 当前格式版本，读取更高版本的文件时拒绝导入 */
+    const val VERSION = 1
+    
+    const val MIME_TYPE = "application/x-ndjson"
+    
+    const val TYPE_HEADER = "header"
+    const val TYPE_SETTINGS = "settings"
+    const val TYPE_ALARM = "alarm"
+    const val TYPE_RECORD = "record"
+    const val TYPE_FOOTER = "footer"
+    
+    fun header(exportedAt: Long): JSONObject = JSONObject()
+        .put("type", TYPE_HEADER)
+        .put("format", FORMAT)
+        .put("version", VERSION)
+        .put("exportedAt", exportedAt)
+        .put("platform", "android")
+    
+    fun footer(alarms: Int, records: Int): JSONObject = JSONObject()
+        .put("type", TYPE_FOOTER)
+        .put("alarms", alarms)
+        .put("records", records)
+    
+    // ========== 设置 ==========
+    
+    fun encodeSettings(settings: AppSettings): JSONObject = JSONObject()
+        .put("type", TYPE_SETTINGS)
+        .put("themeMode", settings.themeMode.name.lowercase())
+        .put("language", settings.language)
+        .put("enableAntiSnooze", settings.enableAntiSnooze)
+        .put("antiSnoozeInterval", settings.antiSnoozeInterval)
+        .put("antiSnoozeCount", settings.antiSnoozeCount)
+        .put("hasAcceptedSafetyNotice", settings.hasAcceptedSafetyNotice)
+        .put("enableVolumeReminder", settings.enableVolumeReminder)
+        .put("volumeReminderThreshold", settings.volumeReminderThreshold.toDouble())
+        .put("volumeReminderHour", settings.volumeReminderHour)
+        .put("volumeReminderMinute", settings.volumeReminderMinute)
+    
+    /**
+     * 缺失的字段沿用 base 中的值
+     */
+    fun decodeSettings(json: JSONObject, base: AppSettings): AppSettings = base.copy(
+        themeMode = json.optString("themeMode").let { name ->
+            ThemeMode.entries.find { it.name.equals(name, ignoreCase = true) } ?: base.themeMode
+        },
+        language = json.optString("language", base.language),
+        enableAntiSnooze = json.optBoolean("enableAntiSnooze", base.enableAntiSnooze),
+        antiSnoozeInterval = json.optInt("antiSnoozeInterval", base.antiSnoozeInterval),
+        antiSnoozeCount = json.optInt("antiSnoozeCount", base.antiSnoozeCount),
+        hasAcceptedSafetyNotice = json.optBoolean("hasAcceptedSafetyNotice", base.hasAcceptedSafetyNotice),
+        enableVolumeReminder = json.optBoolean("enableVolumeReminder", base.enableVolumeReminder),
+        volumeReminderThreshold = json.optDouble(
+            "volumeReminderThreshold",
+            base.volumeReminderThreshold.toDouble()
+        ).toFloat(),
+        volumeReminderHour = json.optInt("volumeReminderHour", base.volumeReminderHour),
+        volumeReminderMinute = json.optInt("volumeReminderMinute", base.volumeReminderMinute)
+    )
+    
+    // ========== 闹钟 ==========
+    
+    /**
+     * alarms 表游标列位置，每个游标只查一次
+     */
+    class AlarmColumns(cursor: Cursor) {
+        val id = cursor.getColumnIndexOrThrow("id")
+        val minuteOfDay = cursor.getColumnIndexOrThrow("minuteOfDay")
+        val enabled = cursor.getColumnIndexOrThrow("enabled")
+        val label = cursor.getColumnIndexOrThrow("label")
+        val missionType = cursor.getColumnIndexOrThrow("missionType")
+        val difficulty = cursor.getColumnIndexOrThrow("difficulty")
+        val repeatMode = cursor.getColumnIndexOrThrow("repeatMode")
+        val dayMask = cursor.getColumnIndexOrThrow("dayMask")
+        val skipHolidays = cursor.getColumnIndexOrThrow("skipHolidays")
+        val createdAt = cursor.getColumnIndexOrThrow("createdAt")
+    }
+    
+    /**
+     * 直接从游标当前行编码，不构造实体
+     */
+    fun encodeAlarm(cursor: Cursor, columns: AlarmColumns): JSONObject {
+        val dayMask = cursor.getInt(columns.dayMask)
+        val customDays = JSONArray()
+        for (day in 0..6) {
+            if ((dayMask shr day) and 1 != 0) customDays.put(day)
+        }
+        return JSONObject()
+            .put("type", TYPE_ALARM)
+            .put("id", cursor.getString(columns.id))
+            .put("time", DateCodec.formatMinuteOfDay(cursor.getInt(columns.minuteOfDay)))
+            .put("enabled", cursor.getInt(columns.enabled) != 0)
+            .put("label", cursor.getString(columns.label))
+            .put("missionType", cursor.getString(columns.missionType))
+            .put("difficulty", cursor.getInt(columns.difficulty))
+            .put("repeatMode", cursor.getString(columns.repeatMode))
+            .put("customDays", customDays)
+            .put("skipHolidays", cursor.getInt(columns.skipHolidays) != 0)
+            .put("createdAt", cursor.getLong(columns.createdAt))
+    }
+    
+    /**
+     * 缺少 id 或时间格式不正确时返回 null
+     */
+    fun decodeAlarm(json: JSONObject): AlarmModel? {
+        val id = json.optString("id").takeIf { it.isNotEmpty() } ?: return null
+        val minuteOfDay = DateCodec.parseMinuteOfDay(json.optString("time"))
+        if (minuteOfDay == DateCodec.INVALID_MINUTE) return null
+        
+        val customDays = json.optJSONArray("customDays")
+        val days = ArrayList<Int>(customDays?.length() ?: 0)
+        if (customDays != null) {
+            for (i in 0 until customDays.length()) days.add(customDays.optInt(i, -1))
+        }
+        val difficulty = json.optInt("difficulty", Difficulty.MEDIUM.value)
+        return AlarmModel(
+            id = id,
+            minuteOfDay = minuteOfDay,
+            enabled = json.optBoolean("enabled", true),
+            label = json.optString("label", "other"),
+            missionType = enumOf(json.optString("missionType"), MissionType.MATH),
+            difficulty = Difficulty.entries.find { it.value == difficulty } ?: Difficulty.MEDIUM,
+            repeatMode = enumOf(json.optString("repeatMode"), RepeatMode.WORKDAYS),
+            dayMask = NextTriggerCalculator.maskOf(days).toByte(),
+            skipHolidays = json.optBoolean("skipHolidays", false),
+            createdAt = json.optLong("createdAt", System.currentTimeMillis())
+        )
+    }
+    
+    // ========== 起床记录 ==========
+    
+    /**
+     * wakeup_records 表游标列位置
+     */
+    class RecordColumns(cursor: Cursor) {
+        val id = cursor.getColumnIndexOrThrow("id")
+        val epochDay = cursor.getColumnIndexOrThrow("epochDay")
+        val minuteOfDay = cursor.getColumnIndexOrThrow("minuteOfDay")
+        val alarmLabel = cursor.getColumnIndexOrThrow("alarmLabel")
+        val alarmId = cursor.getColumnIndexOrThrow("alarmId")
+        val timestamp = cursor.getColumnIndexOrThrow("timestamp")
+    }
+    
+    fun encodeRecord(cursor: Cursor, columns: RecordColumns): JSONObject {
+        val json = JSONObject()
+            .put("type", TYPE_RECORD)
+            .put("id", cursor.getString(columns.id))
+            .put("date", DateCodec.formatEpochDay(cursor.getLong(columns.epochDay)))
+            .put("time", DateCodec.formatMinuteOfDay(cursor.getInt(columns.minuteOfDay)))
+            .put("createdAt", cursor.getLong(columns.timestamp))
+        if (!cursor.isNull(columns.alarmLabel)) json.put("alarmLabel", cursor.getString(columns.alarmLabel))
+        if (!cursor.isNull(columns.alarmId)) json.put("alarmId", cursor.getString(columns.alarmId))
+        return json
+    }
+    
+    /**
+     * 缺少 id 或日期、时间格式不正确时返回 null
+     */
+    fun decodeRecord(json: JSONObject): WakeUpRecord? {
+        val id = json.optString("id").takeIf { it.isNotEmpty() } ?: return null
+        val epochDay = DateCodec.parseEpochDay(json.optString("date"))
+        val minuteOfDay = DateCodec.parseMinuteOfDay(json.optString("time"))
+        if (epochDay == DateCodec.INVALID_DAY || minuteOfDay == DateCodec.INVALID_MINUTE) return null
+        return WakeUpRecord(
+            id = id,
+            epochDay = epochDay,
+            minuteOfDay = minuteOfDay,
+            alarmLabel = json.optNullableString("alarmLabel"),
+            alarmId = json.optNullableString("alarmId"),
+            timestamp = json.optLong("createdAt", System.currentTimeMillis())
+        )
+    }
+    
+    private inline fun <reified T : Enum<T>> enumOf(name: String, default: T): T =
+        enumValues<T>().find { it.name.equals(name, ignoreCase = true) } ?: default
+    
+    private fun JSONObject.optNullableString(name: String): String? =
+        if (isNull(name)) null else optString(name)
+}
@@ -0,0 +1,194 @@
+package com.wakeup.clock.data.backup
+
+import android.content.Context
+import android.net.Uri
+import android.util.Log
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.data.settings.SettingsStore
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import org.json.JSONObject
+import java.io.BufferedReader
+import java.io.IOException
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.io.Writer
+
+/**
+ * 备份结果
+ *
+ * @property skipped 导入时无法识别而跳过的行数
+ */
+data class BackupResult(
+    val alarms: Int,
+    val records: Int,
+    val skipped: Int = 0
+)
+
+/**
+ * 备份与恢复（通过存储访问框架读写用户选择的文件）
+ *
+ * 导出从 Room 游标逐行编码写入缓冲区，导入逐行解析并按批次写入，
+ * 两个方向的内存占用都与记录总数无关
+ */
+class BackupManager(private val context: Context) {
+    
+    companion object {
+        private const val TAG = "BackupManager"
+        
+        /** 每个导入事务写入的行数 */
+        const val DEFAULT_BATCH_SIZE = 500
+        
+        // 读写缓冲区大小
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+    
+    private val database = AppDatabase.getDatabase(context)
+    private val alarmDao = database.alarmDao()
+    private val recordDao = database.wakeUpRecordDao()
+    private val settingsStore = SettingsStore.getInstance(context)
+    
+    /**
+     * 导出全部闹钟、设置和起床记录
+     */
+    suspend fun export(uri: Uri): BackupResult = withContext(Dispatchers.IO) {
+        val output = context.contentResolver.openOutputStream(uri, "wt")
+            ?: throw IOException("Cannot open $uri for writing")
+        OutputStreamWriter(output, Charsets.UTF_8).buffered(BUFFER_SIZE).use { writer ->
+            writer.writeLine(BackupFormat.header(System.currentTimeMillis()))
+            writer.writeLine(BackupFormat.encodeSettings(settingsStore.get()))
+            
+            var alarms = 0
+            alarmDao.getAllAlarmsCursor().use { cursor ->
+                val columns = BackupFormat.AlarmColumns(cursor)
+                while (cursor.moveToNext()) {
+                    writer.writeLine(BackupFormat.encodeAlarm(cursor, columns))
+                    alarms++
+                }
+            }
+            
+            var records = 0
+            recordDao.getAllRecordsCursor().use { cursor ->
+                val columns = BackupFormat.RecordColumns(cursor)
+                while (cursor.moveToNext()) {
+                    writer.writeLine(BackupFormat.encodeRecord(cursor, columns))
+                    records++
+                }
+            }
+            
+            writer.writeLine(BackupFormat.footer(alarms, records))
+            Log.d(TAG, "Exported $alarms alarm(s) and $records record(s)")
+            BackupResult(alarms, records)
+        }
+    }
+    
+    /**
+     * 导入备份文件：闹钟和记录按 ID 覆盖已有数据，设置整体替换
+     *
+     * @param batchSize 每个事务写入的行数
+     */
+    suspend fun import(uri: Uri, batchSize: Int = DEFAULT_BATCH_SIZE): BackupResult = withContext(Dispatchers.IO) {
+        require(batchSize > 0) { "batchSize must be positive" }
+        val input = context.contentResolver.openInputStream(uri)
+            ?: throw IOException("Cannot open $uri for reading")
+        
+        val alarmBatch = ArrayList<AlarmModel>(batchSize)
+        val recordBatch = ArrayList<WakeUpRecord>(batchSize)
+        var alarms = 0
+        var records = 0
+        var skipped = 0
+        var settings: AppSettings? = null
+        
+        try {
+            BufferedReader(InputStreamReader(input, Charsets.UTF_8), BUFFER_SIZE).use { reader ->
+                var headerSeen = false
+                while (true) {
+                    val line = reader.readLine() ?: break
+                    if (line.isBlank()) continue
+                    
+                    val json = try {
+                        JSONObject(line)
+                    } catch (e: Exception) {
+                        skipped++
+                        continue
+                    }
+                    
+                    val type = json.optString("type")
+                    // 第一行必须是文件头
+                    if (!headerSeen && type != BackupFormat.TYPE_HEADER) {
+                        throw IOException("Not a backup file")
+                    }
+                    
+                    when (type) {
+                        BackupFormat.TYPE_HEADER -> {
+                            checkHeader(json)
+                            headerSeen = true
+                        }
+                        BackupFormat.TYPE_SETTINGS -> {
+                            settings = BackupFormat.decodeSettings(json, settingsStore.get())
+                        }
+                        BackupFormat.TYPE_ALARM -> {
+                            val alarm = BackupFormat.decodeAlarm(json)
+                            if (alarm == null) {
+                                skipped++
+                            } else {
+                                alarmBatch.add(alarm)
+                                if (alarmBatch.size >= batchSize) alarms += flushAlarms(alarmBatch)
+                            }
+                        }
+                        BackupFormat.TYPE_RECORD -> {
+                            val record = BackupFormat.decodeRecord(json)
+                            if (record == null) {
+                                skipped++
+                            } else {
+                                recordBatch.add(record)
+                                if (recordBatch.size >= batchSize) records += flushRecords(recordBatch)
+                            }
+                        }
+                        // footer 和未知类型不处理
+                    }
+                }
+            }
+            
+            alarms += flushAlarms(alarmBatch)
+            records += flushRecords(recordBatch)
+            settings?.let { settingsStore.replace(it) }
+        } finally {
+            // 批量写入不维护连续状态，无论是否完整导入都重建一次
+            if (records > 0) recordDao.refreshStreak()
+        }
+        
+        Log.d(TAG, "Imported $alarms alarm(s) and $records record(s), skipped $skipped line(s)")
+        BackupResult(alarms, records, skipped)
+    }
+    
+    private fun checkHeader(json: JSONObject) {
+        if (json.optString("format") != BackupFormat.FORMAT) {
+            throw IOException("Not a backup file")
+        }
+        val version = json.optInt("version", 0)
+        if (version > BackupFormat.VERSION) {
+            throw IOException("Unsupported backup version $version")
+        }
+    }
+    
+    private suspend fun flushAlarms(batch: MutableList<AlarmModel>): Int {
+        if (batch.isEmpty()) return 0
+        alarmDao.insertAlarms(batch)
+        return batch.size.also { batch.clear() }
+    }
+    
+    private suspend fun flushRecords(batch: MutableList<WakeUpRecord>): Int {
+        if (batch.isEmpty()) return 0
+        recordDao.insertRecords(batch)
+        return batch.size.also { batch.clear() }
+    }
+    
+    private fun Writer.writeLine(json: JSONObject) {
+        write(json.toString())
+        write("\n")
+    }
+}
@@ -1,30 +1,45 @@
 package com.wakeup.clock.data.database
 
+import android.database.Cursor
 import androidx.room.*
 import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.RepeatMode
 import kotlinx.coroutines.flow.Flow
+import java.util.UUID
 
 /**
  * 闹钟数据访问对象
+ *
+ * 批量操作都是单条语句或单个事务：Room 在事务结束后只发出一次失效通知，
+ * 闹钟列表的收集者只收到一次新列表，AlarmReconciler 也只对账一次
  */
 @Dao
 interface AlarmDao {
     
-    @Query("SELECT * FROM alarms ORDER BY time ASC")
+    @Query("SELECT * FROM alarms ORDER BY minuteOfDay ASC")
     fun getAllAlarms(): Flow<List<AlarmModel>>
     
-    @Query("SELECT * FROM alarms WHERE enabled = 1 ORDER BY time ASC")
+    @Query("SELECT * FROM alarms WHERE enabled = 1 ORDER BY minuteOfDay ASC")
     fun getEnabledAlarms(): Flow<List<AlarmModel>>
     
-    @Query("SELECT * FROM alarms WHERE enabled = 1 ORDER BY time ASC")
+    @Query("SELECT * FROM alarms WHERE enabled = 1 ORDER BY minuteOfDay ASC")
     suspend fun getEnabledAlarmsOnce(): List<AlarmModel>
     
     @Query("SELECT * FROM alarms WHERE id = :id")
     suspend fun getAlarmById(id: String): AlarmModel?
     
+    /**
+     * 全部闹钟的游标（导出时逐行读取）
+     */
+    @Query("SELECT * FROM alarms ORDER BY createdAt ASC")
+    fun getAllAlarmsCursor(): Cursor
+    
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertAlarm(alarm: AlarmModel)
     
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAlarms(alarms: List<AlarmModel>)
+    
     @Update
     suspend fun updateAlarm(alarm: AlarmModel)
     
@@ -39,4 +54,45 @@ interface AlarmDao {
     
     @Query("DELETE FROM alarms")
     suspend fun deleteAllAlarms()
+    
+    // ========== 批量操作 ==========
+    
+    @Query("UPDATE alarms SET enabled = :enabled WHERE id IN (:ids)")
+    suspend fun setAlarmsEnabled(ids: List<String>, enabled: Boolean): Int
+    
+    @Query("UPDATE alarms SET enabled = :enabled WHERE label = :label")
+    suspend fun setEnabledByLabel(label: String, enabled: Boolean): Int
+    
+    /**
+     * 时间平移 minutes 分钟（可为负），跨过零点时在一天内绕回，重复日期不变
+     */
+    @Query("UPDATE alarms SET minuteOfDay = ((minuteOfDay + :minutes) % 1440 + 1440) % 1440 WHERE id IN (:ids)")
+    suspend fun shiftAlarms(ids: List<String>, minutes: Int): Int
+    
+    @Query("UPDATE alarms SET minuteOfDay = ((minuteOfDay + :minutes) % 1440 + 1440) % 1440")
+    suspend fun shiftAllAlarms(minutes: Int): Int
+    
+    @Query("SELECT * FROM alarms WHERE id IN (:ids) ORDER BY minuteOfDay ASC")
+    suspend fun getAlarmsByIds(ids: List<String>): List<AlarmModel>
+    
+    @Query("DELETE FROM alarms WHERE id IN (:ids)")
+    suspend fun deleteAlarmsByIds(ids: List<String>): Int
+    
+    /**
+     * 把一组闹钟复制为只在 dayMask 中的日期重复的新闹钟，返回新闹钟
+     */
+    @Transaction
+    suspend fun duplicateAlarms(ids: List<String>, dayMask: Byte): List<AlarmModel> {
+        val now = System.currentTimeMillis()
+        val copies = getAlarmsByIds(ids).map { alarm ->
+            alarm.copy(
+                id = UUID.randomUUID().toString(),
+                repeatMode = RepeatMode.CUSTOM,
+                dayMask = dayMask,
+                createdAt = now
+            )
+        }
+        insertAlarms(copies)
+        return copies
+    }
 }
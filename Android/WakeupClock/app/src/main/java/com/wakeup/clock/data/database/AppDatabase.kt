@@ -1,13 +1,27 @@
 package com.wakeup.clock.data.database
 
 import android.content.Context
+import androidx.annotation.VisibleForTesting
 import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import com.wakeup.clock.core.DateCodec
+import com.wakeup.clock.core.NextTriggerCalculator
+import com.wakeup.clock.core.StreakCalculator
 import com.wakeup.clock.data.model.AlarmModel
 import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.model.BootMetrics
+import com.wakeup.clock.data.model.FireLatency
+import com.wakeup.clock.data.model.HolidayDay
+import com.wakeup.clock.data.model.HolidayYear
+import com.wakeup.clock.data.model.ScheduledAlarm
 import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.data.model.WakeUpStat
+import com.wakeup.clock.data.model.WakeUpStatsMeta
+import com.wakeup.clock.data.model.WakeUpStreak
 
 /**
  * 应用数据库
@@ -16,9 +30,17 @@ import com.wakeup.clock.data.model.WakeUpRecord
     entities = [
         AlarmModel::class,
         WakeUpRecord::class,
-        AppSettings::class
+        AppSettings::class,
+        ScheduledAlarm::class,
+        BootMetrics::class,
+        FireLatency::class,
+        HolidayDay::class,
+        HolidayYear::class,
+        WakeUpStreak::class,
+        WakeUpStat::class,
+        WakeUpStatsMeta::class
     ],
-    version = 3,
+    version = 13,
     exportSchema = false
 )
 @TypeConverters(Converters::class)
@@ -27,11 +49,263 @@ abstract class AppDatabase : RoomDatabase() {
     abstract fun alarmDao(): AlarmDao
     abstract fun wakeUpRecordDao(): WakeUpRecordDao
     abstract fun appSettingsDao(): AppSettingsDao
+    abstract fun scheduledAlarmDao(): ScheduledAlarmDao
+    abstract fun bootMetricsDao(): BootMetricsDao
+    abstract fun fireLatencyDao(): FireLatencyDao
+    abstract fun holidayDao(): HolidayDao
+    abstract fun wakeUpStatsDao(): WakeUpStatsDao
     
     companion object {
         @Volatile
         private var INSTANCE: AppDatabase? = null
         
+        /**
+         * 3 -> 4：新增已注册闹钟表
+         * 旧版本以 id.hashCode() 为请求码注册每个闹钟，这里把这些注册写入表中（触发时间记为 0），
+         * 首次对账时合并调度模式会把它们当作多余注册取消，逐个调度模式会沿用原请求码覆盖，升级后不会重复响铃
+         */
+        private val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `scheduled_alarms` (" +
+                        "`alarmId` TEXT NOT NULL, " +
+                        "`triggerTime` INTEGER NOT NULL, " +
+                        "`requestCode` INTEGER NOT NULL, " +
+                        "`payloadHash` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`alarmId`))"
+                )
+                db.query("SELECT `id` FROM `alarms`").use { cursor ->
+                    while (cursor.moveToNext()) {
+                        val alarmId = cursor.getString(0)
+                        db.execSQL(
+                            "INSERT OR REPLACE INTO `scheduled_alarms` " +
+                                "(`alarmId`, `triggerTime`, `requestCode`, `payloadHash`) VALUES (?, 0, ?, 0)",
+                            arrayOf<Any>(alarmId, alarmId.hashCode())
+                        )
+                    }
+                }
+            }
+        }
+        
+        /** 4 -> 5：新增开机调度耗时表 */
+        private val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `boot_metrics` (" +
+                        "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`bootTime` INTEGER NOT NULL, " +
+                        "`receivedAtElapsed` INTEGER NOT NULL, " +
+                        "`armedAtElapsed` INTEGER NOT NULL, " +
+                        "`dbReadMs` INTEGER NOT NULL, " +
+                        "`computeMs` INTEGER NOT NULL, " +
+                        "`registerMs` INTEGER NOT NULL, " +
+                        "`alarmCount` INTEGER NOT NULL, " +
+                        "`systemCalls` INTEGER NOT NULL, " +
+                        "`timedOut` INTEGER NOT NULL)"
+                )
+            }
+        }
+        
+        /** 5 -> 6：新增响铃延迟表 */
+        private val MIGRATION_5_6 = object : Migration(5, 6) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `fire_latency` (" +
+                        "`fireId` TEXT NOT NULL, " +
+                        "`alarmId` TEXT NOT NULL, " +
+                        "`isAntiSnooze` INTEGER NOT NULL, " +
+                        "`scheduledTime` INTEGER NOT NULL, " +
+                        "`receiverDelayMs` INTEGER NOT NULL, " +
+                        "`receiverElapsed` INTEGER NOT NULL, " +
+                        "`serviceDelayMs` INTEGER, " +
+                        "`serviceElapsedMs` INTEGER, " +
+                        "`audioDelayMs` INTEGER, " +
+                        "`audioElapsedMs` INTEGER, " +
+                        "`frameDelayMs` INTEGER, " +
+                        "`frameElapsedMs` INTEGER, " +
+                        "PRIMARY KEY(`fireId`))"
+                )
+            }
+        }
+        
+        /** 6 -> 7：新增节假日持久化表 */
+        private val MIGRATION_6_7 = object : Migration(6, 7) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `holidays` (" +
+                        "`epochDay` INTEGER NOT NULL, " +
+                        "`year` INTEGER NOT NULL, " +
+                        "`isHoliday` INTEGER NOT NULL, " +
+                        "`name` TEXT, " +
+                        "PRIMARY KEY(`epochDay`))"
+                )
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `holiday_years` (" +
+                        "`year` INTEGER NOT NULL, " +
+                        "`etag` TEXT, " +
+                        "`lastModified` TEXT, " +
+                        "`fetchedAt` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`year`))"
+                )
+            }
+        }
+        
+        /** 7 -> 8：新增连续打卡状态表，并从已有记录重建一次 */
+        private val MIGRATION_7_8 = object : Migration(7, 8) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `wakeup_streak` (" +
+                        "`id` INTEGER NOT NULL, " +
+                        "`currentStreak` INTEGER NOT NULL, " +
+                        "`lastCheckInDay` INTEGER NOT NULL, " +
+                        "`bestStreak` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`id`))"
+                )
+                
+                val days = db.query("SELECT DISTINCT `date` FROM `wakeup_records` ORDER BY `date` ASC").use { cursor ->
+                    val result = LongArray(cursor.count)
+                    var size = 0
+                    while (cursor.moveToNext()) {
+                        val day = DateCodec.parseEpochDay(cursor.getString(0) ?: continue)
+                        if (day != DateCodec.INVALID_DAY) result[size++] = day
+                    }
+                    result.copyOf(size)
+                }
+                val state = StreakCalculator.rebuild(days, days.size)
+                db.execSQL(
+                    "INSERT OR REPLACE INTO `wakeup_streak` (`id`, `currentStreak`, `lastCheckInDay`, `bestStreak`) " +
+                        "VALUES (?, ?, ?, ?)",
+                    arrayOf<Any>(WakeUpStreak.SINGLETON_ID, state.current, state.lastDay, state.best)
+                )
+            }
+        }
+        
+        /** 8 -> 9：起床记录的日期、时间改为整数列并为日期建索引 */
+        private val MIGRATION_8_9 = object : Migration(8, 9) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `wakeup_records_new` (" +
+                        "`id` TEXT NOT NULL, " +
+                        "`epochDay` INTEGER NOT NULL, " +
+                        "`minuteOfDay` INTEGER NOT NULL, " +
+                        "`alarmLabel` TEXT, " +
+                        "`alarmId` TEXT, " +
+                        "`timestamp` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`id`))"
+                )
+                // julianday 以儒略日计，2440587.5 是 1970-01-01 零点；无法解析的日期丢弃
+                db.execSQL(
+                    "INSERT INTO `wakeup_records_new` " +
+                        "(`id`, `epochDay`, `minuteOfDay`, `alarmLabel`, `alarmId`, `timestamp`) " +
+                        "SELECT `id`, " +
+                        "CAST(julianday(`date`) - 2440587.5 AS INTEGER), " +
+                        "CAST(substr(`time`, 1, instr(`time`, ':') - 1) AS INTEGER) * 60 + " +
+                        "CAST(substr(`time`, instr(`time`, ':') + 1) AS INTEGER), " +
+                        "`alarmLabel`, `alarmId`, `timestamp` " +
+                        "FROM `wakeup_records` WHERE julianday(`date`) IS NOT NULL"
+                )
+                db.execSQL("DROP TABLE `wakeup_records`")
+                db.execSQL("ALTER TABLE `wakeup_records_new` RENAME TO `wakeup_records`")
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_wakeup_records_epochDay` ON `wakeup_records` (`epochDay`)"
+                )
+            }
+        }
+        
+        /** 9 -> 10：闹钟时间改为一天中的分钟数，自定义重复日期改为星期掩码 */
+        private val MIGRATION_9_10 = object : Migration(9, 10) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `alarms_new` (" +
+                        "`id` TEXT NOT NULL, " +
+                        "`minuteOfDay` INTEGER NOT NULL, " +
+                        "`enabled` INTEGER NOT NULL, " +
+                        "`label` TEXT NOT NULL, " +
+                        "`missionType` TEXT NOT NULL, " +
+                        "`difficulty` INTEGER NOT NULL, " +
+                        "`repeatMode` TEXT NOT NULL, " +
+                        "`dayMask` INTEGER NOT NULL, " +
+                        "`skipHolidays` INTEGER NOT NULL, " +
+                        "`createdAt` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`id`))"
+                )
+                // 时间在 SQL 中转换；CSV 格式的自定义日期随后逐行换算为掩码
+                db.execSQL(
+                    "INSERT INTO `alarms_new` " +
+                        "(`id`, `minuteOfDay`, `enabled`, `label`, `missionType`, `difficulty`, " +
+                        "`repeatMode`, `dayMask`, `skipHolidays`, `createdAt`) " +
+                        "SELECT `id`, " +
+                        "CAST(substr(`time`, 1, instr(`time`, ':') - 1) AS INTEGER) * 60 + " +
+                        "CAST(substr(`time`, instr(`time`, ':') + 1) AS INTEGER), " +
+                        "`enabled`, `label`, `missionType`, `difficulty`, " +
+                        "`repeatMode`, 0, `skipHolidays`, `createdAt` " +
+                        "FROM `alarms`"
+                )
+                db.query("SELECT `id`, `customDays` FROM `alarms` WHERE `customDays` != ''").use { cursor ->
+                    while (cursor.moveToNext()) {
+                        val mask = NextTriggerCalculator.maskOf(DateCodec.decodeIntList(cursor.getString(1)))
+                        db.execSQL(
+                            "UPDATE `alarms_new` SET `dayMask` = ? WHERE `id` = ?",
+                            arrayOf<Any>(mask, cursor.getString(0))
+                        )
+                    }
+                }
+                db.execSQL("DROP TABLE `alarms`")
+                db.execSQL("ALTER TABLE `alarms_new` RENAME TO `alarms`")
+            }
+        }
+        
+        /**
+         * 10 -> 11：按各 DAO 查询的 EXPLAIN QUERY PLAN 补充索引，
+         * 排序和筛选都走索引，不再全表扫描或使用临时排序 B 树
+         */
+        private val MIGRATION_10_11 = object : Migration(10, 11) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_alarms_enabled_minuteOfDay` ON `alarms` (`enabled`, `minuteOfDay`)"
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_alarms_minuteOfDay` ON `alarms` (`minuteOfDay`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_wakeup_records_timestamp` ON `wakeup_records` (`timestamp`)")
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_wakeup_records_alarmId_epochDay` ON `wakeup_records` (`alarmId`, `epochDay`)"
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_holidays_year` ON `holidays` (`year`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_fire_latency_scheduledTime` ON `fire_latency` (`scheduledTime`)")
+            }
+        }
+        
+        /** 11 -> 12：历史记录改为 (timestamp, id) 游标分页，时间索引带上 id */
+        private val MIGRATION_11_12 = object : Migration(11, 12) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("DROP INDEX IF EXISTS `index_wakeup_records_timestamp`")
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_wakeup_records_timestamp_id` ON `wakeup_records` (`timestamp`, `id`)"
+                )
+            }
+        }
+        
+        /** 12 -> 13：新增起床统计缓存表 */
+        private val MIGRATION_12_13 = object : Migration(12, 13) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `wakeup_stats` (" +
+                        "`kind` TEXT NOT NULL, " +
+                        "`bucket` TEXT NOT NULL, " +
+                        "`count` INTEGER NOT NULL, " +
+                        "`mean` REAL NOT NULL, " +
+                        "`meanSquare` REAL NOT NULL, " +
+                        "PRIMARY KEY(`kind`, `bucket`))"
+                )
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `wakeup_stats_meta` (" +
+                        "`id` INTEGER NOT NULL, " +
+                        "`watermark` INTEGER NOT NULL, " +
+                        "`recordCount` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`id`))"
+                )
+            }
+        }
+        
         fun getDatabase(context: Context): AppDatabase {
             return INSTANCE ?: synchronized(this) {
                 val instance = Room.databaseBuilder(
@@ -39,11 +313,27 @@ abstract class AppDatabase : RoomDatabase() {
                     AppDatabase::class.java,
                     "wakeup_clock_database"
                 )
+                    .addMigrations(
+                        MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+                        MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12,
+                        MIGRATION_12_13
+                    )
                     .fallbackToDestructiveMigration() // 开发阶段：schema变更时删除旧数据重建
                     .build()
                 INSTANCE = instance
                 instance
             }
         }
+        
+        /**
+         * 关闭并丢弃单例，下次 getDatabase 时重新打开（测试中模拟进程重启）
+         */
+        @VisibleForTesting
+        internal fun closeInstance() {
+            synchronized(this) {
+                INSTANCE?.close()
+                INSTANCE = null
+            }
+        }
     }
 }
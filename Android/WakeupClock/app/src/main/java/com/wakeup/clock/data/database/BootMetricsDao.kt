@@ -0,0 +1,26 @@
+package com.wakeup.clock.data.database
+
+import androidx.room.*
+import com.wakeup.clock.data.model.BootMetrics
+
+/**
+ * 开机调度耗时数据访问对象
+ */
+@Dao
+interface BootMetricsDao {
+    
+    @Query("SELECT * FROM boot_metrics ORDER BY id DESC LIMIT :limit")
+    suspend fun getRecent(limit: Int): List<BootMetrics>
+    
+    @Query("SELECT * FROM boot_metrics ORDER BY id DESC LIMIT 1")
+    suspend fun getLatest(): BootMetrics?
+    
+    @Insert
+    suspend fun insert(metrics: BootMetrics)
+    
+    /**
+     * 只保留最近的 keep 条记录
+     */
+    @Query("DELETE FROM boot_metrics WHERE id NOT IN (SELECT id FROM boot_metrics ORDER BY id DESC LIMIT :keep)")
+    suspend fun prune(keep: Int)
+}
@@ -4,6 +4,7 @@ import androidx.room.TypeConverter
 import com.wakeup.clock.data.model.Difficulty
 import com.wakeup.clock.data.model.MissionType
 import com.wakeup.clock.data.model.RepeatMode
+import com.wakeup.clock.data.model.StatKind
 import com.wakeup.clock.data.model.ThemeMode
 
 /**
@@ -11,18 +12,6 @@ import com.wakeup.clock.data.model.ThemeMode
  */
 class Converters {
     
-    // List<Int> 转换
-    @TypeConverter
-    fun fromIntList(value: List<Int>): String {
-        return value.joinToString(",")
-    }
-    
-    @TypeConverter
-    fun toIntList(value: String): List<Int> {
-        if (value.isEmpty()) return emptyList()
-        return value.split(",").mapNotNull { it.toIntOrNull() }
-    }
-    
     // MissionType 转换
     @TypeConverter
     fun fromMissionType(value: MissionType): String = value.name
@@ -44,6 +33,13 @@ class Converters {
     @TypeConverter
     fun toRepeatMode(value: String): RepeatMode = RepeatMode.valueOf(value)
     
+    // StatKind 转换
+    @TypeConverter
+    fun fromStatKind(value: StatKind): String = value.name
+    
+    @TypeConverter
+    fun toStatKind(value: String): StatKind = StatKind.valueOf(value)
+    
     // ThemeMode 转换
     @TypeConverter
     fun fromThemeMode(value: ThemeMode): String = value.name
@@ -0,0 +1,23 @@
+package com.wakeup.clock.data.database
+
+import androidx.room.*
+import com.wakeup.clock.data.model.FireLatency
+
+/**
+ * 响铃延迟数据访问对象
+ */
+@Dao
+interface FireLatencyDao {
+    
+    @Query("SELECT * FROM fire_latency ORDER BY scheduledTime DESC LIMIT :limit")
+    suspend fun getRecent(limit: Int): List<FireLatency>
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsert(latency: FireLatency)
+    
+    /**
+     * 只保留最近的 keep 条记录
+     */
+    @Query("DELETE FROM fire_latency WHERE fireId NOT IN (SELECT fireId FROM fire_latency ORDER BY scheduledTime DESC LIMIT :keep)")
+    suspend fun prune(keep: Int)
+}
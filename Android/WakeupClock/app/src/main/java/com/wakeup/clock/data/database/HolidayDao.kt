@@ -0,0 +1,40 @@
+package com.wakeup.clock.data.database
+
+import androidx.room.*
+import com.wakeup.clock.data.model.HolidayDay
+import com.wakeup.clock.data.model.HolidayYear
+
+/**
+ * 节假日数据访问对象
+ */
+@Dao
+interface HolidayDao {
+    
+    @Query("SELECT * FROM holidays")
+    suspend fun getAllDays(): List<HolidayDay>
+    
+    @Query("SELECT * FROM holiday_years")
+    suspend fun getYears(): List<HolidayYear>
+    
+    @Query("SELECT * FROM holiday_years WHERE year = :year")
+    suspend fun getYear(year: Int): HolidayYear?
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertDays(days: List<HolidayDay>)
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertYear(year: HolidayYear)
+    
+    @Query("DELETE FROM holidays WHERE year = :year")
+    suspend fun deleteDaysOfYear(year: Int)
+    
+    /**
+     * 整年替换节假日数据
+     */
+    @Transaction
+    suspend fun replaceYear(year: HolidayYear, days: List<HolidayDay>) {
+        deleteDaysOfYear(year.year)
+        insertDays(days)
+        upsertYear(year)
+    }
+}
@@ -0,0 +1,23 @@
+package com.wakeup.clock.data.database
+
+import androidx.room.*
+import com.wakeup.clock.data.model.ScheduledAlarm
+
+/**
+ * 已注册闹钟数据访问对象
+ */
+@Dao
+interface ScheduledAlarmDao {
+    
+    @Query("SELECT * FROM scheduled_alarms")
+    suspend fun getAll(): List<ScheduledAlarm>
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsert(scheduled: List<ScheduledAlarm>)
+    
+    @Query("DELETE FROM scheduled_alarms WHERE alarmId IN (:alarmIds)")
+    suspend fun deleteByIds(alarmIds: List<String>)
+    
+    @Query("DELETE FROM scheduled_alarms")
+    suspend fun deleteAll()
+}
@@ -1,40 +1,193 @@
 package com.wakeup.clock.data.database
 
+import android.database.Cursor
 import androidx.room.*
+import com.wakeup.clock.core.StreakCalculator
+import com.wakeup.clock.core.StreakState
+import com.wakeup.clock.data.model.DayCount
 import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.data.model.WakeUpStreak
 import kotlinx.coroutines.flow.Flow
 
 /**
  * 起床记录数据访问对象
+ *
+ * 写入记录的方法在同一事务中维护 wakeup_streak，读取连续天数只需读一行
  */
 @Dao
 interface WakeUpRecordDao {
     
-    @Query("SELECT * FROM wakeup_records ORDER BY timestamp DESC")
-    fun getAllRecords(): Flow<List<WakeUpRecord>>
+    /**
+     * 历史分页：最新的一页
+     */
+    @Query("SELECT * FROM wakeup_records ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    suspend fun getHistoryFirstPage(limit: Int): List<WakeUpRecord>
+    
+    /**
+     * 历史分页：排在 (timestamp, id) 之后（更早）的一页，按时间倒序
+     */
+    @Query(
+        "SELECT * FROM wakeup_records WHERE timestamp <= :timestamp AND (timestamp < :timestamp OR id < :id) " +
+            "ORDER BY timestamp DESC, id DESC LIMIT :limit"
+    )
+    suspend fun getHistoryOlderThan(timestamp: Long, id: String, limit: Int): List<WakeUpRecord>
+    
+    /**
+     * 历史分页：排在 (timestamp, id) 之前（更新）的一页，按时间正序
+     */
+    @Query(
+        "SELECT * FROM wakeup_records WHERE timestamp >= :timestamp AND (timestamp > :timestamp OR id > :id) " +
+            "ORDER BY timestamp ASC, id ASC LIMIT :limit"
+    )
+    suspend fun getHistoryNewerThan(timestamp: Long, id: String, limit: Int): List<WakeUpRecord>
+    
+    /**
+     * 排在 (timestamp, id) 之前（含自身）的记录条数，用于占位
+     */
+    @Query(
+        "SELECT COUNT(*) FROM wakeup_records WHERE timestamp >= :timestamp AND (timestamp > :timestamp OR id >= :id)"
+    )
+    suspend fun countNotOlderThan(timestamp: Long, id: String): Int
+    
+    /**
+     * 纪元日区间 [startDay, endDay] 内的记录（走 epochDay 索引的范围扫描）
+     * 同一天的多条记录按打卡时间排列，顺序固定
+     */
+    @Query(
+        "SELECT * FROM wakeup_records WHERE epochDay BETWEEN :startDay AND :endDay " +
+            "ORDER BY epochDay ASC, timestamp ASC, id ASC"
+    )
+    fun getRecordsInRange(startDay: Long, endDay: Long): Flow<List<WakeUpRecord>>
+    
+    /**
+     * 纪元日区间内每天的记录条数（只读 epochDay 索引，不加载记录行）
+     */
+    @Query(
+        "SELECT epochDay, COUNT(*) AS count FROM wakeup_records " +
+            "WHERE epochDay BETWEEN :startDay AND :endDay GROUP BY epochDay ORDER BY epochDay ASC"
+    )
+    fun getDailyCounts(startDay: Long, endDay: Long): Flow<List<DayCount>>
+    
+    /**
+     * 全部记录的游标，按时间正序（导出时逐行读取，内存占用与记录数无关）
+     */
+    @Query("SELECT * FROM wakeup_records ORDER BY timestamp ASC, id ASC")
+    fun getAllRecordsCursor(): Cursor
     
-    @Query("SELECT * FROM wakeup_records WHERE date LIKE :yearMonth || '%' ORDER BY date ASC")
-    fun getRecordsByMonth(yearMonth: String): Flow<List<WakeUpRecord>>
+    @Query("SELECT * FROM wakeup_records WHERE epochDay = :epochDay LIMIT 1")
+    suspend fun getRecordByDay(epochDay: Long): WakeUpRecord?
     
-    @Query("SELECT * FROM wakeup_records WHERE date = :date LIMIT 1")
-    suspend fun getRecordByDate(date: String): WakeUpRecord?
+    @Query("SELECT * FROM wakeup_records WHERE id = :id")
+    suspend fun getRecordById(id: String): WakeUpRecord?
     
     @Query("SELECT COUNT(*) FROM wakeup_records")
     fun getTotalCount(): Flow<Int>
     
+    @Query("SELECT COUNT(*) FROM wakeup_records")
+    suspend fun getTotalCountOnce(): Int
+    
+    @Query("SELECT COUNT(*) FROM wakeup_records WHERE epochDay = :epochDay")
+    suspend fun countByDay(epochDay: Long): Int
+    
+    /**
+     * 所有打卡日（去重，升序），用于重建连续状态
+     */
+    @Query("SELECT DISTINCT epochDay FROM wakeup_records ORDER BY epochDay ASC")
+    suspend fun getDistinctDays(): List<Long>
+    
+    @Query("SELECT * FROM wakeup_streak WHERE id = ${WakeUpStreak.SINGLETON_ID}")
+    suspend fun getStreak(): WakeUpStreak?
+    
+    @Query("SELECT * FROM wakeup_streak WHERE id = ${WakeUpStreak.SINGLETON_ID}")
+    fun observeStreak(): Flow<WakeUpStreak?>
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertStreak(streak: WakeUpStreak)
+    
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    suspend fun insertRecord(record: WakeUpRecord)
+    suspend fun insertRecordRow(record: WakeUpRecord)
+    
+    /**
+     * 批量写入记录行（同一事务），不维护连续状态，写完后调用 refreshStreak
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertRecordRows(records: List<WakeUpRecord>)
+    
+    /**
+     * 清除统计缓存的水位，下次读取统计时全部重新聚合
+     * 原地修改的记录不改变记录数和最新时间戳，只靠水位发现不了
+     */
+    @Query("DELETE FROM wakeup_stats_meta")
+    suspend fun invalidateStats()
+    
+    /**
+     * 批量写入记录（可能替换已有记录），同一事务中使统计缓存失效；
+     * 不维护连续状态，写完后调用 refreshStreak
+     */
+    @Transaction
+    suspend fun insertRecords(records: List<WakeUpRecord>) {
+        insertRecordRows(records)
+        invalidateStats()
+    }
     
     @Delete
-    suspend fun deleteRecord(record: WakeUpRecord)
+    suspend fun deleteRecordRow(record: WakeUpRecord)
     
     @Query("DELETE FROM wakeup_records")
-    suspend fun deleteAllRecords()
+    suspend fun deleteAllRecordRows()
+    
+    @Query("DELETE FROM wakeup_streak")
+    suspend fun deleteStreak()
+    
+    /**
+     * 插入记录并增量更新连续状态
+     * 补打更早的日期或修改已有记录的日期时重建；修改已有记录时统计缓存失效
+     */
+    @Transaction
+    suspend fun insertRecord(record: WakeUpRecord) {
+        val previous = getRecordById(record.id)
+        insertRecordRow(record)
+        if (previous != null && previous != record) invalidateStats()
+        
+        val state = getStreak()?.toState() ?: StreakState.EMPTY
+        val next = if (previous != null && previous.epochDay != record.epochDay) {
+            null
+        } else {
+            StreakCalculator.afterCheckIn(state, record.epochDay)
+        }
+        upsertStreak(WakeUpStreak.from(next ?: rebuildStreak()))
+    }
+    
+    /**
+     * 删除记录，该日期没有其他记录时重建连续状态
+     */
+    @Transaction
+    suspend fun deleteRecord(record: WakeUpRecord) {
+        deleteRecordRow(record)
+        if (countByDay(record.epochDay) == 0) {
+            upsertStreak(WakeUpStreak.from(rebuildStreak()))
+        }
+    }
+    
+    @Transaction
+    suspend fun deleteAllRecords() {
+        deleteAllRecordRows()
+        deleteStreak()
+    }
+    
+    /**
+     * 批量写入后重建并保存连续状态
+     */
+    @Transaction
+    suspend fun refreshStreak() {
+        upsertStreak(WakeUpStreak.from(rebuildStreak()))
+    }
     
     /**
-     * 获取所有起床记录（按日期降序）
-     * 用于计算连续打卡天数
+     * 从全部记录重建连续状态
      */
-    @Query("SELECT * FROM wakeup_records ORDER BY date DESC")
-    suspend fun getAllRecordsForStreak(): List<WakeUpRecord>
+    suspend fun rebuildStreak(): StreakState {
+        val days = getDistinctDays().toLongArray()
+        return StreakCalculator.rebuild(days, days.size)
+    }
 }
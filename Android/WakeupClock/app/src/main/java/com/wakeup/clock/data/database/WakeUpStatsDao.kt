@@ -0,0 +1,115 @@
+package com.wakeup.clock.data.database
+
+import androidx.room.*
+import com.wakeup.clock.data.model.StatBucket
+import com.wakeup.clock.data.model.StatKind
+import com.wakeup.clock.data.model.WakeUpStat
+import com.wakeup.clock.data.model.WakeUpStatsMeta
+
+/**
+ * 起床统计数据访问对象
+ *
+ * 统计全部由 SQL 聚合完成，只聚合时间戳晚于水位的记录并合并进缓存；
+ * 没有新记录时读取统计只查缓存表
+ */
+@Dao
+interface WakeUpStatsDao {
+    
+    @Query(
+        "SELECT '' AS bucket, COUNT(*) AS count, AVG(minuteOfDay) AS mean, " +
+            "AVG(minuteOfDay * minuteOfDay) AS meanSquare " +
+            "FROM wakeup_records WHERE timestamp > :after GROUP BY ''"
+    )
+    suspend fun aggregateOverall(after: Long): List<StatBucket>
+    
+    // 1970-01-01 是周四，(epochDay + 4) % 7 为 0 表示周日
+    @Query(
+        "SELECT CAST((epochDay + 4) % 7 AS TEXT) AS bucket, COUNT(*) AS count, AVG(minuteOfDay) AS mean, " +
+            "AVG(minuteOfDay * minuteOfDay) AS meanSquare " +
+            "FROM wakeup_records WHERE timestamp > :after GROUP BY (epochDay + 4) % 7"
+    )
+    suspend fun aggregateByWeekday(after: Long): List<StatBucket>
+    
+    @Query(
+        "SELECT COALESCE(alarmLabel, 'other') AS bucket, COUNT(*) AS count, AVG(minuteOfDay) AS mean, " +
+            "AVG(minuteOfDay * minuteOfDay) AS meanSquare " +
+            "FROM wakeup_records WHERE timestamp > :after GROUP BY COALESCE(alarmLabel, 'other')"
+    )
+    suspend fun aggregateByLabel(after: Long): List<StatBucket>
+    
+    @Query(
+        "SELECT strftime('%Y-%m', epochDay * 86400, 'unixepoch') AS bucket, COUNT(*) AS count, " +
+            "AVG(minuteOfDay) AS mean, AVG(minuteOfDay * minuteOfDay) AS meanSquare " +
+            "FROM wakeup_records WHERE timestamp > :after GROUP BY strftime('%Y-%m', epochDay * 86400, 'unixepoch')"
+    )
+    suspend fun aggregateByMonth(after: Long): List<StatBucket>
+    
+    @Query(
+        "SELECT CAST(minuteOfDay / ${WakeUpStat.HISTOGRAM_MINUTES} AS TEXT) AS bucket, COUNT(*) AS count, " +
+            "AVG(minuteOfDay) AS mean, AVG(minuteOfDay * minuteOfDay) AS meanSquare " +
+            "FROM wakeup_records WHERE timestamp > :after GROUP BY minuteOfDay / ${WakeUpStat.HISTOGRAM_MINUTES}"
+    )
+    suspend fun aggregateHistogram(after: Long): List<StatBucket>
+    
+    @Query("SELECT MAX(timestamp) FROM wakeup_records")
+    suspend fun getLatestTimestamp(): Long?
+    
+    @Query("SELECT COUNT(*) FROM wakeup_records")
+    suspend fun getRecordCount(): Int
+    
+    @Query("SELECT COUNT(*) FROM wakeup_records WHERE timestamp > :after")
+    suspend fun countNewerThan(after: Long): Int
+    
+    @Query("SELECT * FROM wakeup_stats")
+    suspend fun getStats(): List<WakeUpStat>
+    
+    @Query("SELECT * FROM wakeup_stats_meta WHERE id = 0")
+    suspend fun getMeta(): WakeUpStatsMeta?
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertStats(stats: List<WakeUpStat>)
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertMeta(meta: WakeUpStatsMeta)
+    
+    @Query("DELETE FROM wakeup_stats")
+    suspend fun deleteStats()
+    
+    /**
+     * 读取统计，必要时先更新缓存
+     * - 没有晚于水位的记录：直接返回缓存
+     * - 只有新增记录：只聚合新记录并合并
+     * - 记录数对不上（有删除）或水位已被清除（有记录被修改）：全部重新聚合
+     */
+    @Transaction
+    suspend fun refreshAndGet(): List<WakeUpStat> {
+        val meta = getMeta()
+        val latest = getLatestTimestamp() ?: Long.MIN_VALUE
+        val recordCount = getRecordCount()
+        if (meta != null && meta.watermark == latest && meta.recordCount == recordCount) {
+            return getStats()
+        }
+        
+        val incremental = meta != null && latest > meta.watermark &&
+            recordCount - meta.recordCount == countNewerThan(meta.watermark)
+        val after = meta?.takeIf { incremental }?.watermark ?: Long.MIN_VALUE
+        val current = if (incremental) getStats().associateBy { it.kind to it.bucket } else emptyMap()
+        
+        val updated = ArrayList<WakeUpStat>()
+        fun mergeAll(kind: StatKind, buckets: List<StatBucket>) {
+            for (bucket in buckets) {
+                updated += current[kind to bucket.bucket]?.merge(bucket) ?: WakeUpStat.of(kind, bucket)
+            }
+        }
+        mergeAll(StatKind.OVERALL, aggregateOverall(after))
+        mergeAll(StatKind.WEEKDAY, aggregateByWeekday(after))
+        mergeAll(StatKind.LABEL, aggregateByLabel(after))
+        mergeAll(StatKind.MONTH, aggregateByMonth(after))
+        mergeAll(StatKind.HISTOGRAM, aggregateHistogram(after))
+        
+        if (!incremental) deleteStats()
+        upsertStats(updated)
+        upsertMeta(WakeUpStatsMeta(watermark = latest, recordCount = recordCount))
+        return getStats()
+    }
+}
@@ -1,7 +1,9 @@
 package com.wakeup.clock.data.model
 
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
+import com.wakeup.clock.core.DateCodec
 import java.util.UUID
 
 /**
@@ -35,14 +37,25 @@ enum class RepeatMode {
 
 /**
  * 闹钟数据模型
+ *
+ * 时间以一天中的分钟数保存，自定义重复日期以星期掩码保存，
+ * 读取行和判断重复日期都不需要解析文本或分配对象
  */
-@Entity(tableName = "alarms")
+@Entity(
+    tableName = "alarms",
+    indices = [
+        // 启用闹钟按时间排序（调度、对账）
+        Index(value = ["enabled", "minuteOfDay"]),
+        // 全部闹钟按时间排序（首页列表）
+        Index(value = ["minuteOfDay"])
+    ]
+)
 data class AlarmModel(
     @PrimaryKey
     val id: String = UUID.randomUUID().toString(),
     
-    /** 闹钟时间 (格式: "HH:mm") */
-    val time: String,
+    /** 闹钟时间（一天中的分钟数） */
+    val minuteOfDay: Int,
     
     /** 是否启用 */
     val enabled: Boolean = true,
@@ -59,8 +72,8 @@ data class AlarmModel(
     /** 重复模式 */
     val repeatMode: RepeatMode = RepeatMode.WORKDAYS,
     
-    /** 自定义重复日期 (0=周日, 1=周一, ..., 6=周六) */
-    val customDays: List<Int> = emptyList(),
+    /** 自定义重复日期的星期掩码 (bit0=周日, bit1=周一, ..., bit6=周六) */
+    val dayMask: Byte = 0,
     
     /** 是否跳过节假日 */
     val skipHolidays: Boolean = false,
@@ -68,17 +81,47 @@ data class AlarmModel(
     /** 创建时间 */
     val createdAt: Long = System.currentTimeMillis()
 ) {
+    companion object {
+        /**
+         * 小时和分钟 -> 一天中的分钟数
+         */
+        fun minuteOf(hour: Int, minute: Int): Int = hour * 60 + minute
+    }
+    
+    /** 小时 */
+    val hour: Int
+        get() = minuteOfDay / 60
+    
+    /** 分钟 */
+    val minute: Int
+        get() = minuteOfDay % 60
+    
+    /** 闹钟时间 (格式: "HH:mm") */
+    val time: String
+        get() = DateCodec.formatMinuteOfDay(minuteOfDay)
+    
     /**
      * 获取时间的小时和分钟
      */
-    val timeComponents: Pair<Int, Int>?
-        get() {
-            val parts = time.split(":")
-            if (parts.size != 2) return null
-            val hour = parts[0].toIntOrNull() ?: return null
-            val minute = parts[1].toIntOrNull() ?: return null
-            return Pair(hour, minute)
-        }
+    val timeComponents: Pair<Int, Int>
+        get() = Pair(hour, minute)
+    
+    /** 星期掩码的整数形式 */
+    val weekMask: Int
+        get() = dayMask.toInt() and 0x7F
+    
+    /** 自定义重复日期 (0=周日, 1=周一, ..., 6=周六) */
+    val customDays: List<Int>
+        get() = (0..6).filter { repeatsOn(it) }
+    
+    /** 自定义重复的天数 */
+    val customDayCount: Int
+        get() = Integer.bitCount(weekMask)
+    
+    /**
+     * 自定义重复是否包含某天 (0=周日, 1=周一, ..., 6=周六)
+     */
+    fun repeatsOn(dayOfWeek: Int): Boolean = (weekMask shr dayOfWeek) and 1 != 0
     
     /**
      * 获取标签对应的图标名称
@@ -14,6 +14,8 @@ enum class ThemeMode {
 
 /**
  * 应用设置模型
+ *
+ * 设置保存在 DataStore 中（见 SettingsStore）；app_settings 表只用于从旧版本迁移
  */
 @Entity(tableName = "app_settings")
 data class AppSettings(
@@ -0,0 +1,41 @@
+package com.wakeup.clock.data.model
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * 开机重新调度耗时记录
+ * 各阶段耗时基于 SystemClock.elapsedRealtime()
+ */
+@Entity(tableName = "boot_metrics")
+data class BootMetrics(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    
+    /** 本次开机的时间戳（当前时间 - 开机后经过的时间） */
+    val bootTime: Long,
+    
+    /** 收到开机广播时距开机的毫秒数 */
+    val receivedAtElapsed: Long,
+    
+    /** 闹钟全部注册完成时距开机的毫秒数 */
+    val armedAtElapsed: Long,
+    
+    /** 读取数据库耗时 */
+    val dbReadMs: Long,
+    
+    /** 计算触发时间耗时 */
+    val computeMs: Long,
+    
+    /** 向系统注册耗时 */
+    val registerMs: Long,
+    
+    /** 启用的闹钟数量 */
+    val alarmCount: Int,
+    
+    /** 本次产生的系统调用次数 */
+    val systemCalls: Int,
+    
+    /** 是否超时未完成 */
+    val timedOut: Boolean
+)
@@ -0,0 +1,9 @@
+package com.wakeup.clock.data.model
+
+/**
+ * 按纪元日聚合的起床记录条数
+ */
+data class DayCount(
+    val epochDay: Long,
+    val count: Int
+)
@@ -0,0 +1,45 @@
+package com.wakeup.clock.data.model
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * 闹钟响铃延迟记录
+ * *DelayMs 为各阶段墙上时间相对计划触发时间的偏移，
+ * *ElapsedMs 为各阶段 elapsedRealtime 相对接收器收到广播的偏移
+ */
+@Entity(
+    tableName = "fire_latency",
+    indices = [Index(value = ["scheduledTime"])]
+)
+data class FireLatency(
+    /** 单次响铃ID */
+    @PrimaryKey
+    val fireId: String,
+    
+    /** 闹钟ID */
+    val alarmId: String,
+    
+    /** 是否为防赖床提醒 */
+    val isAntiSnooze: Boolean,
+    
+    /** 计划触发时间 */
+    val scheduledTime: Long,
+    
+    /** 接收器收到广播 */
+    val receiverDelayMs: Long,
+    val receiverElapsed: Long,
+    
+    /** 前台服务开始响铃 */
+    val serviceDelayMs: Long? = null,
+    val serviceElapsedMs: Long? = null,
+    
+    /** 开始播放声音 */
+    val audioDelayMs: Long? = null,
+    val audioElapsedMs: Long? = null,
+    
+    /** 锁屏界面绘制出第一帧 */
+    val frameDelayMs: Long? = null,
+    val frameElapsedMs: Long? = null
+)
@@ -0,0 +1,46 @@
+package com.wakeup.clock.data.model
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * 节假日数据：放假日或调休上班日
+ * 普通周末不单独保存，由星期推算
+ */
+@Entity(
+    tableName = "holidays",
+    indices = [Index(value = ["year"])]
+)
+data class HolidayDay(
+    /** 纪元日 */
+    @PrimaryKey
+    val epochDay: Long,
+    
+    /** 所属年份 */
+    val year: Int,
+    
+    /** true=放假，false=调休上班 */
+    val isHoliday: Boolean,
+    
+    /** 节假日名称 */
+    val name: String? = null
+)
+
+/**
+ * 已下载的年度节假日数据，用于条件刷新
+ */
+@Entity(tableName = "holiday_years")
+data class HolidayYear(
+    @PrimaryKey
+    val year: Int,
+    
+    /** 服务器返回的 ETag */
+    val etag: String? = null,
+    
+    /** 服务器返回的 Last-Modified */
+    val lastModified: String? = null,
+    
+    /** 上次检查时间 */
+    val fetchedAt: Long = System.currentTimeMillis()
+)
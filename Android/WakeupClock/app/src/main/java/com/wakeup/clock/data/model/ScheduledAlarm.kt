@@ -0,0 +1,24 @@
+package com.wakeup.clock.data.model
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * 已向系统注册的闹钟记录
+ * 记录 AlarmManager 中实际持有的注册，用于增量对账
+ */
+@Entity(tableName = "scheduled_alarms")
+data class ScheduledAlarm(
+    /** 闹钟ID（合并调度模式下为固定键） */
+    @PrimaryKey
+    val alarmId: String,
+    
+    /** 注册的触发时间 */
+    val triggerTime: Long,
+    
+    /** PendingIntent 请求码 */
+    val requestCode: Int,
+    
+    /** Intent 附带数据的摘要，数据变化时需要重新注册 */
+    val payloadHash: Int
+)
@@ -1,22 +1,37 @@
 package com.wakeup.clock.data.model
 
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
+import com.wakeup.clock.core.DateCodec
 import java.util.UUID
 
 /**
  * 起床记录模型
+ *
+ * 日期和时间以整数保存，按日期范围查询走 epochDay 索引；
+ * "yyyy-MM-dd" / "HH:mm" 文本只是由它们推导出的显示值
  */
-@Entity(tableName = "wakeup_records")
+@Entity(
+    tableName = "wakeup_records",
+    indices = [
+        // 按日期范围查询、连续打卡重建
+        Index(value = ["epochDay"]),
+        // 历史记录按时间倒序游标分页
+        Index(value = ["timestamp", "id"]),
+        // 按闹钟关联统计
+        Index(value = ["alarmId", "epochDay"])
+    ]
+)
 data class WakeUpRecord(
     @PrimaryKey
     val id: String = UUID.randomUUID().toString(),
     
-    /** 日期 (格式: "yyyy-MM-dd") */
-    val date: String,
+    /** 日期（纪元日） */
+    val epochDay: Long,
     
-    /** 起床时间 (格式: "HH:mm") */
-    val time: String,
+    /** 起床时间（一天中的分钟数） */
+    val minuteOfDay: Int,
     
     /** 闹钟类型标签 (work, date, flight等) */
     val alarmLabel: String? = null,
@@ -26,4 +41,12 @@ data class WakeUpRecord(
     
     /** 记录时间戳 */
     val timestamp: Long = System.currentTimeMillis()
-)
+) {
+    /** 日期 (格式: "yyyy-MM-dd") */
+    val date: String
+        get() = DateCodec.formatEpochDay(epochDay)
+    
+    /** 起床时间 (格式: "HH:mm") */
+    val time: String
+        get() = DateCodec.formatMinuteOfDay(minuteOfDay)
+}
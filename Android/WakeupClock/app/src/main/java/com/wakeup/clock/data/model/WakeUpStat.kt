@@ -0,0 +1,111 @@
+package com.wakeup.clock.data.model
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import kotlin.math.sqrt
+
+/**
+ * 统计维度
+ */
+enum class StatKind {
+    /** 全部记录（bucket 为空字符串） */
+    OVERALL,
+    
+    /** 按星期 (bucket: 0=周日, ..., 6=周六) */
+    WEEKDAY,
+    
+    /** 按闹钟类型 (bucket: alarmLabel，没有类型时为 "other") */
+    LABEL,
+    
+    /** 按月份 (bucket: "yyyy-MM") */
+    MONTH,
+    
+    /** 起床时间分布 (bucket: 一天中的第几个 HISTOGRAM_MINUTES 分钟段) */
+    HISTOGRAM
+}
+
+/**
+ * SQL 聚合查询的一行结果：某个分组的记录数、起床时间均值和平方均值
+ */
+data class StatBucket(
+    val bucket: String,
+    val count: Int,
+    val mean: Double,
+    val meanSquare: Double
+)
+
+/**
+ * 统计结果缓存（wakeup_stats 表）
+ * 保存均值和平方均值，新记录的聚合结果可以直接按记录数加权合并
+ */
+@Entity(tableName = "wakeup_stats", primaryKeys = ["kind", "bucket"])
+data class WakeUpStat(
+    val kind: StatKind,
+    val bucket: String,
+    val count: Int,
+    val mean: Double,
+    val meanSquare: Double
+) {
+    /** 起床时间标准差（分钟） */
+    val standardDeviation: Double
+        get() = sqrt((meanSquare - mean * mean).coerceAtLeast(0.0))
+    
+    /**
+     * 合并同一分组的新聚合结果
+     */
+    fun merge(other: StatBucket): WakeUpStat {
+        val total = count + other.count
+        if (total == 0) return this
+        return copy(
+            count = total,
+            mean = (mean * count + other.mean * other.count) / total,
+            meanSquare = (meanSquare * count + other.meanSquare * other.count) / total
+        )
+    }
+    
+    companion object {
+        /** 起床时间分布的分段长度 */
+        const val HISTOGRAM_MINUTES = 15
+        
+        fun of(kind: StatKind, bucket: StatBucket) =
+            WakeUpStat(kind, bucket.bucket, bucket.count, bucket.mean, bucket.meanSquare)
+    }
+}
+
+/**
+ * 统计缓存的水位（单行）
+ *
+ * @property watermark 已统计的最新记录时间戳
+ * @property recordCount 统计时的记录总数，与当前不一致说明有记录被删除，需要重建
+ */
+@Entity(tableName = "wakeup_stats_meta")
+data class WakeUpStatsMeta(
+    @PrimaryKey
+    val id: Int = 0,
+    val watermark: Long,
+    val recordCount: Int
+)
+
+/**
+ * 统计页面数据
+ */
+data class WakeUpStatistics(
+    val overall: WakeUpStat?,
+    val byWeekday: List<WakeUpStat>,
+    val byLabel: List<WakeUpStat>,
+    val byMonth: List<WakeUpStat>,
+    val histogram: List<WakeUpStat>
+) {
+    companion object {
+        fun from(stats: List<WakeUpStat>): WakeUpStatistics {
+            val byKind = stats.groupBy { it.kind }
+            return WakeUpStatistics(
+                overall = byKind[StatKind.OVERALL]?.firstOrNull(),
+                byWeekday = byKind[StatKind.WEEKDAY].orEmpty().sortedBy { it.bucket.toInt() },
+                byLabel = byKind[StatKind.LABEL].orEmpty().sortedByDescending { it.count },
+                byMonth = byKind[StatKind.MONTH].orEmpty().sortedBy { it.bucket },
+                histogram = byKind[StatKind.HISTOGRAM].orEmpty().sortedBy { it.bucket.toInt() }
+            )
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.wakeup.clock.data.model
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.wakeup.clock.core.StreakState
+
+/**
+ * 连续打卡状态（单行表），随起床记录的增删在同一事务中更新
+ */
+@Entity(tableName = "wakeup_streak")
+data class WakeUpStreak(
+    @PrimaryKey
+    val id: Int = SINGLETON_ID,
+    
+    /** 以最后一次打卡日结尾的连续天数 */
+    val currentStreak: Int = 0,
+    
+    /** 最后一次打卡的纪元日 */
+    val lastCheckInDay: Long = StreakState.EMPTY.lastDay,
+    
+    /** 历史最长连续天数 */
+    val bestStreak: Int = 0
+) {
+    companion object {
+        const val SINGLETON_ID = 0
+        
+        fun from(state: StreakState) = WakeUpStreak(
+            currentStreak = state.current,
+            lastCheckInDay = state.lastDay,
+            bestStreak = state.best
+        )
+    }
+    
+    fun toState() = StreakState(current = currentStreak, lastDay = lastCheckInDay, best = bestStreak)
+}
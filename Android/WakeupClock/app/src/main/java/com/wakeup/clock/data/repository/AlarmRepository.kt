@@ -1,18 +1,15 @@
 package com.wakeup.clock.data.repository
 
+import com.wakeup.clock.core.NextTriggerCalculator
 import com.wakeup.clock.data.database.AlarmDao
 import com.wakeup.clock.data.model.AlarmModel
-import kotlinx.coroutines.flow.Flow
 
 /**
  * 闹钟数据仓库
+ * 闹钟列表的观察统一通过 AppDataHub 共享
  */
 class AlarmRepository(private val alarmDao: AlarmDao) {
     
-    val allAlarms: Flow<List<AlarmModel>> = alarmDao.getAllAlarms()
-    
-    val enabledAlarms: Flow<List<AlarmModel>> = alarmDao.getEnabledAlarms()
-    
     suspend fun getEnabledAlarmsOnce(): List<AlarmModel> = alarmDao.getEnabledAlarmsOnce()
     
     suspend fun getAlarmById(id: String): AlarmModel? = alarmDao.getAlarmById(id)
@@ -28,4 +25,33 @@ class AlarmRepository(private val alarmDao: AlarmDao) {
     suspend fun setAlarmEnabled(id: String, enabled: Boolean) = alarmDao.setAlarmEnabled(id, enabled)
     
     suspend fun deleteAllAlarms() = alarmDao.deleteAllAlarms()
+    
+    // ========== 批量操作（每批一次数据库通知、一次调度对账） ==========
+    
+    suspend fun setAlarmsEnabled(ids: Collection<String>, enabled: Boolean): Int =
+        if (ids.isEmpty()) 0 else alarmDao.setAlarmsEnabled(ids.toList(), enabled)
+    
+    suspend fun setEnabledByLabel(label: String, enabled: Boolean): Int = alarmDao.setEnabledByLabel(label, enabled)
+    
+    /**
+     * 平移闹钟时间，ids 为 null 时平移全部闹钟
+     */
+    suspend fun shiftAlarms(minutes: Int, ids: Collection<String>? = null): Int = when {
+        minutes % (24 * 60) == 0 -> 0
+        ids == null -> alarmDao.shiftAllAlarms(minutes % (24 * 60))
+        ids.isEmpty() -> 0
+        else -> alarmDao.shiftAlarms(ids.toList(), minutes % (24 * 60))
+    }
+    
+    /**
+     * 把一组闹钟复制到指定日期 (0=周日, 1=周一, ..., 6=周六)
+     */
+    suspend fun duplicateAlarms(ids: Collection<String>, days: Iterable<Int>): List<AlarmModel> {
+        val dayMask = NextTriggerCalculator.maskOf(days)
+        if (ids.isEmpty() || dayMask == 0) return emptyList()
+        return alarmDao.duplicateAlarms(ids.toList(), dayMask.toByte())
+    }
+    
+    suspend fun deleteAlarms(ids: Collection<String>): Int =
+        if (ids.isEmpty()) 0 else alarmDao.deleteAlarmsByIds(ids.toList())
 }
@@ -0,0 +1,139 @@
+package com.wakeup.clock.data.repository
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import com.wakeup.clock.core.StreakCalculator
+import com.wakeup.clock.core.StreakState
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.settings.SettingsStore
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onStart
+import kotlinx.coroutines.flow.shareIn
+import kotlinx.coroutines.flow.transformLatest
+import java.time.Duration
+import java.time.LocalDate
+import java.time.ZonedDateTime
+
+/**
+ * 进程内共享的数据流（单例）
+ *
+ * 每个 Room 查询在进程内只观察一份，所有 Activity、ViewModel 和后台组件订阅同一个热流：
+ * 有订阅者时开始查询，最后一个订阅者离开 STOP_TIMEOUT_MS 后停止；
+ * 保留最近一次结果，新订阅者（切换页面、打开响铃界面）立即拿到数据，不重新查询
+ */
+class AppDataHub private constructor(private val context: Context) {
+    
+    companion object {
+        /** 最后一个订阅者离开后保持查询的时间，覆盖屏幕旋转和页面切换 */
+        private const val STOP_TIMEOUT_MS = 5_000L
+        
+        @Volatile
+        private var INSTANCE: AppDataHub? = null
+        
+        fun getInstance(context: Context): AppDataHub {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: AppDataHub(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+    }
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    private val database = AppDatabase.getDatabase(context)
+    private val settingsStore = SettingsStore.getInstance(context)
+    
+    private fun <T> Flow<T>.shared(): SharedFlow<T> =
+        distinctUntilChanged()
+            .shareIn(scope, SharingStarted.WhileSubscribed(STOP_TIMEOUT_MS), replay = 1)
+    
+    /** 全部闹钟，按时间排序 */
+    val alarms: SharedFlow<List<AlarmModel>> = database.alarmDao().getAllAlarms().shared()
+    
+    /** 启用的闹钟，由 alarms 派生，不单独查询 */
+    val enabledAlarms: Flow<List<AlarmModel>> = alarms
+        .map { list -> list.filter { it.enabled } }
+        .distinctUntilChanged()
+    
+    /** 应用设置快照（载入前为 null），本身就是进程内的热流 */
+    val settings: StateFlow<AppSettings?> = settingsStore.snapshot
+    
+    /**
+     * 系统时钟变化（值为发生时的时间戳）：订阅时立即发出一次，
+     * 之后每跨过一次本地午夜、用户修改系统时间或时区时各发出一次；
+     * 依赖"今天"或本地时间的派生数据与它组合
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val clockTicks: SharedFlow<Long> = clockBroadcasts()
+        .onStart { emit(Unit) }
+        .transformLatest {
+            // 时间或时区被修改后按新的时钟重新计算到午夜的等待时间
+            while (true) {
+                emit(System.currentTimeMillis())
+                delay(millisUntilNextMidnight())
+            }
+        }
+        .shareIn(scope, SharingStarted.WhileSubscribed(STOP_TIMEOUT_MS), replay = 1)
+    
+    /** 连续打卡状态（wakeup_streak 单行） */
+    val streakState: SharedFlow<StreakState> = database.wakeUpRecordDao().observeStreak()
+        .map { it?.toState() ?: StreakState.EMPTY }
+        .shared()
+    
+    /** 当前连续打卡天数，跨过午夜时即使没有新记录也重新计算（断签后归零） */
+    val streak: Flow<Int> = combine(streakState, clockTicks) { state, _ ->
+        StreakCalculator.currentStreak(state, LocalDate.now().toEpochDay())
+    }.distinctUntilChanged()
+    
+    /**
+     * 最近一次的闹钟列表（没有时返回 null），用作界面的初始值
+     */
+    fun latestAlarms(): List<AlarmModel>? = alarms.replayCache.firstOrNull()
+    
+    /**
+     * 最近一次的连续天数（没有时返回 null）
+     */
+    fun latestStreak(): Int? = streakState.replayCache.firstOrNull()
+        ?.let { StreakCalculator.currentStreak(it, LocalDate.now().toEpochDay()) }
+    
+    /**
+     * 系统日期、时间和时区变化的广播，有订阅者时才注册接收器
+     */
+    private fun clockBroadcasts(): Flow<Unit> = callbackFlow {
+        val receiver = object : BroadcastReceiver() {
+            override fun onReceive(context: Context, intent: Intent) {
+                trySend(Unit)
+            }
+        }
+        val filter = IntentFilter().apply {
+            addAction(Intent.ACTION_DATE_CHANGED)
+            addAction(Intent.ACTION_TIME_CHANGED)
+            addAction(Intent.ACTION_TIMEZONE_CHANGED)
+        }
+        // 只接收系统广播
+        context.registerReceiver(receiver, filter, Context.RECEIVER_NOT_EXPORTED)
+        awaitClose { context.unregisterReceiver(receiver) }
+    }
+    
+    private fun millisUntilNextMidnight(): Long {
+        val now = ZonedDateTime.now()
+        val midnight = now.toLocalDate().plusDays(1).atStartOfDay(now.zone)
+        // 多等一秒，确保醒来时已经是新的一天
+        return Duration.between(now, midnight).toMillis() + 1000
+    }
+}
@@ -1,23 +1,17 @@
 package com.wakeup.clock.data.repository
 
-import com.wakeup.clock.data.database.AppSettingsDao
 import com.wakeup.clock.data.model.AppSettings
-import kotlinx.coroutines.flow.Flow
+import com.wakeup.clock.data.settings.SettingsStore
 
 /**
  * 应用设置数据仓库
+ * 设置的观察统一通过 AppDataHub 共享
  */
-class SettingsRepository(private val settingsDao: AppSettingsDao) {
+class SettingsRepository(private val store: SettingsStore) {
     
-    val settings: Flow<AppSettings?> = settingsDao.getSettings()
+    suspend fun getSettingsOnce(): AppSettings = store.get()
     
-    suspend fun getSettingsOnce(): AppSettings = 
-        settingsDao.getSettingsOnce() ?: AppSettings()
+    suspend fun updateSettings(settings: AppSettings) = store.replace(settings)
     
-    suspend fun updateSettings(settings: AppSettings) = settingsDao.insertSettings(settings)
-    
-    suspend fun resetSettings() {
-        settingsDao.deleteSettings()
-        settingsDao.insertSettings(AppSettings())
-    }
+    suspend fun resetSettings() = store.reset()
 }
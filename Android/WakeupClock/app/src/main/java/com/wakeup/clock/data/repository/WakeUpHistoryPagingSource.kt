@@ -0,0 +1,124 @@
+package com.wakeup.clock.data.repository
+
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import androidx.room.InvalidationTracker
+import com.wakeup.clock.data.database.WakeUpRecordDao
+import com.wakeup.clock.data.model.WakeUpRecord
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * 起床记录历史分页（按时间倒序）
+ *
+ * 以 (timestamp, id) 为键做游标分页，每页都是 (timestamp, id) 索引上的范围扫描，
+ * 翻到多深都不需要 OFFSET；只有首次加载时统计一次条数用于占位
+ */
+class WakeUpHistoryPagingSource(
+    private val recordDao: WakeUpRecordDao,
+    private val invalidationTracker: InvalidationTracker
+) : PagingSource<WakeUpHistoryPagingSource.Key, WakeUpRecord>() {
+    
+    private companion object {
+        const val TABLE = "wakeup_records"
+    }
+    
+    /**
+     * 分页游标：某条记录的位置
+     */
+    data class Key(val timestamp: Long, val id: String) {
+        companion object {
+            fun of(record: WakeUpRecord) = Key(record.timestamp, record.id)
+        }
+    }
+    
+    // 记录表变化时使当前分页失效，由 Pager 重新创建
+    private val observer = object : InvalidationTracker.Observer(TABLE) {
+        override fun onInvalidated(tables: Set<String>) {
+            invalidate()
+        }
+    }
+    
+    private val observerRegistered = AtomicBoolean(false)
+    
+    init {
+        registerInvalidatedCallback { invalidationTracker.removeObserver(observer) }
+    }
+    
+    override suspend fun load(params: LoadParams<Key>): LoadResult<Key, WakeUpRecord> {
+        // addObserver 会在调用线程上同步触发器，首次加载时才切到 IO 线程注册；
+        // 没有加载过就被丢弃的分页源不会留在 InvalidationTracker 中
+        if (observerRegistered.compareAndSet(false, true)) {
+            withContext(Dispatchers.IO) { invalidationTracker.addObserver(observer) }
+            // 注册前已失效时失效回调已经执行过，这里自行移除
+            if (invalid) {
+                invalidationTracker.removeObserver(observer)
+                return LoadResult.Invalid()
+            }
+        }
+        return try {
+            when (params) {
+                is LoadParams.Refresh -> refresh(params.key, params.loadSize, params.placeholdersEnabled)
+                is LoadParams.Append -> page(
+                    recordDao.getHistoryOlderThan(params.key.timestamp, params.key.id, params.loadSize),
+                    params.loadSize
+                )
+                is LoadParams.Prepend -> page(
+                    recordDao.getHistoryNewerThan(params.key.timestamp, params.key.id, params.loadSize).asReversed(),
+                    params.loadSize,
+                    prepend = true
+                )
+            }
+        } catch (e: Exception) {
+            LoadResult.Error(e)
+        }
+    }
+    
+    /**
+     * 首次加载或刷新：key 为 null 时从最新一条开始，否则从 key 之后开始
+     */
+    private suspend fun refresh(key: Key?, loadSize: Int, placeholders: Boolean): LoadResult<Key, WakeUpRecord> {
+        val records = if (key == null) {
+            recordDao.getHistoryFirstPage(loadSize)
+        } else {
+            recordDao.getHistoryOlderThan(key.timestamp, key.id, loadSize)
+        }
+        if (!placeholders) {
+            return LoadResult.Page(
+                data = records,
+                prevKey = records.firstOrNull()?.takeIf { key != null }?.let(Key::of),
+                nextKey = records.lastOrNull()?.takeIf { records.size >= loadSize }?.let(Key::of)
+            )
+        }
+        
+        val total = recordDao.getTotalCountOnce()
+        val before = if (key == null) 0 else recordDao.countNotOlderThan(key.timestamp, key.id)
+        return LoadResult.Page(
+            data = records,
+            prevKey = records.firstOrNull()?.takeIf { before > 0 }?.let(Key::of),
+            nextKey = records.lastOrNull()?.takeIf { records.size >= loadSize }?.let(Key::of),
+            itemsBefore = before,
+            itemsAfter = (total - before - records.size).coerceAtLeast(0)
+        )
+    }
+    
+    private fun page(records: List<WakeUpRecord>, loadSize: Int, prepend: Boolean = false): LoadResult<Key, WakeUpRecord> {
+        val full = records.size >= loadSize
+        return LoadResult.Page(
+            data = records,
+            prevKey = records.firstOrNull()?.takeIf { !prepend || full }?.let(Key::of),
+            nextKey = records.lastOrNull()?.takeIf { prepend || full }?.let(Key::of)
+        )
+    }
+    
+    /**
+     * 刷新时从可见位置附近继续：取锚点前半页处的记录作为游标
+     */
+    override fun getRefreshKey(state: PagingState<Key, WakeUpRecord>): Key? {
+        val anchor = state.anchorPosition ?: return null
+        val position = anchor - state.config.initialLoadSize / 2 - 1
+        if (position < 0) return null
+        return state.closestItemToPosition(position)?.let(Key::of)
+    }
+}
@@ -1,24 +1,57 @@
 package com.wakeup.clock.data.repository
 
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.room.InvalidationTracker
+import com.wakeup.clock.core.StreakCalculator
 import com.wakeup.clock.data.database.WakeUpRecordDao
+import com.wakeup.clock.data.model.DayCount
 import com.wakeup.clock.data.model.WakeUpRecord
 import kotlinx.coroutines.flow.Flow
-import java.text.SimpleDateFormat
-import java.util.*
+import java.time.LocalDate
+import java.time.YearMonth
 
 /**
  * 起床记录数据仓库
  */
-class WakeUpRecordRepository(private val recordDao: WakeUpRecordDao) {
+class WakeUpRecordRepository(
+    private val recordDao: WakeUpRecordDao,
+    private val invalidationTracker: InvalidationTracker
+) {
     
-    val allRecords: Flow<List<WakeUpRecord>> = recordDao.getAllRecords()
+    companion object {
+        private const val HISTORY_PAGE_SIZE = 50
+        private const val HISTORY_PREFETCH_DISTANCE = 30
+    }
     
-    fun getRecordsByMonth(yearMonth: String): Flow<List<WakeUpRecord>> = 
-        recordDao.getRecordsByMonth(yearMonth)
+    /**
+     * 按时间倒序的全部历史记录（分页加载，内存占用与记录总数无关）
+     */
+    fun history(): Flow<PagingData<WakeUpRecord>> =
+        Pager(
+            config = PagingConfig(
+                pageSize = HISTORY_PAGE_SIZE,
+                prefetchDistance = HISTORY_PREFETCH_DISTANCE,
+                enablePlaceholders = true,
+                maxSize = HISTORY_PAGE_SIZE * 6
+            ),
+            pagingSourceFactory = { WakeUpHistoryPagingSource(recordDao, invalidationTracker) }
+        ).flow
+    
+    /**
+     * 某月的记录
+     */
+    fun getRecordsByMonth(yearMonth: YearMonth): Flow<List<WakeUpRecord>> =
+        recordDao.getRecordsInRange(yearMonth.atDay(1).toEpochDay(), yearMonth.atEndOfMonth().toEpochDay())
     
-    val totalCount: Flow<Int> = recordDao.getTotalCount()
+    /**
+     * 某年每天的打卡次数（用于热力图）
+     */
+    fun getDailyCountsByYear(year: Int): Flow<List<DayCount>> =
+        recordDao.getDailyCounts(LocalDate.of(year, 1, 1).toEpochDay(), LocalDate.of(year, 12, 31).toEpochDay())
     
-    suspend fun getRecordByDate(date: String): WakeUpRecord? = recordDao.getRecordByDate(date)
+    suspend fun getRecordByDate(date: LocalDate): WakeUpRecord? = recordDao.getRecordByDay(date.toEpochDay())
     
     suspend fun insertRecord(record: WakeUpRecord) = recordDao.insertRecord(record)
     
@@ -27,53 +60,12 @@ class WakeUpRecordRepository(private val recordDao: WakeUpRecordDao) {
     suspend fun deleteAllRecords() = recordDao.deleteAllRecords()
     
     /**
-     * 计算连续打卡天数
+     * 连续打卡天数
      * 与iOS逻辑一致：只要有打卡记录就算一天
+     * 读取随记录增删维护的连续状态（单行），不扫描历史记录
      */
     suspend fun getStreak(): Int {
-        val records = recordDao.getAllRecordsForStreak()
-        if (records.isEmpty()) return 0
-        
-        val dateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault())
-        val today = dateFormat.format(Date())
-        val todayCal = Calendar.getInstance()
-        
-        var streak = 0
-        var expectedDate = todayCal.clone() as Calendar
-        
-        // 检查今天是否有记录，如果没有则从昨天开始计算
-        val todayRecord = records.find { it.date == today }
-        if (todayRecord == null) {
-            expectedDate.add(Calendar.DAY_OF_MONTH, -1)
-        }
-        
-        // 按日期分组（同一天可能有多条记录，只算一天）
-        val uniqueDates = records.map { it.date }.distinct()
-        
-        for (dateStr in uniqueDates) {
-            val recordDate = try {
-                dateFormat.parse(dateStr)
-            } catch (e: Exception) {
-                continue
-            } ?: continue
-            
-            val recordCal = Calendar.getInstance().apply { time = recordDate }
-            
-            // 检查是否是预期的日期
-            if (isSameDay(recordCal, expectedDate)) {
-                streak++
-                expectedDate.add(Calendar.DAY_OF_MONTH, -1)
-            } else {
-                // 连续中断
-                break
-            }
-        }
-        
-        return streak
-    }
-    
-    private fun isSameDay(cal1: Calendar, cal2: Calendar): Boolean {
-        return cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR) &&
-                cal1.get(Calendar.DAY_OF_YEAR) == cal2.get(Calendar.DAY_OF_YEAR)
+        val streak = recordDao.getStreak() ?: return 0
+        return StreakCalculator.currentStreak(streak.toState(), LocalDate.now().toEpochDay())
     }
 }
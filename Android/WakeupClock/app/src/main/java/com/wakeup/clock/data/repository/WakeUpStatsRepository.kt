@@ -0,0 +1,27 @@
+package com.wakeup.clock.data.repository
+
+import com.wakeup.clock.data.database.WakeUpRecordDao
+import com.wakeup.clock.data.database.WakeUpStatsDao
+import com.wakeup.clock.data.model.WakeUpStatistics
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.mapLatest
+
+/**
+ * 起床统计数据仓库
+ */
+class WakeUpStatsRepository(
+    private val statsDao: WakeUpStatsDao,
+    private val recordDao: WakeUpRecordDao
+) {
+    
+    /**
+     * 起床统计，记录表每次变化后重新读取（缓存命中时只查缓存表，新增记录只聚合增量）
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    fun statistics(): Flow<WakeUpStatistics> =
+        recordDao.getTotalCount()
+            .mapLatest { getStatisticsOnce() }
+    
+    suspend fun getStatisticsOnce(): WakeUpStatistics = WakeUpStatistics.from(statsDao.refreshAndGet())
+}
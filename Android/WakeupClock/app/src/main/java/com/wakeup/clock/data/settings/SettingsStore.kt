@@ -0,0 +1,154 @@
+package com.wakeup.clock.data.settings
+
+import android.content.Context
+import android.util.Log
+import androidx.datastore.core.DataMigration
+import androidx.datastore.core.DataStore
+import androidx.datastore.preferences.core.MutablePreferences
+import androidx.datastore.preferences.core.PreferenceDataStoreFactory
+import androidx.datastore.preferences.core.Preferences
+import androidx.datastore.preferences.core.booleanPreferencesKey
+import androidx.datastore.preferences.core.edit
+import androidx.datastore.preferences.core.emptyPreferences
+import androidx.datastore.preferences.core.floatPreferencesKey
+import androidx.datastore.preferences.core.intPreferencesKey
+import androidx.datastore.preferences.core.stringPreferencesKey
+import androidx.datastore.preferences.preferencesDataStoreFile
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.model.ThemeMode
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
+
+/**
+ * 应用设置存储（单例）
+ *
+ * 设置保存在 DataStore 中，进程内只读一次文件，之后的读取都来自内存中的快照，
+ * 闹钟响铃路径和广播接收器读取设置不需要打开数据库。
+ * 旧版本保存在 Room app_settings 表中的设置在首次读取时迁移过来
+ */
+class SettingsStore private constructor(context: Context) {
+    
+    companion object {
+        private const val TAG = "SettingsStore"
+        private const val FILE_NAME = "app_settings"
+        
+        private val THEME_MODE = stringPreferencesKey("themeMode")
+        private val LANGUAGE = stringPreferencesKey("language")
+        private val ENABLE_ANTI_SNOOZE = booleanPreferencesKey("enableAntiSnooze")
+        private val ANTI_SNOOZE_INTERVAL = intPreferencesKey("antiSnoozeInterval")
+        private val ANTI_SNOOZE_COUNT = intPreferencesKey("antiSnoozeCount")
+        private val HAS_ACCEPTED_SAFETY_NOTICE = booleanPreferencesKey("hasAcceptedSafetyNotice")
+        private val ENABLE_VOLUME_REMINDER = booleanPreferencesKey("enableVolumeReminder")
+        private val VOLUME_REMINDER_THRESHOLD = floatPreferencesKey("volumeReminderThreshold")
+        private val VOLUME_REMINDER_HOUR = intPreferencesKey("volumeReminderHour")
+        private val VOLUME_REMINDER_MINUTE = intPreferencesKey("volumeReminderMinute")
+        
+        // 已从 Room 迁移的标记，重置设置时保留
+        private val MIGRATED_FROM_ROOM = booleanPreferencesKey("migratedFromRoom")
+        
+        @Volatile
+        private var INSTANCE: SettingsStore? = null
+        
+        fun getInstance(context: Context): SettingsStore {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: SettingsStore(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+        
+        private fun toSettings(prefs: Preferences): AppSettings {
+            val defaults = AppSettings()
+            return AppSettings(
+                themeMode = prefs[THEME_MODE]
+                    ?.let { name -> ThemeMode.entries.find { it.name == name } }
+                    ?: defaults.themeMode,
+                language = prefs[LANGUAGE] ?: defaults.language,
+                enableAntiSnooze = prefs[ENABLE_ANTI_SNOOZE] ?: defaults.enableAntiSnooze,
+                antiSnoozeInterval = prefs[ANTI_SNOOZE_INTERVAL] ?: defaults.antiSnoozeInterval,
+                antiSnoozeCount = prefs[ANTI_SNOOZE_COUNT] ?: defaults.antiSnoozeCount,
+                hasAcceptedSafetyNotice = prefs[HAS_ACCEPTED_SAFETY_NOTICE] ?: defaults.hasAcceptedSafetyNotice,
+                enableVolumeReminder = prefs[ENABLE_VOLUME_REMINDER] ?: defaults.enableVolumeReminder,
+                volumeReminderThreshold = prefs[VOLUME_REMINDER_THRESHOLD] ?: defaults.volumeReminderThreshold,
+                volumeReminderHour = prefs[VOLUME_REMINDER_HOUR] ?: defaults.volumeReminderHour,
+                volumeReminderMinute = prefs[VOLUME_REMINDER_MINUTE] ?: defaults.volumeReminderMinute
+            )
+        }
+        
+        private fun write(settings: AppSettings, prefs: MutablePreferences) {
+            prefs[THEME_MODE] = settings.themeMode.name
+            prefs[LANGUAGE] = settings.language
+            prefs[ENABLE_ANTI_SNOOZE] = settings.enableAntiSnooze
+            prefs[ANTI_SNOOZE_INTERVAL] = settings.antiSnoozeInterval
+            prefs[ANTI_SNOOZE_COUNT] = settings.antiSnoozeCount
+            prefs[HAS_ACCEPTED_SAFETY_NOTICE] = settings.hasAcceptedSafetyNotice
+            prefs[ENABLE_VOLUME_REMINDER] = settings.enableVolumeReminder
+            prefs[VOLUME_REMINDER_THRESHOLD] = settings.volumeReminderThreshold
+            prefs[VOLUME_REMINDER_HOUR] = settings.volumeReminderHour
+            prefs[VOLUME_REMINDER_MINUTE] = settings.volumeReminderMinute
+        }
+    }
+    
+    /**
+     * 一次性迁移：把 Room 中的设置行写入 DataStore，之后删除该行
+     */
+    private class RoomSettingsMigration(private val context: Context) : DataMigration<Preferences> {
+        
+        override suspend fun shouldMigrate(currentData: Preferences): Boolean =
+            currentData[MIGRATED_FROM_ROOM] != true
+        
+        override suspend fun migrate(currentData: Preferences): Preferences {
+            val stored = AppDatabase.getDatabase(context).appSettingsDao().getSettingsOnce()
+            val prefs = currentData.toMutablePreferences()
+            if (stored != null) {
+                write(stored, prefs)
+                Log.d(TAG, "Migrated settings from Room")
+            }
+            prefs[MIGRATED_FROM_ROOM] = true
+            return prefs.toPreferences()
+        }
+        
+        override suspend fun cleanUp() {
+            AppDatabase.getDatabase(context).appSettingsDao().deleteSettings()
+        }
+    }
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    
+    private val dataStore: DataStore<Preferences> = PreferenceDataStoreFactory.create(
+        migrations = listOf(RoomSettingsMigration(context)),
+        scope = scope,
+        produceFile = { context.preferencesDataStoreFile(FILE_NAME) }
+    )
+    
+    /**
+     * 进程内的设置快照，创建时立即开始读取；读取完成前为 null
+     */
+    val snapshot: StateFlow<AppSettings?> = dataStore.data
+        .catch { e ->
+            Log.e(TAG, "Failed to read settings: ${e.message}")
+            emit(emptyPreferences())
+        }
+        .map { toSettings(it) }
+        .stateIn(scope, SharingStarted.Eagerly, null)
+    
+    /**
+     * 当前设置，已载入时直接返回内存中的值
+     */
+    suspend fun get(): AppSettings = snapshot.value ?: snapshot.filterNotNull().first()
+    
+    suspend fun update(transform: (AppSettings) -> AppSettings) {
+        dataStore.edit { prefs -> write(transform(toSettings(prefs)), prefs) }
+    }
+    
+    suspend fun replace(settings: AppSettings) = update { settings }
+    
+    suspend fun reset() = replace(AppSettings())
+}
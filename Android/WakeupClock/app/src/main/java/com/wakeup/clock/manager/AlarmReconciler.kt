@@ -0,0 +1,225 @@
+package com.wakeup.clock.manager
+
+import android.content.Context
+import android.util.Log
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.ScheduledAlarm
+import com.wakeup.clock.data.repository.AppDataHub
+import com.wakeup.clock.util.HolidayChecker
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/**
+ * 闹钟调度对账器（单例）
+ * 对比 alarms 表中应有的注册和 scheduled_alarms 表中已有的注册，
+ * 只对发生变化的闹钟调用 AlarmManager
+ */
+class AlarmReconciler private constructor(private val context: Context) {
+    
+    companion object {
+        private const val TAG = "AlarmReconciler"
+        
+        /** 合并调度模式下的固定键 */
+        const val NEXT_WAKEUP_KEY = "__next_wakeup__"
+        
+        /** 逐个调度模式下分配请求码的起点 */
+        private const val FIRST_REQUEST_CODE = 10000
+        
+        @Volatile
+        private var INSTANCE: AlarmReconciler? = null
+        
+        fun getInstance(context: Context): AlarmReconciler {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: AlarmReconciler(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+    }
+    
+    private val database = AppDatabase.getDatabase(context)
+    private val alarmDao = database.alarmDao()
+    private val scheduledAlarmDao = database.scheduledAlarmDao()
+    private val scheduler = AlarmScheduler(context)
+    private val mutex = Mutex()
+    
+    /**
+     * 一条应有的注册及其注册动作
+     */
+    private class Registration(
+        val scheduled: ScheduledAlarm,
+        val register: () -> Unit
+    )
+    
+    /**
+     * 监听启用闹钟的变化，每次变化后自动对账
+     */
+    fun observe(scope: CoroutineScope) {
+        scope.launch {
+            // 与界面共享同一个闹钟查询；对账较慢时只处理最新的列表
+            AppDataHub.getInstance(context).enabledAlarms
+                .conflate()
+                .collect { enabledAlarms ->
+                    try {
+                        reconcile(enabledAlarms)
+                    } catch (e: Exception) {
+                        Log.e(TAG, "Failed to reconcile alarms: ${e.message}")
+                    }
+                }
+        }
+    }
+    
+    /**
+     * 从数据库读取启用的闹钟并对账
+     */
+    suspend fun reconcile(afterMillis: Long = System.currentTimeMillis()): Int =
+        reconcile(alarmDao.getEnabledAlarmsOnce(), afterMillis)
+    
+    /**
+     * 不信任 scheduled_alarms 中的记录，全部重新注册
+     * 先取消记录中的每条注册并清空记录，再从数据库对账。
+     * 用于恢复数据、系统清除闹钟等记录与系统实际注册可能不一致的场合
+     */
+    suspend fun resync(afterMillis: Long = System.currentTimeMillis()): Int {
+        mutex.withLock {
+            scheduledAlarmDao.getAll().forEach { scheduler.cancelRequest(actionOf(it), it.requestCode) }
+            scheduledAlarmDao.deleteAll()
+        }
+        return reconcile(afterMillis)
+    }
+    
+    /**
+     * 对账：只注册新增或变化的闹钟，只取消不再需要的注册
+     * 系统中已不存在的注册（设备重启、强行停止后）按变化处理，重启后也直接调用本方法
+     *
+     * @param afterMillis 只考虑严格晚于该时间的触发
+     * @param triggerTimes 已预先计算好的触发时间（按闹钟ID），缺失的再现场计算
+     * @return 本次产生的系统调用次数
+     */
+    suspend fun reconcile(
+        enabledAlarms: List<AlarmModel>,
+        afterMillis: Long = System.currentTimeMillis(),
+        triggerTimes: Map<String, Long>? = null
+    ): Int =
+        mutex.withLock {
+            // 跳过节假日的闹钟依赖本地节假日数据，计算前确保已载入
+            HolidayChecker.ensureLoaded(context)
+            
+            val current = scheduledAlarmDao.getAll().associateBy { it.alarmId }
+            val desired = if (AlarmScheduler.COALESCED_SCHEDULING) {
+                desiredNextWakeUp(enabledAlarms, afterMillis, triggerTimes)
+            } else {
+                desiredPerAlarm(enabledAlarms, afterMillis, triggerTimes, current)
+            }
+            
+            var systemCalls = 0
+            
+            // 取消不再需要的注册
+            val stale = current.values.filter { it.alarmId !in desired }
+            stale.forEach { scheduled ->
+                scheduler.cancelRequest(actionOf(scheduled), scheduled.requestCode)
+                systemCalls++
+            }
+            if (stale.isNotEmpty()) {
+                scheduledAlarmDao.deleteByIds(stale.map { it.alarmId })
+            }
+            
+            // 注册新增或变化的闹钟；记录未变但系统中已没有对应注册的（强行停止后）也重新注册
+            val changed = desired.values.filter { registration ->
+                val existing = current[registration.scheduled.alarmId]
+                existing == null ||
+                    existing.triggerTime != registration.scheduled.triggerTime ||
+                    existing.payloadHash != registration.scheduled.payloadHash ||
+                    !scheduler.isRegistered(actionOf(existing), existing.requestCode)
+            }
+            changed.forEach { registration ->
+                registration.register()
+                systemCalls++
+            }
+            if (changed.isNotEmpty()) {
+                scheduledAlarmDao.upsert(changed.map { it.scheduled })
+            }
+            
+            if (systemCalls > 0) {
+                Log.d(TAG, "Reconciled ${enabledAlarms.size} alarm(s) with $systemCalls system call(s)")
+            }
+            systemCalls
+        }
+    
+    /**
+     * 合并调度模式下应有的注册：最多一条
+     */
+    private fun desiredNextWakeUp(
+        enabledAlarms: List<AlarmModel>,
+        afterMillis: Long,
+        triggerTimes: Map<String, Long>?
+    ): Map<String, Registration> {
+        val next = scheduler.findNextWakeUp(enabledAlarms, afterMillis, triggerTimes) ?: return emptyMap()
+        
+        var hash = 1
+        next.alarms.forEach { hash = 31 * hash + 31 * it.id.hashCode() + payloadHash(it) }
+        
+        val scheduled = ScheduledAlarm(
+            alarmId = NEXT_WAKEUP_KEY,
+            triggerTime = next.triggerTime,
+            requestCode = AlarmScheduler.NEXT_WAKEUP_REQUEST_CODE,
+            payloadHash = hash
+        )
+        return mapOf(NEXT_WAKEUP_KEY to Registration(scheduled) { scheduler.registerNextWakeUp(next) })
+    }
+    
+    /**
+     * 逐个调度模式下应有的注册：每个闹钟一条，沿用已分配的请求码
+     */
+    private fun desiredPerAlarm(
+        enabledAlarms: List<AlarmModel>,
+        afterMillis: Long,
+        triggerTimes: Map<String, Long>?,
+        current: Map<String, ScheduledAlarm>
+    ): Map<String, Registration> {
+        var nextRequestCode = maxOf(
+            FIRST_REQUEST_CODE,
+            (current.values.maxOfOrNull { it.requestCode } ?: 0) + 1
+        )
+        
+        val desired = LinkedHashMap<String, Registration>()
+        enabledAlarms.forEach { alarm ->
+            val triggerTime = triggerTimes?.get(alarm.id)
+                ?: scheduler.calculateNextTriggerTime(alarm, afterMillis)
+                ?: return@forEach
+            val requestCode = current[alarm.id]?.requestCode ?: nextRequestCode++
+            val scheduled = ScheduledAlarm(
+                alarmId = alarm.id,
+                triggerTime = triggerTime,
+                requestCode = requestCode,
+                payloadHash = payloadHash(alarm)
+            )
+            desired[alarm.id] = Registration(scheduled) {
+                scheduler.registerAlarm(alarm, triggerTime, requestCode)
+            }
+        }
+        return desired
+    }
+    
+    /**
+     * 记录对应的注册 action
+     */
+    private fun actionOf(scheduled: ScheduledAlarm): String =
+        if (scheduled.alarmId == NEXT_WAKEUP_KEY) {
+            AlarmScheduler.ACTION_NEXT_WAKEUP
+        } else {
+            AlarmScheduler.ACTION_ALARM_TRIGGER
+        }
+    
+    /**
+     * Intent 附带数据的摘要
+     */
+    private fun payloadHash(alarm: AlarmModel): Int {
+        var hash = alarm.label.hashCode()
+        hash = 31 * hash + alarm.minuteOfDay
+        hash = 31 * hash + alarm.difficulty.value
+        return hash
+    }
+}
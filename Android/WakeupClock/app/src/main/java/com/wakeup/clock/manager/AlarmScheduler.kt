@@ -6,6 +6,7 @@ import android.content.Context
 import android.content.Intent
 import android.os.Build
 import android.util.Log
+import com.wakeup.clock.core.NextTriggerCalculator
 import com.wakeup.clock.data.model.AlarmModel
 import com.wakeup.clock.data.model.RepeatMode
 import com.wakeup.clock.service.AlarmReceiver
@@ -30,23 +31,35 @@ class AlarmScheduler(private val context: Context) {
         const val EXTRA_REMINDER_INDEX = "reminder_index"
         const val EXTRA_TOTAL_REMINDERS = "total_reminders"
         const val ACTION_ALARM_TRIGGER = "com.wakeup.clock.ALARM_TRIGGER"
+        
+        // 单次响铃ID，用于串联响铃链路各阶段的延迟
+        const val EXTRA_FIRE_ID = "fire_id"
+        
+        // 合并调度：只向系统注册一个"下一次唤醒"闹钟
+        const val ACTION_NEXT_WAKEUP = "com.wakeup.clock.NEXT_WAKEUP"
+        const val EXTRA_TRIGGER_TIME = "trigger_time"
+        const val EXTRA_ALARM_IDS = "alarm_ids"
+        const val EXTRA_ALARM_LABELS = "alarm_labels"
+        const val EXTRA_ALARM_TIMES = "alarm_times"
+        const val EXTRA_ALARM_DIFFICULTIES = "alarm_difficulties"
+        const val NEXT_WAKEUP_REQUEST_CODE = 0x4E57 // 固定请求码，不再依赖 hashCode
+        
+        /** 是否启用合并调度模式 */
+        const val COALESCED_SCHEDULING = true
     }
     
     /**
-     * 调度闹钟
+     * 合并调度的一次唤醒：触发时间和该时刻到期的闹钟
      */
-    fun scheduleAlarm(alarm: AlarmModel) {
-        if (!alarm.enabled) {
-            Log.d(TAG, "Alarm ${alarm.id} is disabled, skipping schedule")
-            return
-        }
-        
-        val triggerTime = calculateNextTriggerTime(alarm)
-        if (triggerTime == null) {
-            Log.d(TAG, "No valid trigger time for alarm ${alarm.id}")
-            return
-        }
-        
+    data class NextWakeUp(
+        val triggerTime: Long,
+        val alarms: List<AlarmModel>
+    )
+    
+    /**
+     * 以指定请求码向系统注册单个闹钟
+     */
+    fun registerAlarm(alarm: AlarmModel, triggerTime: Long, requestCode: Int) {
         val intent = Intent(context, AlarmReceiver::class.java).apply {
             action = ACTION_ALARM_TRIGGER
             putExtra(EXTRA_ALARM_ID, alarm.id)
@@ -54,22 +67,144 @@ class AlarmScheduler(private val context: Context) {
             putExtra(EXTRA_ALARM_TIME, alarm.time)
             putExtra(EXTRA_ALARM_DIFFICULTY, alarm.difficulty.value)
             putExtra(EXTRA_IS_ANTI_SNOOZE, false)
+            putExtra(EXTRA_TRIGGER_TIME, triggerTime)
+        }
+        
+        val pendingIntent = PendingIntent.getBroadcast(
+            context,
+            requestCode,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+        
+        setExact(triggerTime, pendingIntent)
+        Log.d(TAG, "Scheduled alarm ${alarm.id} for ${formatTime(triggerTime)}")
+    }
+    
+    /**
+     * 找出所有闹钟中最早的一次触发，以及同一时刻到期的全部闹钟
+     *
+     * @param afterMillis 只考虑严格晚于该时间的触发
+     * @param triggerTimes 已预先计算好的触发时间（按闹钟ID），缺失的再现场计算
+     */
+    fun findNextWakeUp(
+        alarms: List<AlarmModel>,
+        afterMillis: Long = System.currentTimeMillis(),
+        triggerTimes: Map<String, Long>? = null
+    ): NextWakeUp? {
+        var earliest = Long.MAX_VALUE
+        val due = ArrayList<AlarmModel>()
+        for (alarm in alarms) {
+            if (!alarm.enabled) continue
+            val triggerTime = triggerTimes?.get(alarm.id)
+                ?: calculateNextTriggerTime(alarm, afterMillis)
+                ?: continue
+            if (triggerTime < earliest) {
+                earliest = triggerTime
+                due.clear()
+                due.add(alarm)
+            } else if (triggerTime == earliest) {
+                due.add(alarm)
+            }
+        }
+        return if (due.isEmpty()) null else NextWakeUp(earliest, due)
+    }
+    
+    /**
+     * 合并调度：为所有闹钟中最早的一次触发注册唯一的系统闹钟
+     * 同一时刻到期的闹钟会一起写入 Intent，由 AlarmReceiver 统一分发
+     *
+     * @param afterMillis 只考虑严格晚于该时间的触发
+     * @return 注册的触发时间，没有可调度的闹钟时返回 null
+     */
+    fun scheduleNextWakeUp(alarms: List<AlarmModel>, afterMillis: Long = System.currentTimeMillis()): Long? {
+        val next = findNextWakeUp(alarms, afterMillis)
+        if (next == null) {
+            cancelNextWakeUp()
+            Log.d(TAG, "No enabled alarms, next wake-up cleared")
+            return null
+        }
+        
+        registerNextWakeUp(next)
+        return next.triggerTime
+    }
+    
+    /**
+     * 向系统注册合并调度的唤醒
+     */
+    fun registerNextWakeUp(next: NextWakeUp) {
+        val due = next.alarms
+        val intent = Intent(context, AlarmReceiver::class.java).apply {
+            action = ACTION_NEXT_WAKEUP
+            putExtra(EXTRA_TRIGGER_TIME, next.triggerTime)
+            putExtra(EXTRA_ALARM_IDS, Array(due.size) { due[it].id })
+            putExtra(EXTRA_ALARM_LABELS, Array(due.size) { due[it].label })
+            putExtra(EXTRA_ALARM_TIMES, Array(due.size) { due[it].time })
+            putExtra(EXTRA_ALARM_DIFFICULTIES, IntArray(due.size) { due[it].difficulty.value })
         }
         
         val pendingIntent = PendingIntent.getBroadcast(
             context,
-            alarm.id.hashCode(),
+            NEXT_WAKEUP_REQUEST_CODE,
             intent,
             PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
         )
         
-        // 使用精确闹钟
+        setExact(next.triggerTime, pendingIntent)
+        Log.d(TAG, "Scheduled next wake-up for ${formatTime(next.triggerTime)} with ${due.size} alarm(s)")
+    }
+    
+    /**
+     * 取消合并调度的唤醒
+     */
+    fun cancelNextWakeUp() {
+        cancelRequest(ACTION_NEXT_WAKEUP, NEXT_WAKEUP_REQUEST_CODE)
+    }
+    
+    /**
+     * 按 action 和请求码取消已注册的闹钟
+     */
+    fun cancelRequest(action: String, requestCode: Int) {
+        val intent = Intent(context, AlarmReceiver::class.java).apply {
+            this.action = action
+        }
+        
+        val pendingIntent = PendingIntent.getBroadcast(
+            context,
+            requestCode,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+        
+        alarmManager.cancel(pendingIntent)
+    }
+    
+    /**
+     * 系统中是否仍持有该 action 和请求码的 PendingIntent
+     * 强行停止或清除数据后系统会丢弃应用的全部 PendingIntent
+     */
+    fun isRegistered(action: String, requestCode: Int): Boolean {
+        val intent = Intent(context, AlarmReceiver::class.java).apply {
+            this.action = action
+        }
+        
+        return PendingIntent.getBroadcast(
+            context,
+            requestCode,
+            intent,
+            PendingIntent.FLAG_NO_CREATE or PendingIntent.FLAG_IMMUTABLE
+        ) != null
+    }
+    
+    /**
+     * 使用精确闹钟，没有权限时降级
+     */
+    private fun setExact(triggerTime: Long, pendingIntent: PendingIntent) {
         try {
             alarmManager.setAlarmClock(
                 AlarmManager.AlarmClockInfo(triggerTime, pendingIntent),
                 pendingIntent
             )
-            Log.d(TAG, "Scheduled alarm ${alarm.id} for ${formatTime(triggerTime)}")
         } catch (e: SecurityException) {
             Log.e(TAG, "Failed to schedule exact alarm: ${e.message}")
             // 降级使用非精确闹钟
@@ -102,6 +237,7 @@ class AlarmScheduler(private val context: Context) {
             putExtra(EXTRA_IS_ANTI_SNOOZE, true)
             putExtra(EXTRA_REMINDER_INDEX, index)
             putExtra(EXTRA_TOTAL_REMINDERS, totalCount)
+            putExtra(EXTRA_TRIGGER_TIME, triggerTime)
         }
         
         val requestCode = "${alarmId}_anti_$index".hashCode()
@@ -127,25 +263,6 @@ class AlarmScheduler(private val context: Context) {
         }
     }
     
-    /**
-     * 取消闹钟
-     */
-    fun cancelAlarm(alarm: AlarmModel) {
-        val intent = Intent(context, AlarmReceiver::class.java).apply {
-            action = ACTION_ALARM_TRIGGER
-        }
-        
-        val pendingIntent = PendingIntent.getBroadcast(
-            context,
-            alarm.id.hashCode(),
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
-        )
-        
-        alarmManager.cancel(pendingIntent)
-        Log.d(TAG, "Cancelled alarm ${alarm.id}")
-    }
-    
     /**
      * 取消防赖床提醒
      */
@@ -170,81 +287,29 @@ class AlarmScheduler(private val context: Context) {
     
     /**
      * 计算下一次触发时间
+     * 基于纪元日和星期掩码计算，不再逐天遍历 Calendar
      */
-    fun calculateNextTriggerTime(alarm: AlarmModel): Long? {
-        val (hour, minute) = alarm.timeComponents ?: return null
-        
-        val now = Calendar.getInstance()
-        val alarmTime = Calendar.getInstance().apply {
-            set(Calendar.HOUR_OF_DAY, hour)
-            set(Calendar.MINUTE, minute)
-            set(Calendar.SECOND, 0)
-            set(Calendar.MILLISECOND, 0)
-        }
-        
-        // 如果今天的时间已过，从明天开始找
-        if (alarmTime.timeInMillis <= now.timeInMillis) {
-            alarmTime.add(Calendar.DAY_OF_MONTH, 1)
+    fun calculateNextTriggerTime(alarm: AlarmModel, nowMillis: Long = System.currentTimeMillis()): Long? {
+        val weekMask = when (alarm.repeatMode) {
+            RepeatMode.ONCE -> null
+            RepeatMode.WORKDAYS -> NextTriggerCalculator.WORKDAYS_MASK
+            RepeatMode.CUSTOM -> alarm.weekMask
         }
         
-        // 根据重复模式找到下一个有效日期
-        when (alarm.repeatMode) {
-            RepeatMode.ONCE -> {
-                // 一次性闹钟，直接返回
-                return alarmTime.timeInMillis
-            }
-            
-            RepeatMode.WORKDAYS -> {
-                // 工作日：周一到周五
-                for (i in 0 until 7) {
-                    val dayOfWeek = alarmTime.get(Calendar.DAY_OF_WEEK)
-                    val isWorkday = dayOfWeek in Calendar.MONDAY..Calendar.FRIDAY
-                    
-                    if (isWorkday) {
-                        // 检查是否跳过节假日
-                        if (alarm.skipHolidays && HolidayChecker.shouldSkipAlarm(alarmTime.time)) {
-                            alarmTime.add(Calendar.DAY_OF_MONTH, 1)
-                            continue
-                        }
-                        return alarmTime.timeInMillis
-                    }
-                    alarmTime.add(Calendar.DAY_OF_MONTH, 1)
-                }
-            }
-            
-            RepeatMode.CUSTOM -> {
-                // 自定义日期
-                if (alarm.customDays.isEmpty()) return null
-                
-                for (i in 0 until 7) {
-                    val dayOfWeek = alarmTime.get(Calendar.DAY_OF_WEEK)
-                    // Calendar: 1=周日, 2=周一, ..., 7=周六
-                    // 我们的格式: 0=周日, 1=周一, ..., 6=周六
-                    val dayIndex = if (dayOfWeek == Calendar.SUNDAY) 0 else dayOfWeek - 1
-                    
-                    if (alarm.customDays.contains(dayIndex)) {
-                        // 检查是否跳过节假日
-                        if (alarm.skipHolidays && HolidayChecker.shouldSkipAlarm(alarmTime.time)) {
-                            alarmTime.add(Calendar.DAY_OF_MONTH, 1)
-                            continue
-                        }
-                        return alarmTime.timeInMillis
-                    }
-                    alarmTime.add(Calendar.DAY_OF_MONTH, 1)
-                }
-            }
-        }
-        
-        return null
+        return NextTriggerCalculator.nextTriggerTime(
+            minuteOfDay = alarm.minuteOfDay,
+            weekMask = weekMask,
+            skipHolidays = alarm.skipHolidays,
+            nowMillis = nowMillis,
+            holidays = HolidayChecker
+        )
     }
     
     /**
-     * 获取倒计时文本
+     * 根据已计算好的触发时间获取倒计时文本
      */
-    fun getCountdownText(alarm: AlarmModel): String? {
-        val triggerTime = calculateNextTriggerTime(alarm) ?: return null
-        val now = System.currentTimeMillis()
-        val diff = triggerTime - now
+    fun getCountdownText(triggerTime: Long, nowMillis: Long = System.currentTimeMillis()): String? {
+        val diff = triggerTime - nowMillis
         
         if (diff <= 0) return null
         
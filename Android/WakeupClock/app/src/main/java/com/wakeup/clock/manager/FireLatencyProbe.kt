@@ -0,0 +1,210 @@
+package com.wakeup.clock.manager
+
+import android.content.Context
+import android.os.SystemClock
+import android.os.Trace
+import android.util.Log
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.FireLatency
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 响铃延迟探针（单例）
+ * 记录计划触发时间 -> 接收器 -> 前台服务 -> 开始出声 -> 锁屏界面第一帧 的延迟，
+ * 打点只在内存中更新，写库在后台线程进行，不阻塞响铃链路
+ */
+class FireLatencyProbe private constructor(context: Context) {
+    
+    companion object {
+        private const val TAG = "FireLatencyProbe"
+        
+        // 保留的响铃记录条数
+        private const val SAMPLES_TO_KEEP = 200
+        
+        // 超过该时间仍未结束的响铃不再等待后续阶段（服务未启动、界面未显示等）
+        private const val IN_FLIGHT_TIMEOUT_MS = 2 * 60 * 1000L
+        
+        // systrace 异步区间名，供 macrobenchmark 的 TraceSectionMetric 使用
+        const val TRACE_ALARM_FIRE = "AlarmFire"
+        const val TRACE_MISSION_START = "MissionStart"
+        
+        @Volatile
+        private var INSTANCE: FireLatencyProbe? = null
+        
+        fun getInstance(context: Context): FireLatencyProbe {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: FireLatencyProbe(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+    }
+    
+    /**
+     * 响铃链路的阶段
+     */
+    enum class Stage {
+        RECEIVER,
+        SERVICE,
+        AUDIO,
+        FIRST_FRAME
+    }
+    
+    /**
+     * 某一阶段的延迟分位数（毫秒）
+     */
+    data class Percentiles(
+        val count: Int,
+        val p50: Long,
+        val p90: Long,
+        val p99: Long,
+        val max: Long
+    )
+    
+    private val fireLatencyDao = AppDatabase.getDatabase(context).fireLatencyDao()
+    
+    // 单线程写库，保证同一次响铃的后一次打点不会被前一次覆盖
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO.limitedParallelism(1))
+    
+    // 进行中的响铃，按响铃ID索引
+    private val inFlight = ConcurrentHashMap<String, FireLatency>()
+    
+    // 尚未结束的 systrace 异步区间
+    private val openTraces = ConcurrentHashMap.newKeySet<String>()
+    
+    /**
+     * 接收器收到广播时调用，返回本次响铃ID，需随 Intent 传给后续阶段
+     */
+    fun markReceived(alarmId: String, isAntiSnooze: Boolean, scheduledTime: Long): String {
+        val now = System.currentTimeMillis()
+        val elapsed = SystemClock.elapsedRealtime()
+        val fireId = UUID.randomUUID().toString()
+        val latency = FireLatency(
+            fireId = fireId,
+            alarmId = alarmId,
+            isAntiSnooze = isAntiSnooze,
+            scheduledTime = scheduledTime,
+            receiverDelayMs = now - scheduledTime,
+            receiverElapsed = elapsed
+        )
+        inFlight[fireId] = latency
+        openTraces.add(fireId)
+        Trace.beginAsyncSection(TRACE_ALARM_FIRE, fireId.hashCode())
+        persist(latency, prune = true)
+        scope.launch {
+            delay(IN_FLIGHT_TIMEOUT_MS)
+            finish(fireId)
+        }
+        return fireId
+    }
+    
+    /**
+     * 记录后续阶段；同一阶段只记录第一次
+     */
+    fun mark(fireId: String?, stage: Stage) {
+        if (fireId == null) return
+        val now = System.currentTimeMillis()
+        val elapsed = SystemClock.elapsedRealtime()
+        
+        var updated: FireLatency? = null
+        inFlight.computeIfPresent(fireId) { _, latency ->
+            val delay = now - latency.scheduledTime
+            val sinceReceiver = elapsed - latency.receiverElapsed
+            val next = when (stage) {
+                Stage.RECEIVER -> latency
+                Stage.SERVICE -> if (latency.serviceDelayMs != null) latency
+                    else latency.copy(serviceDelayMs = delay, serviceElapsedMs = sinceReceiver)
+                Stage.AUDIO -> if (latency.audioDelayMs != null) latency
+                    else latency.copy(audioDelayMs = delay, audioElapsedMs = sinceReceiver)
+                Stage.FIRST_FRAME -> if (latency.frameDelayMs != null) latency
+                    else latency.copy(frameDelayMs = delay, frameElapsedMs = sinceReceiver)
+            }
+            if (next !== latency) updated = next
+            next
+        }
+        
+        if (stage == Stage.FIRST_FRAME && updated != null) {
+            endTrace(fireId)
+        }
+        
+        updated?.let { latency ->
+            if (latency.audioDelayMs != null && latency.frameDelayMs != null) {
+                inFlight.remove(fireId)
+                Log.d(TAG, "Alarm ${latency.alarmId} fired: receiver=${latency.receiverDelayMs}ms, " +
+                    "service=${latency.serviceDelayMs}ms, audio=${latency.audioDelayMs}ms, frame=${latency.frameDelayMs}ms")
+            }
+            persist(latency, prune = false)
+        }
+    }
+    
+    /**
+     * 结束一次响铃：不再等待尚未到达的阶段（提前关闭、防赖床提醒没有新界面等），
+     * 已到达的阶段已经写库；重复调用或响铃已完整结束时无操作
+     */
+    fun finish(fireId: String?) {
+        if (fireId == null) return
+        endTrace(fireId)
+        inFlight.remove(fireId)?.let { latency ->
+            Log.d(TAG, "Alarm ${latency.alarmId} finished before all stages: service=${latency.serviceDelayMs}ms, " +
+                "audio=${latency.audioDelayMs}ms, frame=${latency.frameDelayMs}ms")
+        }
+    }
+    
+    private fun endTrace(fireId: String) {
+        if (openTraces.remove(fireId)) {
+            Trace.endAsyncSection(TRACE_ALARM_FIRE, fireId.hashCode())
+        }
+    }
+    
+    /**
+     * 最近若干次响铃各阶段（相对计划触发时间）的延迟分位数
+     */
+    suspend fun summarize(limit: Int = SAMPLES_TO_KEEP): Map<Stage, Percentiles> {
+        val samples = fireLatencyDao.getRecent(limit)
+        val result = LinkedHashMap<Stage, Percentiles>()
+        percentilesOf(samples.map { it.receiverDelayMs })?.let { result[Stage.RECEIVER] = it }
+        percentilesOf(samples.mapNotNull { it.serviceDelayMs })?.let { result[Stage.SERVICE] = it }
+        percentilesOf(samples.mapNotNull { it.audioDelayMs })?.let { result[Stage.AUDIO] = it }
+        percentilesOf(samples.mapNotNull { it.frameDelayMs })?.let { result[Stage.FIRST_FRAME] = it }
+        return result
+    }
+    
+    /**
+     * 把最近若干次响铃的延迟分位数输出到日志（adb logcat -s FireLatencyProbe）
+     */
+    suspend fun logSummary() {
+        summarize().forEach { (stage, percentiles) ->
+            Log.d(TAG, "$stage: n=${percentiles.count}, p50=${percentiles.p50}ms, p90=${percentiles.p90}ms, " +
+                "p99=${percentiles.p99}ms, max=${percentiles.max}ms")
+        }
+    }
+    
+    private fun percentilesOf(values: List<Long>): Percentiles? {
+        if (values.isEmpty()) return null
+        val sorted = values.sorted()
+        // 最近秩法
+        fun at(p: Int): Long = sorted[((sorted.size * p + 99) / 100 - 1).coerceIn(0, sorted.size - 1)]
+        return Percentiles(
+            count = sorted.size,
+            p50 = at(50),
+            p90 = at(90),
+            p99 = at(99),
+            max = sorted.last()
+        )
+    }
+    
+    private fun persist(latency: FireLatency, prune: Boolean) {
+        scope.launch {
+            try {
+                fireLatencyDao.upsert(latency)
+                if (prune) fireLatencyDao.prune(SAMPLES_TO_KEEP)
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to save fire latency: ${e.message}")
+            }
+        }
+    }
+}
@@ -54,8 +54,9 @@ class SoundManager(private val context: Context) {
     
     /**
      * 播放闹钟声音
+     * @param fireId 响铃ID，用于记录开始出声的延迟
      */
-    fun playAlarmSound(level: VolumeLevel = VolumeLevel.NORMAL) {
+    fun playAlarmSound(level: VolumeLevel = VolumeLevel.NORMAL, fireId: String? = null) {
         stopAlarmSound()
         
         // 随机选择一个声音（避免连续重复）
@@ -87,6 +88,9 @@ class SoundManager(private val context: Context) {
                 
                 start()
             }
+            if (mediaPlayer != null) {
+                FireLatencyProbe.getInstance(context).mark(fireId, FireLatencyProbe.Stage.AUDIO)
+            }
             
             // 设置系统音量为最大
             setSystemVolumeToMax()
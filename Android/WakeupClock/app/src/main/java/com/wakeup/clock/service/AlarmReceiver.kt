@@ -5,9 +5,17 @@ import android.content.Context
 import android.content.Intent
 import android.os.PowerManager
 import android.util.Log
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.RepeatMode
+import com.wakeup.clock.data.repository.AlarmRepository
+import com.wakeup.clock.manager.AlarmReconciler
 import com.wakeup.clock.manager.AlarmScheduler
+import com.wakeup.clock.manager.FireLatencyProbe
 import com.wakeup.clock.ui.screens.AlarmLockdownActivity
 import com.wakeup.clock.ui.screens.AntiSnoozeActivity
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
 
 /**
  * 闹钟广播接收器
@@ -22,84 +30,165 @@ class AlarmReceiver : BroadcastReceiver() {
     override fun onReceive(context: Context, intent: Intent) {
         Log.d(TAG, "Alarm received: ${intent.action}")
         
-        if (intent.action == AlarmScheduler.ACTION_ALARM_TRIGGER) {
-            val alarmId = intent.getStringExtra(AlarmScheduler.EXTRA_ALARM_ID) ?: return
-            val alarmLabel = intent.getStringExtra(AlarmScheduler.EXTRA_ALARM_LABEL) ?: "other"
-            val alarmTime = intent.getStringExtra(AlarmScheduler.EXTRA_ALARM_TIME) ?: ""
-            val alarmDifficulty = intent.getIntExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, 2) // 默认 MEDIUM
-            val isAntiSnooze = intent.getBooleanExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, false)
-            val reminderIndex = intent.getIntExtra(AlarmScheduler.EXTRA_REMINDER_INDEX, 1)
-            val totalReminders = intent.getIntExtra(AlarmScheduler.EXTRA_TOTAL_REMINDERS, 2)
-            
-            Log.d(TAG, "Triggering alarm: id=$alarmId, label=$alarmLabel, difficulty=$alarmDifficulty, isAntiSnooze=$isAntiSnooze")
-            
-            // 获取 WakeLock 确保设备保持唤醒
-            val powerManager = context.getSystemService(Context.POWER_SERVICE) as PowerManager
-            @Suppress("DEPRECATION")
-            val wakeLock = powerManager.newWakeLock(
-                PowerManager.FULL_WAKE_LOCK or 
-                PowerManager.ACQUIRE_CAUSES_WAKEUP or 
-                PowerManager.ON_AFTER_RELEASE,
-                "WakeupClock:AlarmReceiverWakeLock"
-            )
-            wakeLock.acquire(10000) // 持有 10 秒，足够启动 Activity 和 Service
-            
-            // 1. 启动前台服务（处理声音和通知）
-            val serviceIntent = Intent(context, AlarmService::class.java).apply {
-                action = AlarmService.ACTION_START_ALARM
-                putExtra(AlarmScheduler.EXTRA_ALARM_ID, alarmId)
-                putExtra(AlarmScheduler.EXTRA_ALARM_LABEL, alarmLabel)
-                putExtra(AlarmScheduler.EXTRA_ALARM_TIME, alarmTime)
-                putExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, alarmDifficulty)
-                putExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, isAntiSnooze)
+        when (intent.action) {
+            AlarmScheduler.ACTION_ALARM_TRIGGER -> {
+                val alarmId = intent.getStringExtra(AlarmScheduler.EXTRA_ALARM_ID) ?: return
+                val alarmLabel = intent.getStringExtra(AlarmScheduler.EXTRA_ALARM_LABEL) ?: "other"
+                val alarmTime = intent.getStringExtra(AlarmScheduler.EXTRA_ALARM_TIME) ?: ""
+                val alarmDifficulty = intent.getIntExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, 2) // 默认 MEDIUM
+                val isAntiSnooze = intent.getBooleanExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, false)
+                val reminderIndex = intent.getIntExtra(AlarmScheduler.EXTRA_REMINDER_INDEX, 1)
+                val totalReminders = intent.getIntExtra(AlarmScheduler.EXTRA_TOTAL_REMINDERS, 2)
+                val scheduledTime = intent.getLongExtra(AlarmScheduler.EXTRA_TRIGGER_TIME, System.currentTimeMillis())
+                
+                triggerAlarm(context, alarmId, alarmLabel, alarmTime, alarmDifficulty, isAntiSnooze, reminderIndex, totalReminders, scheduledTime)
+                
+                if (!isAntiSnooze) {
+                    rearmAfterFire(context, arrayOf(alarmId), scheduledTime)
+                }
             }
-            context.startForegroundService(serviceIntent)
-            
-            // 2. 根据是否为防赖床提醒，启动不同的 Activity
+            AlarmScheduler.ACTION_NEXT_WAKEUP -> {
+                handleNextWakeUp(context, intent)
+            }
+        }
+    }
+    
+    /**
+     * 处理合并调度的唤醒：分发本次到期的所有闹钟，然后注册下一次唤醒
+     */
+    private fun handleNextWakeUp(context: Context, intent: Intent) {
+        val scheduledTime = intent.getLongExtra(AlarmScheduler.EXTRA_TRIGGER_TIME, System.currentTimeMillis())
+        val alarmIds = intent.getStringArrayExtra(AlarmScheduler.EXTRA_ALARM_IDS) ?: emptyArray()
+        val alarmLabels = intent.getStringArrayExtra(AlarmScheduler.EXTRA_ALARM_LABELS) ?: emptyArray()
+        val alarmTimes = intent.getStringArrayExtra(AlarmScheduler.EXTRA_ALARM_TIMES) ?: emptyArray()
+        val alarmDifficulties = intent.getIntArrayExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTIES) ?: IntArray(0)
+        
+        // 先分发到期闹钟，界面和声音不等待数据库，之后再注册下一次唤醒
+        for (i in alarmIds.indices) {
+            triggerAlarm(
+                context = context,
+                alarmId = alarmIds[i],
+                alarmLabel = alarmLabels.getOrNull(i) ?: "other",
+                alarmTime = alarmTimes.getOrNull(i) ?: "",
+                alarmDifficulty = alarmDifficulties.getOrNull(i) ?: 2,
+                isAntiSnooze = false,
+                reminderIndex = 1,
+                totalReminders = 2,
+                scheduledTime = scheduledTime
+            )
+        }
+        
+        rearmAfterFire(context, alarmIds, scheduledTime)
+    }
+    
+    /**
+     * 闹钟响起后在后台关闭已触发的一次性闹钟，并对账注册下一次触发
+     */
+    private fun rearmAfterFire(context: Context, firedIds: Array<String>, scheduledTime: Long) {
+        val pendingResult = goAsync()
+        CoroutineScope(Dispatchers.IO).launch {
             try {
-                val activityIntent = if (isAntiSnooze) {
-                    // 防赖床提醒 -> 启动确认界面（带超时触发完整闹钟）
-                    Intent(context, AntiSnoozeActivity::class.java).apply {
-                        addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
-                        addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP)
-                        addFlags(Intent.FLAG_ACTIVITY_NO_USER_ACTION)
-                        addFlags(Intent.FLAG_ACTIVITY_REORDER_TO_FRONT)
-                        addFlags(Intent.FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS)
-                        putExtra(AlarmScheduler.EXTRA_ALARM_ID, alarmId)
-                        putExtra(AlarmScheduler.EXTRA_ALARM_LABEL, alarmLabel)
-                        putExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, alarmDifficulty)
-                        putExtra(AntiSnoozeActivity.EXTRA_REMINDER_INDEX, reminderIndex)
-                        putExtra(AntiSnoozeActivity.EXTRA_TOTAL_REMINDERS, totalReminders)
-                    }
-                } else {
-                    // 普通闹钟 -> 启动任务解锁界面
-                    Intent(context, AlarmLockdownActivity::class.java).apply {
-                        addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
-                        addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP)
-                        addFlags(Intent.FLAG_ACTIVITY_NO_USER_ACTION)
-                        addFlags(Intent.FLAG_ACTIVITY_REORDER_TO_FRONT)
-                        addFlags(Intent.FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS)
-                        putExtra(AlarmScheduler.EXTRA_ALARM_ID, alarmId)
-                        putExtra(AlarmScheduler.EXTRA_ALARM_LABEL, alarmLabel)
-                        putExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, alarmDifficulty)
-                        putExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, false)
-                    }
-                }
-                context.startActivity(activityIntent)
-                Log.d(TAG, "Successfully started ${if (isAntiSnooze) "AntiSnoozeActivity" else "AlarmLockdownActivity"} from receiver")
+                val repository = AlarmRepository(AppDatabase.getDatabase(context).alarmDao())
+                val dueIds = firedIds.toSet()
+                val (firedOnce, remaining) = repository.getEnabledAlarmsOnce()
+                    .partition { it.id in dueIds && it.repeatMode == RepeatMode.ONCE }
+                repository.setAlarmsEnabled(firedOnce.map { it.id }, false)
+                
+                AlarmReconciler.getInstance(context).reconcile(remaining, afterMillis = scheduledTime)
             } catch (e: Exception) {
-                Log.e(TAG, "Failed to start activity from receiver: ${e.message}")
-                // 如果失败，Service 中的 Full-Screen Intent 会作为后备
+                Log.e(TAG, "Failed to arm next wake-up: ${e.message}")
+            } finally {
+                pendingResult.finish()
             }
-            
-            // 释放 WakeLock（如果还持有的话）
-            try {
-                if (wakeLock.isHeld) {
-                    wakeLock.release()
+        }
+    }
+    
+    /**
+     * 触发单个闹钟：启动前台服务和闹钟界面
+     */
+    private fun triggerAlarm(
+        context: Context,
+        alarmId: String,
+        alarmLabel: String,
+        alarmTime: String,
+        alarmDifficulty: Int,
+        isAntiSnooze: Boolean,
+        reminderIndex: Int,
+        totalReminders: Int,
+        scheduledTime: Long
+    ) {
+        Log.d(TAG, "Triggering alarm: id=$alarmId, label=$alarmLabel, difficulty=$alarmDifficulty, isAntiSnooze=$isAntiSnooze")
+        
+        val fireId = FireLatencyProbe.getInstance(context).markReceived(alarmId, isAntiSnooze, scheduledTime)
+        
+        // 获取 WakeLock 确保设备保持唤醒
+        val powerManager = context.getSystemService(Context.POWER_SERVICE) as PowerManager
+        @Suppress("DEPRECATION")
+        val wakeLock = powerManager.newWakeLock(
+            PowerManager.FULL_WAKE_LOCK or
+            PowerManager.ACQUIRE_CAUSES_WAKEUP or
+            PowerManager.ON_AFTER_RELEASE,
+            "WakeupClock:AlarmReceiverWakeLock"
+        )
+        wakeLock.acquire(10000) // 持有 10 秒，足够启动 Activity 和 Service
+        
+        // 1. 启动前台服务（处理声音和通知）
+        val serviceIntent = Intent(context, AlarmService::class.java).apply {
+            action = AlarmService.ACTION_START_ALARM
+            putExtra(AlarmScheduler.EXTRA_ALARM_ID, alarmId)
+            putExtra(AlarmScheduler.EXTRA_ALARM_LABEL, alarmLabel)
+            putExtra(AlarmScheduler.EXTRA_ALARM_TIME, alarmTime)
+            putExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, alarmDifficulty)
+            putExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, isAntiSnooze)
+            putExtra(AlarmScheduler.EXTRA_FIRE_ID, fireId)
+        }
+        context.startForegroundService(serviceIntent)
+        
+        // 2. 根据是否为防赖床提醒，启动不同的 Activity
+        try {
+            val activityIntent = if (isAntiSnooze) {
+                // 防赖床提醒 -> 启动确认界面（带超时触发完整闹钟）
+                Intent(context, AntiSnoozeActivity::class.java).apply {
+                    addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                    addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP)
+                    addFlags(Intent.FLAG_ACTIVITY_NO_USER_ACTION)
+                    addFlags(Intent.FLAG_ACTIVITY_REORDER_TO_FRONT)
+                    addFlags(Intent.FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS)
+                    putExtra(AlarmScheduler.EXTRA_ALARM_ID, alarmId)
+                    putExtra(AlarmScheduler.EXTRA_ALARM_LABEL, alarmLabel)
+                    putExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, alarmDifficulty)
+                    putExtra(AntiSnoozeActivity.EXTRA_REMINDER_INDEX, reminderIndex)
+                    putExtra(AntiSnoozeActivity.EXTRA_TOTAL_REMINDERS, totalReminders)
                 }
-            } catch (e: Exception) {
-                Log.e(TAG, "Error releasing wake lock: ${e.message}")
+            } else {
+                // 普通闹钟 -> 启动任务解锁界面
+                Intent(context, AlarmLockdownActivity::class.java).apply {
+                    addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                    addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP)
+                    addFlags(Intent.FLAG_ACTIVITY_NO_USER_ACTION)
+                    addFlags(Intent.FLAG_ACTIVITY_REORDER_TO_FRONT)
+                    addFlags(Intent.FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS)
+                    putExtra(AlarmScheduler.EXTRA_ALARM_ID, alarmId)
+                    putExtra(AlarmScheduler.EXTRA_ALARM_LABEL, alarmLabel)
+                    putExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, alarmDifficulty)
+                    putExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, false)
+                    putExtra(AlarmScheduler.EXTRA_FIRE_ID, fireId)
+                }
+            }
+            context.startActivity(activityIntent)
+            Log.d(TAG, "Successfully started ${if (isAntiSnooze) "AntiSnoozeActivity" else "AlarmLockdownActivity"} from receiver")
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to start activity from receiver: ${e.message}")
+            // 如果失败，Service 中的 Full-Screen Intent 会作为后备
+        }
+        
+        // 释放 WakeLock（如果还持有的话）
+        try {
+            if (wakeLock.isHeld) {
+                wakeLock.release()
             }
+        } catch (e: Exception) {
+            Log.e(TAG, "Error releasing wake lock: ${e.message}")
         }
     }
 }
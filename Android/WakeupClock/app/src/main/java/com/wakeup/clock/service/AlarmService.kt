@@ -14,6 +14,7 @@ import android.util.Log
 import androidx.core.app.NotificationCompat
 import com.wakeup.clock.R
 import com.wakeup.clock.manager.AlarmScheduler
+import com.wakeup.clock.manager.FireLatencyProbe
 import com.wakeup.clock.manager.SoundManager
 import com.wakeup.clock.manager.VolumeLevel
 import com.wakeup.clock.ui.screens.AlarmLockdownActivity
@@ -47,6 +48,9 @@ class AlarmService : Service() {
     private var currentAlarmLabel: String? = null
     private var currentAlarmDifficulty: Int = 2
     
+    // 当前响铃的ID，停止响铃时结束延迟记录
+    private var currentFireId: String? = null
+    
     override fun onCreate() {
         super.onCreate()
         createNotificationChannel()
@@ -61,8 +65,9 @@ class AlarmService : Service() {
                 val alarmTime = intent.getStringExtra(AlarmScheduler.EXTRA_ALARM_TIME) ?: ""
                 val alarmDifficulty = intent.getIntExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, 2) // 默认 MEDIUM
                 val isAntiSnooze = intent.getBooleanExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, false)
+                val fireId = intent.getStringExtra(AlarmScheduler.EXTRA_FIRE_ID)
                 
-                startAlarm(alarmId, alarmLabel, alarmTime, alarmDifficulty, isAntiSnooze)
+                startAlarm(alarmId, alarmLabel, alarmTime, alarmDifficulty, isAntiSnooze, fireId)
             }
             ACTION_STOP_ALARM -> {
                 stopAlarm()
@@ -84,8 +89,13 @@ class AlarmService : Service() {
     /**
      * 启动闹钟
      */
-    private fun startAlarm(alarmId: String, alarmLabel: String, alarmTime: String, alarmDifficulty: Int, isAntiSnooze: Boolean) {
+    private fun startAlarm(alarmId: String, alarmLabel: String, alarmTime: String, alarmDifficulty: Int, isAntiSnooze: Boolean, fireId: String?) {
         Log.d(TAG, "Starting alarm: id=$alarmId, label=$alarmLabel, difficulty=$alarmDifficulty")
+        val probe = FireLatencyProbe.getInstance(this)
+        probe.mark(fireId, FireLatencyProbe.Stage.SERVICE)
+        // 上一次响铃尚未停止就被新的响铃替换
+        if (currentFireId != fireId) probe.finish(currentFireId)
+        currentFireId = fireId
         
         currentAlarmId = alarmId
         currentAlarmLabel = alarmLabel
@@ -95,14 +105,14 @@ class AlarmService : Service() {
         acquireWakeLock()
         
         // 创建通知（包含 Full-Screen Intent 作为后备方案）
-        val notification = createNotification(alarmId, alarmLabel, alarmDifficulty, isAntiSnooze)
+        val notification = createNotification(alarmId, alarmLabel, alarmDifficulty, isAntiSnooze, fireId)
         
         // 启动前台服务
         startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_SHORT_SERVICE)
         
         // 播放闹钟声音
         currentVolumeLevel = VolumeLevel.NORMAL
-        soundManager?.playAlarmSound(currentVolumeLevel)
+        soundManager?.playAlarmSound(currentVolumeLevel, fireId)
         
         // 启动音量递增定时器
         startVolumeUpgradeTimer()
@@ -131,6 +141,9 @@ class AlarmService : Service() {
         stopForeground(STOP_FOREGROUND_REMOVE)
         stopSelf()
         
+        FireLatencyProbe.getInstance(this).finish(currentFireId)
+        currentFireId = null
+        
         currentAlarmId = null
         currentAlarmLabel = null
     }
@@ -189,7 +202,7 @@ class AlarmService : Service() {
     /**
      * 创建通知（使用 Full-Screen Intent 作为后备方案）
      */
-    private fun createNotification(alarmId: String, label: String, difficulty: Int, isAntiSnooze: Boolean): Notification {
+    private fun createNotification(alarmId: String, label: String, difficulty: Int, isAntiSnooze: Boolean, fireId: String?): Notification {
         // 创建启动 AlarmLockdownActivity 的 Intent
         val intent = Intent(this, AlarmLockdownActivity::class.java).apply {
             addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
@@ -199,6 +212,7 @@ class AlarmService : Service() {
             putExtra(AlarmScheduler.EXTRA_ALARM_LABEL, label)
             putExtra(AlarmScheduler.EXTRA_ALARM_DIFFICULTY, difficulty)
             putExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, isAntiSnooze)
+            putExtra(AlarmScheduler.EXTRA_FIRE_ID, fireId)
         }
         
         // 点击通知的 PendingIntent
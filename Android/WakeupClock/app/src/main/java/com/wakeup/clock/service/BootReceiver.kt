@@ -3,47 +3,157 @@ package com.wakeup.clock.service
 import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
+import android.os.SystemClock
 import android.util.Log
 import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.BootMetrics
 import com.wakeup.clock.data.repository.AlarmRepository
+import com.wakeup.clock.manager.AlarmReconciler
 import com.wakeup.clock.manager.AlarmScheduler
+import com.wakeup.clock.util.HolidayChecker
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+import kotlin.math.abs
 
 /**
  * 开机广播接收器
  * 设备重启后重新调度所有启用的闹钟
+ *
+ * 使用 goAsync() 保证进程在调度完成前不会被回收，整个流程有截止时间：
+ * 一次批量读取 -> 并行计算触发时间 -> 注册，并记录各阶段耗时
  */
 class BootReceiver : BroadcastReceiver() {
     
     companion object {
         private const val TAG = "BootReceiver"
+        private const val ACTION_QUICKBOOT_POWERON = "android.intent.action.QUICKBOOT_POWERON"
+        
+        // 广播接收器约有 10 秒的执行时间，预留余量
+        private const val RESCHEDULE_DEADLINE_MS = 8_000L
+        
+        // 同一次开机的多个广播，开机时间误差在此范围内视为同一次
+        private const val SAME_BOOT_TOLERANCE_MS = 60_000L
+        
+        // 并行计算时每个任务处理的闹钟数量
+        private const val COMPUTE_CHUNK_SIZE = 32
+        
+        // 保留的耗时记录条数
+        private const val METRICS_TO_KEEP = 50
     }
     
     override fun onReceive(context: Context, intent: Intent) {
-        if (intent.action == Intent.ACTION_BOOT_COMPLETED ||
-            intent.action == "android.intent.action.QUICKBOOT_POWERON") {
+        if (intent.action != Intent.ACTION_BOOT_COMPLETED &&
+            intent.action != ACTION_QUICKBOOT_POWERON) {
+            return
+        }
+        
+        val receivedAt = SystemClock.elapsedRealtime()
+        Log.d(TAG, "Device booted (${intent.action}), rescheduling alarms")
+        
+        val pendingResult = goAsync()
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                rescheduleAfterBoot(context.applicationContext, receivedAt)
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to reschedule alarms: ${e.message}")
+            } finally {
+                pendingResult.finish()
+            }
+        }
+    }
+    
+    /**
+     * 开机后重新调度，并持久化各阶段耗时
+     */
+    private suspend fun rescheduleAfterBoot(context: Context, receivedAt: Long) {
+        val database = AppDatabase.getDatabase(context)
+        val metricsDao = database.bootMetricsDao()
+        
+        // 部分设备会同时发送 BOOT_COMPLETED 和 QUICKBOOT_POWERON，同一次开机只处理一次
+        val bootTime = System.currentTimeMillis() - SystemClock.elapsedRealtime()
+        val latest = metricsDao.getLatest()
+        if (latest != null && !latest.timedOut && abs(latest.bootTime - bootTime) < SAME_BOOT_TOLERANCE_MS) {
+            Log.d(TAG, "Alarms already rescheduled for this boot, skipping")
+            return
+        }
+        
+        var dbReadMs = 0L
+        var computeMs = 0L
+        var registerMs = 0L
+        var alarmCount = 0
+        var systemCalls = 0
+        
+        val completed = withTimeoutOrNull(RESCHEDULE_DEADLINE_MS) {
+            // 1. 一次批量读取所有启用的闹钟，并从本地载入节假日数据（不依赖网络）
+            var stageStart = SystemClock.elapsedRealtime()
+            val enabledAlarms = AlarmRepository(database.alarmDao()).getEnabledAlarmsOnce()
+            HolidayChecker.ensureLoaded(context)
+            alarmCount = enabledAlarms.size
+            dbReadMs = SystemClock.elapsedRealtime() - stageStart
             
-            Log.d(TAG, "Device booted, rescheduling alarms")
+            // 2. 并行计算下一次触发时间
+            stageStart = SystemClock.elapsedRealtime()
+            val now = System.currentTimeMillis()
+            val triggerTimes = computeTriggerTimes(AlarmScheduler(context), enabledAlarms, now)
+            computeMs = SystemClock.elapsedRealtime() - stageStart
             
-            // 在后台重新调度所有闹钟
-            CoroutineScope(Dispatchers.IO).launch {
-                try {
-                    val database = AppDatabase.getDatabase(context)
-                    val repository = AlarmRepository(database.alarmDao())
-                    val scheduler = AlarmScheduler(context)
-                    
-                    val enabledAlarms = repository.getEnabledAlarmsOnce()
-                    enabledAlarms.forEach { alarm ->
-                        scheduler.scheduleAlarm(alarm)
+            // 3. 注册：重启后旧注册全部失效，对账时逐条确认后重新注册；
+            // 应用启动时的对账可能已先完成，此时这里没有系统调用
+            stageStart = SystemClock.elapsedRealtime()
+            systemCalls = AlarmReconciler.getInstance(context)
+                .reconcile(enabledAlarms, now, triggerTimes)
+            registerMs = SystemClock.elapsedRealtime() - stageStart
+            true
+        } ?: false
+        
+        val armedAt = SystemClock.elapsedRealtime()
+        metricsDao.insert(
+            BootMetrics(
+                bootTime = bootTime,
+                receivedAtElapsed = receivedAt,
+                armedAtElapsed = armedAt,
+                dbReadMs = dbReadMs,
+                computeMs = computeMs,
+                registerMs = registerMs,
+                alarmCount = alarmCount,
+                systemCalls = systemCalls,
+                timedOut = !completed
+            )
+        )
+        metricsDao.prune(METRICS_TO_KEEP)
+        
+        if (completed) {
+            Log.d(TAG, "Rescheduled $alarmCount alarms in ${armedAt - receivedAt}ms " +
+                "(read=${dbReadMs}ms, compute=${computeMs}ms, register=${registerMs}ms), armed ${armedAt}ms after boot")
+        } else {
+            Log.e(TAG, "Rescheduling timed out after ${RESCHEDULE_DEADLINE_MS}ms")
+        }
+    }
+    
+    /**
+     * 分块并行计算触发时间
+     */
+    private suspend fun computeTriggerTimes(
+        scheduler: AlarmScheduler,
+        alarms: List<AlarmModel>,
+        nowMillis: Long
+    ): Map<String, Long> = coroutineScope {
+        alarms.chunked(COMPUTE_CHUNK_SIZE)
+            .map { chunk ->
+                async(Dispatchers.Default) {
+                    chunk.mapNotNull { alarm ->
+                        scheduler.calculateNextTriggerTime(alarm, nowMillis)?.let { alarm.id to it }
                     }
-                    
-                    Log.d(TAG, "Rescheduled ${enabledAlarms.size} alarms")
-                } catch (e: Exception) {
-                    Log.e(TAG, "Failed to reschedule alarms: ${e.message}")
                 }
             }
-        }
+            .awaitAll()
+            .flatten()
+            .toMap()
     }
 }
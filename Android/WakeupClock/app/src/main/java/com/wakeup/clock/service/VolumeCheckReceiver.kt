@@ -4,8 +4,7 @@ import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
 import android.util.Log
-import com.wakeup.clock.data.database.AppDatabase
-import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.settings.SettingsStore
 import com.wakeup.clock.manager.VolumeCheckManager
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -27,11 +26,10 @@ class VolumeCheckReceiver : BroadcastReceiver() {
         val scope = CoroutineScope(Dispatchers.IO)
         scope.launch {
             try {
-                // 从数据库获取设置
-                val database = AppDatabase.getDatabase(context)
-                val settings = database.appSettingsDao().getSettingsOnce()
+                // 设置来自内存快照，不打开数据库
+                val settings = SettingsStore.getInstance(context).get()
                 
-                if (settings == null || !settings.enableVolumeReminder) {
+                if (!settings.enableVolumeReminder) {
                     Log.d(TAG, "音量提醒未启用，跳过检查")
                     return@launch
                 }
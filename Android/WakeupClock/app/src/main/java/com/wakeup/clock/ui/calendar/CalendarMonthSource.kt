@@ -0,0 +1,47 @@
+package com.wakeup.clock.ui.calendar
+
+import com.wakeup.clock.data.repository.WakeUpRecordRepository
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.onStart
+import java.time.LocalDate
+import java.time.YearMonth
+
+/**
+ * 日历按月分页的数据源
+ *
+ * 每个月一个冷 Flow，只查询该月的记录；页面离开组合时停止收集，数据库监听随之取消。
+ * 最近构建的几个月保存在 LRU 缓存中，翻回时先显示缓存再等待查询结果
+ */
+class CalendarMonthSource(
+    private val repository: WakeUpRecordRepository,
+    private val cacheSize: Int = DEFAULT_CACHE_SIZE
+) {
+    
+    companion object {
+        private const val DEFAULT_CACHE_SIZE = 6
+    }
+    
+    private val cache = object : LinkedHashMap<YearMonth, MonthModel>(cacheSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<YearMonth, MonthModel>?): Boolean =
+            size > cacheSize
+    }
+    
+    /**
+     * 某月的数据，记录变化时重新构建
+     */
+    fun month(yearMonth: YearMonth): Flow<MonthModel> =
+        repository.getRecordsByMonth(yearMonth)
+            .map { records -> MonthModel.build(yearMonth, records, LocalDate.now().toEpochDay()) }
+            .onStart { cached(yearMonth)?.let { emit(it) } }
+            .onEach { model -> synchronized(cache) { cache[yearMonth] = model } }
+            .flowOn(Dispatchers.Default)
+    
+    /**
+     * 缓存中的月份数据
+     */
+    fun cached(yearMonth: YearMonth): MonthModel? = synchronized(cache) { cache[yearMonth] }
+}
@@ -0,0 +1,162 @@
+package com.wakeup.clock.ui.calendar
+
+import androidx.compose.foundation.Canvas
+import androidx.compose.foundation.layout.BoxWithConstraints
+import androidx.compose.foundation.layout.fillMaxWidth
+import androidx.compose.foundation.layout.height
+import androidx.compose.material.icons.Icons
+import androidx.compose.material.icons.filled.*
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.remember
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.geometry.CornerRadius
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.geometry.Size
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.graphics.ColorFilter
+import androidx.compose.ui.graphics.drawscope.translate
+import androidx.compose.ui.graphics.vector.ImageVector
+import androidx.compose.ui.graphics.vector.rememberVectorPainter
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.semantics.contentDescription
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.text.TextStyle
+import androidx.compose.ui.text.drawText
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.text.rememberTextMeasurer
+import androidx.compose.ui.unit.dp
+import androidx.compose.ui.unit.sp
+import com.wakeup.clock.R
+import com.wakeup.clock.ui.theme.Green
+import com.wakeup.clock.ui.theme.Orange
+import com.wakeup.clock.ui.theme.Purple500
+import com.wakeup.clock.ui.theme.Red
+
+/**
+ * 月份日历网格，整月在一个 Canvas 中绘制
+ * 日期数字的排版只在首次组合时测量一次
+ */
+@Composable
+fun MonthGridCanvas(
+    model: MonthModel,
+    isDark: Boolean,
+    modifier: Modifier = Modifier
+) {
+    val textMeasurer = rememberTextMeasurer()
+    val normalLayouts = remember(textMeasurer) {
+        Array(31) { textMeasurer.measure((it + 1).toString(), TextStyle(fontSize = 14.sp)) }
+    }
+    val boldLayouts = remember(textMeasurer) {
+        Array(31) {
+            textMeasurer.measure((it + 1).toString(), TextStyle(fontSize = 14.sp, fontWeight = FontWeight.Bold))
+        }
+    }
+    val painters = MonthModel.CATEGORY_LABELS.map { rememberVectorPainter(categoryIcon(it)) }
+    val tints = remember { MonthModel.CATEGORY_LABELS.map { ColorFilter.tint(categoryColor(it)) } }
+    
+    val textColor = if (isDark) Color.White else Color.Black
+    val recordColor = if (isDark) Green.copy(alpha = 0.2f) else Green.copy(alpha = 0.1f)
+    // 整月是一个 Canvas，读屏时按整月描述
+    val description = stringResource(
+        R.string.calendar_month_description,
+        model.yearMonth.year,
+        model.yearMonth.monthValue,
+        model.recordDays
+    )
+    
+    BoxWithConstraints(modifier = modifier.fillMaxWidth()) {
+        val gap = 4.dp
+        val cellDp = (maxWidth - gap * 6) / 7
+        
+        Canvas(
+            modifier = Modifier
+                .fillMaxWidth()
+                .height(cellDp * model.rows + gap * (model.rows - 1))
+                .semantics { contentDescription = description }
+        ) {
+            val gapPx = gap.toPx()
+            val cell = (size.width - gapPx * 6) / 7
+            val radius = CornerRadius(8.dp.toPx())
+            val iconPx = 12.dp.toPx()
+            val dotPx = 6.dp.toPx()
+            
+            for (index in model.cells.indices) {
+                val slot = model.leadingBlanks + index
+                val left = (slot % 7) * (cell + gapPx)
+                val top = (slot / 7) * (cell + gapPx)
+                val value = model.cells[index]
+                val isToday = index == model.todayIndex
+                
+                val background = when {
+                    isToday -> Purple500
+                    value != MonthModel.NO_RECORD -> recordColor
+                    else -> Color.Transparent
+                }
+                if (background != Color.Transparent) {
+                    drawRoundRect(
+                        color = background,
+                        topLeft = Offset(left, top),
+                        size = Size(cell, cell),
+                        cornerRadius = radius
+                    )
+                }
+                
+                // 数字和图标作为一组垂直居中
+                val layout = if (isToday) boldLayouts[index] else normalLayouts[index]
+                val markHeight = when (value) {
+                    MonthModel.NO_RECORD -> 0f
+                    MonthModel.UNLABELED -> dotPx
+                    else -> iconPx
+                }
+                val contentTop = top + (cell - layout.size.height - markHeight) / 2
+                drawText(
+                    textLayoutResult = layout,
+                    color = if (isToday) Color.White else textColor,
+                    topLeft = Offset(left + (cell - layout.size.width) / 2, contentTop)
+                )
+                
+                val markTop = contentTop + layout.size.height
+                when (value) {
+                    MonthModel.NO_RECORD -> Unit
+                    MonthModel.UNLABELED -> drawCircle(
+                        color = Green,
+                        radius = dotPx / 2,
+                        center = Offset(left + cell / 2, markTop + dotPx / 2)
+                    )
+                    else -> {
+                        val category = value - MonthModel.FIRST_CATEGORY
+                        translate(left + (cell - iconPx) / 2, markTop) {
+                            with(painters[category]) {
+                                draw(Size(iconPx, iconPx), colorFilter = tints[category])
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
+
+internal fun categoryIcon(label: String): ImageVector = when (label) {
+    "work" -> Icons.Default.Work
+    "date" -> Icons.Default.Favorite
+    "flight" -> Icons.Default.Flight
+    "train" -> Icons.Default.Train
+    "meeting" -> Icons.Default.Groups
+    "doctor" -> Icons.Default.MedicalServices
+    "interview" -> Icons.Default.PersonAdd
+    "exam" -> Icons.Default.School
+    else -> Icons.Default.Alarm
+}
+
+internal fun categoryColor(label: String): Color = when (label) {
+    "work" -> Color.Blue
+    "date" -> Color(0xFFE91E63) // Pink
+    "flight" -> Color.Cyan
+    "train" -> Orange
+    "meeting" -> Purple500
+    "doctor" -> Red
+    "interview" -> Green
+    "exam" -> Color.Yellow
+    else -> Color.Gray
+}
@@ -0,0 +1,77 @@
+package com.wakeup.clock.ui.calendar
+
+import androidx.compose.runtime.Immutable
+import com.wakeup.clock.core.NextTriggerCalculator
+import com.wakeup.clock.data.model.WakeUpRecord
+import java.time.YearMonth
+
+/**
+ * 预先计算好的月份数据，日历网格绘制时只做数组读取
+ *
+ * cells[i] 对应纪元日 firstEpochDay + i：
+ * NO_RECORD 表示没有打卡，UNLABELED 表示有打卡但没有类型，
+ * 其余为 FIRST_CATEGORY + CATEGORY_LABELS 中的下标
+ */
+@Immutable
+class MonthModel(
+    val yearMonth: YearMonth,
+    val firstEpochDay: Long,
+    val cells: IntArray,
+    val todayIndex: Int
+) {
+    /** 1 日是星期几 (0=周日)，即第一行前面的空格数 */
+    val leadingBlanks: Int = NextTriggerCalculator.dayOfWeekIndex(firstEpochDay)
+    
+    /** 行数 */
+    val rows: Int = (leadingBlanks + cells.size + 6) / 7
+    
+    /** 有打卡的天数 */
+    val recordDays: Int = cells.count { it != NO_RECORD }
+    
+    /**
+     * 某天的单元格内容，不在本月返回 NO_RECORD
+     */
+    fun cellOf(epochDay: Long): Int {
+        val index = epochDay - firstEpochDay
+        return if (index in cells.indices) cells[index.toInt()] else NO_RECORD
+    }
+    
+    companion object {
+        const val NO_RECORD = 0
+        const val UNLABELED = 1
+        const val FIRST_CATEGORY = 2
+        
+        /** 有图标的闹钟类型，其他类型使用最后一项 */
+        val CATEGORY_LABELS = arrayOf("work", "date", "flight", "train", "meeting", "doctor", "interview", "exam", "other")
+        
+        private val OTHER_CATEGORY = CATEGORY_LABELS.lastIndex
+        
+        /**
+         * 构建月份数据，可在后台线程调用
+         *
+         * @param records 按日期和打卡时间排序的记录，不属于该月的会被忽略；同一天有多条时取最后打卡的一条
+         */
+        fun build(yearMonth: YearMonth, records: List<WakeUpRecord>, todayEpochDay: Long): MonthModel {
+            val firstEpochDay = yearMonth.atDay(1).toEpochDay()
+            val cells = IntArray(yearMonth.lengthOfMonth())
+            for (record in records) {
+                val index = record.epochDay - firstEpochDay
+                if (index !in cells.indices) continue
+                cells[index.toInt()] = cellValue(record.alarmLabel)
+            }
+            val today = todayEpochDay - firstEpochDay
+            return MonthModel(
+                yearMonth = yearMonth,
+                firstEpochDay = firstEpochDay,
+                cells = cells,
+                todayIndex = if (today in cells.indices) today.toInt() else -1
+            )
+        }
+        
+        private fun cellValue(label: String?): Int {
+            if (label == null) return UNLABELED
+            val category = CATEGORY_LABELS.indexOf(label)
+            return FIRST_CATEGORY + if (category >= 0) category else OTHER_CATEGORY
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.wakeup.clock.ui.calendar
+
+import androidx.compose.foundation.Canvas
+import androidx.compose.foundation.layout.aspectRatio
+import androidx.compose.foundation.layout.fillMaxWidth
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.Immutable
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.geometry.CornerRadius
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.geometry.Size
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.graphics.drawscope.Stroke
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.semantics.contentDescription
+import androidx.compose.ui.semantics.semantics
+import com.wakeup.clock.R
+import com.wakeup.clock.core.NextTriggerCalculator
+import com.wakeup.clock.data.model.DayCount
+import com.wakeup.clock.ui.theme.Green
+import com.wakeup.clock.ui.theme.Purple500
+import java.time.LocalDate
+import java.time.Year
+
+/**
+ * 一年的打卡热力图数据
+ * counts[i] 为当年第 i 天（从 0 开始）的打卡次数
+ */
+@Immutable
+class YearHeatmap(
+    val year: Int,
+    val firstEpochDay: Long,
+    val counts: IntArray,
+    val maxCount: Int
+) {
+    /** 1 月 1 日是星期几 (0=周日) */
+    val firstWeekday: Int = NextTriggerCalculator.dayOfWeekIndex(firstEpochDay)
+    
+    /** 周数（列数） */
+    val weeks: Int = (firstWeekday + counts.size + 6) / 7
+    
+    /** 有打卡的天数 */
+    val activeDays: Int = counts.count { it > 0 }
+    
+    companion object {
+        /**
+         * 由按日聚合的查询结果构建，只遍历一次
+         */
+        fun build(year: Int, dayCounts: List<DayCount>): YearHeatmap {
+            val firstEpochDay = LocalDate.of(year, 1, 1).toEpochDay()
+            val counts = IntArray(Year.of(year).length())
+            var maxCount = 0
+            for (dayCount in dayCounts) {
+                val index = (dayCount.epochDay - firstEpochDay).toInt()
+                if (index !in counts.indices) continue
+                counts[index] = dayCount.count
+                if (dayCount.count > maxCount) maxCount = dayCount.count
+            }
+            return YearHeatmap(year, firstEpochDay, counts, maxCount)
+        }
+    }
+}
+
+/**
+ * 年度打卡热力图：一列一周，一行一个星期几，整张图在一个 Canvas 中绘制
+ */
+@Composable
+fun YearHeatmapCanvas(
+    heatmap: YearHeatmap,
+    todayEpochDay: Long,
+    isDark: Boolean,
+    modifier: Modifier = Modifier
+) {
+    val emptyColor = if (isDark) Color.White.copy(alpha = 0.08f) else Color.Black.copy(alpha = 0.06f)
+    // 整张图是一个 Canvas，读屏时按整年描述
+    val description = stringResource(R.string.heatmap_year_description, heatmap.year, heatmap.activeDays)
+    
+    Canvas(
+        modifier = modifier
+            .fillMaxWidth()
+            .aspectRatio(heatmap.weeks / 7f)
+            .semantics { contentDescription = description }
+    ) {
+        val pitch = size.width / heatmap.weeks
+        val gap = pitch * 0.15f
+        val cell = Size(pitch - gap, pitch - gap)
+        val radius = CornerRadius(cell.width * 0.2f)
+        
+        for (index in heatmap.counts.indices) {
+            val slot = heatmap.firstWeekday + index
+            val topLeft = Offset((slot / 7) * pitch, (slot % 7) * pitch)
+            val count = heatmap.counts[index]
+            val color = if (count == 0) {
+                emptyColor
+            } else {
+                // 按当年最大值分 4 档深浅
+                val level = (count * 4 + heatmap.maxCount - 1) / heatmap.maxCount
+                Green.copy(alpha = 0.25f + 0.75f * level / 4f)
+            }
+            drawRoundRect(color = color, topLeft = topLeft, size = cell, cornerRadius = radius)
+            
+            if (heatmap.firstEpochDay + index == todayEpochDay) {
+                drawRoundRect(
+                    color = Purple500,
+                    topLeft = topLeft,
+                    size = cell,
+                    cornerRadius = radius,
+                    style = Stroke(width = gap)
+                )
+            }
+        }
+    }
+}
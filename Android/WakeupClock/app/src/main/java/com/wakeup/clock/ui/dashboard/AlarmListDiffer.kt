@@ -0,0 +1,58 @@
+package com.wakeup.clock.ui.dashboard
+
+import com.wakeup.clock.data.model.AlarmModel
+
+/**
+ * 闹钟列表差分器
+ *
+ * alarms 表任意一行变化后 Room 都会重新返回完整列表。这里按 ID 与上一次的结果比较：
+ * 内容未变的闹钟沿用上一次的行模型，只为新增、变化或触发时间已过的闹钟重新计算下次触发时间。
+ * 不是线程安全的，由同一个 Flow 顺序调用
+ *
+ * @param nextTriggerTime 计算闹钟在某个时间之后的下次触发时间
+ */
+class AlarmListDiffer(
+    private val nextTriggerTime: (AlarmModel, Long) -> Long?
+) {
+    
+    private var previous: Map<String, AlarmRowModel> = emptyMap()
+    
+    private var previousCalendarKey: Any? = null
+    
+    /**
+     * 新的行列表，顺序与查询结果一致
+     *
+     * @param calendarKey 触发时间依赖的外部状态（时钟、时区、节假日数据）的版本，
+     *   与上一次不同时重新计算所有启用闹钟的触发时间；结果未变的行仍沿用原实例
+     */
+    fun diff(
+        alarms: List<AlarmModel>,
+        nowMillis: Long = System.currentTimeMillis(),
+        calendarKey: Any? = null
+    ): List<AlarmRowModel> {
+        val recomputeAll = calendarKey != previousCalendarKey
+        val rows = ArrayList<AlarmRowModel>(alarms.size)
+        val current = HashMap<String, AlarmRowModel>(alarms.size * 2)
+        
+        for (alarm in alarms) {
+            val old = previous[alarm.id]
+            val row = when {
+                old == null || old.alarm != alarm || old.isStale(nowMillis) -> build(alarm, nowMillis)
+                recomputeAll && alarm.enabled -> build(alarm, nowMillis).takeIf { it != old } ?: old
+                else -> old
+            }
+            rows.add(row)
+            current[alarm.id] = row
+        }
+        
+        previous = current
+        previousCalendarKey = calendarKey
+        return rows
+    }
+    
+    private fun build(alarm: AlarmModel, nowMillis: Long): AlarmRowModel = AlarmRowModel(
+        alarm = alarm,
+        // 停用的闹钟不参与最近闹钟的比较，不计算触发时间
+        nextTriggerTime = if (alarm.enabled) nextTriggerTime(alarm, nowMillis) else null
+    )
+}
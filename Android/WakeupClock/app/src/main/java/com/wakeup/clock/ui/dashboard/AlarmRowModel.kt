@@ -0,0 +1,27 @@
+package com.wakeup.clock.ui.dashboard
+
+import androidx.compose.runtime.Immutable
+import com.wakeup.clock.data.model.AlarmModel
+
+/**
+ * 首页闹钟列表的一行
+ *
+ * 内容未变化的闹钟在每次查询结果之间沿用同一个实例，
+ * 列表按 id 作为 key，参数相等的行不会重组
+ *
+ * @property nextTriggerTime 下次触发时间（毫秒），停用或无法计算时为 null
+ */
+@Immutable
+data class AlarmRowModel(
+    val alarm: AlarmModel,
+    val nextTriggerTime: Long?
+) {
+    val id: String
+        get() = alarm.id
+    
+    /**
+     * 缓存的触发时间已经过去，需要重新计算
+     */
+    fun isStale(nowMillis: Long): Boolean =
+        nextTriggerTime != null && nextTriggerTime <= nowMillis
+}
@@ -22,12 +22,15 @@ import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.vector.ImageVector
+import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.wakeup.clock.R
+import com.wakeup.clock.core.NextTriggerCalculator
 import com.wakeup.clock.data.model.*
+import com.wakeup.clock.manager.AlarmReconciler
 import com.wakeup.clock.ui.theme.*
 import com.wakeup.clock.util.HolidayChecker
 import kotlinx.coroutines.launch
@@ -57,6 +60,7 @@ fun AddAlarmScreen(
     var skipHolidays by remember { mutableStateOf(false) }
     
     val scope = rememberCoroutineScope()
+    val context = LocalContext.current
     val timePickerState = rememberTimePickerState(
         initialHour = selectedHour,
         initialMinute = selectedMinute,
@@ -81,13 +85,13 @@ fun AddAlarmScreen(
                 actions = {
                     TextButton(onClick = {
                         val alarm = AlarmModel(
-                            time = String.format("%02d:%02d", selectedHour, selectedMinute),
+                            minuteOfDay = AlarmModel.minuteOf(selectedHour, selectedMinute),
                             enabled = true,
                             label = selectedLabel,
                             missionType = MissionType.MATH,
                             difficulty = Difficulty.MEDIUM,
                             repeatMode = repeatMode,
-                            customDays = if (repeatMode == RepeatMode.CUSTOM) customDays.toList() else emptyList(),
+                            dayMask = if (repeatMode == RepeatMode.CUSTOM) NextTriggerCalculator.maskOf(customDays).toByte() else 0,
                             skipHolidays = if (repeatMode == RepeatMode.CUSTOM) skipHolidays else false
                         )
                         onSave(alarm)
@@ -139,7 +143,9 @@ fun AddAlarmScreen(
                     skipHolidays = newValue
                     if (newValue) {
                         scope.launch {
-                            HolidayChecker.preloadHolidays(forceRefresh = true)
+                            if (HolidayChecker.preloadHolidays(context, forceRefresh = true)) {
+                                AlarmReconciler.getInstance(context).reconcile()
+                            }
                         }
                     }
                 }
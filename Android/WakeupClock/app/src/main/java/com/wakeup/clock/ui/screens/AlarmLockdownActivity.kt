@@ -5,6 +5,7 @@ import android.content.Context
 import android.content.Intent
 import android.os.Build
 import android.os.Bundle
+import android.view.ViewTreeObserver
 import android.view.WindowManager
 import androidx.activity.ComponentActivity
 import androidx.activity.compose.setContent
@@ -13,9 +14,10 @@ import androidx.compose.runtime.*
 import androidx.lifecycle.viewmodel.compose.viewModel
 import com.wakeup.clock.data.model.Difficulty
 import com.wakeup.clock.manager.AlarmScheduler
+import com.wakeup.clock.manager.FireLatencyProbe
 import com.wakeup.clock.service.AlarmService
 import com.wakeup.clock.ui.theme.WakeupClockTheme
-import com.wakeup.clock.ui.viewmodel.AlarmViewModel
+import com.wakeup.clock.ui.viewmodel.FireSessionViewModel
 
 /**
  * 闹钟锁屏Activity
@@ -43,9 +45,11 @@ class AlarmLockdownActivity : ComponentActivity() {
         // 是否是从防赖床超时触发的（这种情况下完成任务后不再调度新的防赖床提醒）
         val isFromAntiSnoozeTimeout = intent.getBooleanExtra(AlarmScheduler.EXTRA_IS_ANTI_SNOOZE, false)
         
+        markFirstFrame(intent.getStringExtra(AlarmScheduler.EXTRA_FIRE_ID))
+        
         setContent {
-            val viewModel: AlarmViewModel = viewModel()
-            val settings by viewModel.settings.collectAsState()
+            val session: FireSessionViewModel = viewModel()
+            val settings by session.settings.collectAsState()
             
             WakeupClockTheme(themeMode = settings.themeMode) {
                 AlarmLockdownScreen(
@@ -53,15 +57,7 @@ class AlarmLockdownActivity : ComponentActivity() {
                     difficulty = alarmDifficulty,
                     isAntiSnooze = isFromAntiSnoozeTimeout,
                     onDismiss = {
-                        // 记录起床（保存闹钟类型）- 只有第一次闹钟才记录
-                        if (!isFromAntiSnoozeTimeout) {
-                            viewModel.recordWakeUp(
-                                alarmId = alarmId,
-                                alarmLabel = alarmLabel
-                            )
-                        }
-                        
-                        // 停止闹钟服务
+                        // 先停止闹钟服务
                         stopAlarmService()
                         
                         // 只有普通闹钟才调度防赖床提醒
@@ -76,6 +72,14 @@ class AlarmLockdownActivity : ComponentActivity() {
                             )
                         }
                         
+                        // 记录起床（保存闹钟类型）- 只有第一次闹钟才记录，在后台写入
+                        if (!isFromAntiSnoozeTimeout) {
+                            session.recordWakeUp(
+                                alarmId = alarmId,
+                                alarmLabel = alarmLabel
+                            )
+                        }
+                        
                         // 关闭Activity
                         finish()
                     }
@@ -107,6 +111,24 @@ class AlarmLockdownActivity : ComponentActivity() {
         }
     }
     
+    /**
+     * 界面绘制出第一帧时记录响铃延迟
+     */
+    private fun markFirstFrame(fireId: String?) {
+        if (fireId == null) return
+        val decorView = window.decorView
+        val listener = object : ViewTreeObserver.OnDrawListener {
+            override fun onDraw() {
+                FireLatencyProbe.getInstance(this@AlarmLockdownActivity)
+                    .mark(fireId, FireLatencyProbe.Stage.FIRST_FRAME)
+                // 绘制回调中不能移除监听，延后到下一个消息
+                val self = this
+                decorView.post { decorView.viewTreeObserver.removeOnDrawListener(self) }
+            }
+        }
+        decorView.viewTreeObserver.addOnDrawListener(listener)
+    }
+    
     private fun setupLockScreenFlags() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
             setShowWhenLocked(true)
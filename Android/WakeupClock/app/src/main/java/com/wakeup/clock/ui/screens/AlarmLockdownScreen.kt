@@ -1,6 +1,7 @@
 package com.wakeup.clock.ui.screens
 
 import android.net.Uri
+import android.os.Trace
 import androidx.compose.animation.core.*
 import androidx.compose.foundation.background
 import androidx.compose.foundation.layout.*
@@ -11,13 +12,17 @@ import androidx.compose.material.icons.filled.*
 import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
+import androidx.compose.ui.ExperimentalComposeUiApi
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.alpha
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.vector.ImageVector
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.testTag
 import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.semantics.testTagsAsResourceId
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
@@ -31,6 +36,7 @@ import androidx.media3.ui.PlayerView
 import com.wakeup.clock.R
 import com.wakeup.clock.data.model.Difficulty
 import com.wakeup.clock.data.model.MissionType
+import com.wakeup.clock.manager.FireLatencyProbe
 import com.wakeup.clock.manager.VolumeLevel
 import com.wakeup.clock.ui.missions.*
 import com.wakeup.clock.ui.theme.*
@@ -64,6 +70,7 @@ private fun selectRandomMission(): MissionType {
 /**
  * 闹钟锁屏界面
  */
+@OptIn(ExperimentalComposeUiApi::class)
 @Composable
 fun AlarmLockdownScreen(
     alarmLabel: String,
@@ -114,7 +121,11 @@ fun AlarmLockdownScreen(
         getVideoUri(context, alarmLabel)
     }
     
-    Box(modifier = Modifier.fillMaxSize()) {
+    Box(
+        modifier = Modifier
+            .fillMaxSize()
+            .semantics { testTagsAsResourceId = true } // 供 UiAutomator 基准测试定位
+    ) {
         // 视频背景
         if (videoUri != null) {
             VideoBackground(videoUri = videoUri)
@@ -149,17 +160,31 @@ fun AlarmLockdownScreen(
         
         // 内容
         if (showMission) {
-            MissionContent(
-                missionType = missionType,
-                difficulty = difficulty,
-                onComplete = onDismiss
-            )
+            // 任务界面第一帧画出后结束"开始任务"耗时区间
+            LaunchedEffect(Unit) {
+                withFrameNanos { }
+                Trace.endAsyncSection(FireLatencyProbe.TRACE_MISSION_START, 0)
+            }
+            Box(
+                modifier = Modifier
+                    .fillMaxSize()
+                    .testTag("mission_${missionType.name.lowercase()}")
+            ) {
+                MissionContent(
+                    missionType = missionType,
+                    difficulty = difficulty,
+                    onComplete = onDismiss
+                )
+            }
         } else {
             AlarmDisplayContent(
                 currentTime = currentTime,
                 alarmLabel = alarmLabel,
                 volumeLevel = volumeLevel,
-                onStartMission = { showMission = true }
+                onStartMission = {
+                    Trace.beginAsyncSection(FireLatencyProbe.TRACE_MISSION_START, 0)
+                    showMission = true
+                }
             )
         }
     }
@@ -325,7 +350,8 @@ private fun AlarmDisplayContent(
             onClick = onStartMission,
             modifier = Modifier
                 .fillMaxWidth()
-                .height(56.dp),
+                .height(56.dp)
+                .testTag("start_mission"),
             colors = ButtonDefaults.buttonColors(
                 containerColor = Color.White.copy(alpha = 0.9f),
                 contentColor = Color.Black
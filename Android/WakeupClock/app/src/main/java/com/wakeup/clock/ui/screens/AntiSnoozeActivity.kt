@@ -30,7 +30,7 @@ import com.wakeup.clock.R
 import com.wakeup.clock.manager.AlarmScheduler
 import com.wakeup.clock.service.AlarmService
 import com.wakeup.clock.ui.theme.*
-import com.wakeup.clock.ui.viewmodel.AlarmViewModel
+import com.wakeup.clock.ui.viewmodel.FireSessionViewModel
 import kotlinx.coroutines.delay
 
 /**
@@ -59,8 +59,8 @@ class AntiSnoozeActivity : ComponentActivity() {
         val totalReminders = intent.getIntExtra(EXTRA_TOTAL_REMINDERS, 2)
         
         setContent {
-            val viewModel: AlarmViewModel = viewModel()
-            val settings by viewModel.settings.collectAsState()
+            val session: FireSessionViewModel = viewModel()
+            val settings by session.settings.collectAsState()
             
             WakeupClockTheme(themeMode = settings.themeMode) {
                 AntiSnoozeScreen(
@@ -1,10 +1,12 @@
 package com.wakeup.clock.ui.screens
 
-import androidx.compose.foundation.background
 import androidx.compose.foundation.isSystemInDarkTheme
 import androidx.compose.foundation.layout.*
-import androidx.compose.foundation.shape.CircleShape
+import androidx.compose.foundation.pager.HorizontalPager
+import androidx.compose.foundation.pager.rememberPagerState
+import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.shape.RoundedCornerShape
+import androidx.compose.foundation.verticalScroll
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.automirrored.filled.ArrowBack
 import androidx.compose.material.icons.filled.*
@@ -12,9 +14,7 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
-import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
-import androidx.compose.ui.graphics.vector.ImageVector
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
@@ -22,10 +22,19 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.wakeup.clock.R
 import com.wakeup.clock.data.model.ThemeMode
-import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.ui.calendar.MonthGridCanvas
+import com.wakeup.clock.ui.calendar.MonthModel
+import com.wakeup.clock.ui.calendar.YearHeatmap
+import com.wakeup.clock.ui.calendar.YearHeatmapCanvas
 import com.wakeup.clock.ui.theme.*
-import java.text.SimpleDateFormat
-import java.util.*
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.launch
+import java.time.LocalDate
+import java.time.YearMonth
+
+// 月份分页：中间一页为本月，前后各可翻 50 年
+private const val MONTH_PAGE_COUNT = 1200
+private const val CURRENT_MONTH_PAGE = MONTH_PAGE_COUNT / 2
 
 /**
  * 日历打卡页面
@@ -33,9 +42,13 @@ import java.util.*
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun CalendarScreen(
-    records: List<WakeUpRecord>,
     streak: Int,
     themeMode: ThemeMode,
+    monthModel: (YearMonth) -> Flow<MonthModel>,
+    cachedMonthModel: (YearMonth) -> MonthModel?,
+    yearHeatmap: (Int) -> Flow<YearHeatmap>,
+    onOpenHistory: () -> Unit,
+    onOpenStatistics: () -> Unit,
     onBack: () -> Unit
 ) {
     val isDark = when (themeMode) {
@@ -44,7 +57,10 @@ fun CalendarScreen(
         ThemeMode.DARK -> true
     }
     
-    var currentMonth by remember { mutableStateOf(Calendar.getInstance()) }
+    val thisMonth = remember { YearMonth.now() }
+    val pagerState = rememberPagerState(initialPage = CURRENT_MONTH_PAGE) { MONTH_PAGE_COUNT }
+    val currentMonth = thisMonth.plusMonths((pagerState.currentPage - CURRENT_MONTH_PAGE).toLong())
+    val scope = rememberCoroutineScope()
     
     Scaffold(
         topBar = {
@@ -55,6 +71,14 @@ fun CalendarScreen(
                         Icon(Icons.AutoMirrored.Filled.ArrowBack, contentDescription = "Back")
                     }
                 },
+                actions = {
+                    IconButton(onClick = onOpenStatistics) {
+                        Icon(Icons.Default.BarChart, contentDescription = stringResource(R.string.statistics))
+                    }
+                    IconButton(onClick = onOpenHistory) {
+                        Icon(Icons.Default.History, contentDescription = stringResource(R.string.history))
+                    }
+                },
                 colors = TopAppBarDefaults.topAppBarColors(
                     containerColor = if (isDark) DarkBackground else LightBackground
                 )
@@ -66,6 +90,7 @@ fun CalendarScreen(
             modifier = Modifier
                 .fillMaxSize()
                 .padding(paddingValues)
+                .verticalScroll(rememberScrollState())
                 .padding(16.dp),
             verticalArrangement = Arrangement.spacedBy(16.dp)
         ) {
@@ -122,25 +147,20 @@ fun CalendarScreen(
                         verticalAlignment = Alignment.CenterVertically
                     ) {
                         IconButton(onClick = {
-                            currentMonth = (currentMonth.clone() as Calendar).apply {
-                                add(Calendar.MONTH, -1)
-                            }
+                            scope.launch { pagerState.animateScrollToPage(pagerState.currentPage - 1) }
                         }) {
                             Icon(Icons.Default.ChevronLeft, contentDescription = "Previous")
                         }
                         
                         Text(
-                            text = SimpleDateFormat("yyyy年MM月", Locale.getDefault())
-                                .format(currentMonth.time),
+                            text = "%d年%02d月".format(currentMonth.year, currentMonth.monthValue),
                             fontSize = 18.sp,
                             fontWeight = FontWeight.Bold,
                             color = if (isDark) Color.White else Color.Black
                         )
                         
                         IconButton(onClick = {
-                            currentMonth = (currentMonth.clone() as Calendar).apply {
-                                add(Calendar.MONTH, 1)
-                            }
+                            scope.launch { pagerState.animateScrollToPage(pagerState.currentPage + 1) }
                         }) {
                             Icon(Icons.Default.ChevronRight, contentDescription = "Next")
                         }
@@ -163,151 +183,52 @@ fun CalendarScreen(
                     
                     Spacer(modifier = Modifier.height(8.dp))
                     
-                    // 日历网格
-                    CalendarGrid(
-                        calendar = currentMonth,
-                        records = records,
-                        isDark = isDark
-                    )
+                    // 日历网格：左右滑动切换月份，相邻月份预先组合并收集数据；
+                    // 离开可见范围的页面停止收集，只保留 LRU 缓存
+                    HorizontalPager(
+                        state = pagerState,
+                        beyondViewportPageCount = 1,
+                        verticalAlignment = Alignment.Top
+                    ) { page ->
+                        val yearMonth = thisMonth.plusMonths((page - CURRENT_MONTH_PAGE).toLong())
+                        val model by remember(yearMonth) { monthModel(yearMonth) }
+                            .collectAsState(initial = remember(yearMonth) { cachedMonthModel(yearMonth) })
+                        model?.let { MonthGridCanvas(model = it, isDark = isDark) }
+                    }
                 }
             }
-        }
-    }
-}
-
-@Composable
-private fun CalendarGrid(
-    calendar: Calendar,
-    records: List<WakeUpRecord>,
-    isDark: Boolean
-) {
-    val dateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault())
-    val recordMap = records.associateBy { it.date }
-    
-    val cal = (calendar.clone() as Calendar).apply {
-        set(Calendar.DAY_OF_MONTH, 1)
-    }
-    
-    val firstDayOfWeek = cal.get(Calendar.DAY_OF_WEEK) - 1
-    val daysInMonth = cal.getActualMaximum(Calendar.DAY_OF_MONTH)
-    val today = Calendar.getInstance()
-    
-    val totalCells = ((firstDayOfWeek + daysInMonth + 6) / 7) * 7
-    
-    Column(verticalArrangement = Arrangement.spacedBy(4.dp)) {
-        for (week in 0 until (totalCells / 7)) {
-            Row(
+            
+            // 年度热力图（跟随当前月份所在年份）
+            val year = currentMonth.year
+            val heatmap by remember(year) { yearHeatmap(year) }.collectAsState(initial = null)
+            Card(
                 modifier = Modifier.fillMaxWidth(),
-                horizontalArrangement = Arrangement.spacedBy(4.dp)
+                colors = CardDefaults.cardColors(
+                    containerColor = if (isDark) DarkSurface else Color.White
+                ),
+                shape = RoundedCornerShape(16.dp)
             ) {
-                for (dayOfWeek in 0 until 7) {
-                    val cellIndex = week * 7 + dayOfWeek
-                    val dayOfMonth = cellIndex - firstDayOfWeek + 1
-                    
-                    if (dayOfMonth in 1..daysInMonth) {
-                        val cellCal = (cal.clone() as Calendar).apply {
-                            set(Calendar.DAY_OF_MONTH, dayOfMonth)
-                        }
-                        val dateStr = dateFormat.format(cellCal.time)
-                        val record = recordMap[dateStr]
-                        val isToday = cellCal.get(Calendar.YEAR) == today.get(Calendar.YEAR) &&
-                                cellCal.get(Calendar.DAY_OF_YEAR) == today.get(Calendar.DAY_OF_YEAR)
-                        
-                        CalendarDay(
-                            day = dayOfMonth,
-                            record = record,
-                            isToday = isToday,
-                            isDark = isDark,
-                            modifier = Modifier.weight(1f)
+                Column(
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .padding(16.dp),
+                    verticalArrangement = Arrangement.spacedBy(12.dp)
+                ) {
+                    Text(
+                        text = "${year}年",
+                        fontSize = 16.sp,
+                        fontWeight = FontWeight.Bold,
+                        color = if (isDark) Color.White else Color.Black
+                    )
+                    heatmap?.let {
+                        YearHeatmapCanvas(
+                            heatmap = it,
+                            todayEpochDay = LocalDate.now().toEpochDay(),
+                            isDark = isDark
                         )
-                    } else {
-                        Spacer(modifier = Modifier.weight(1f))
                     }
                 }
             }
         }
     }
 }
-
-@Composable
-private fun CalendarDay(
-    day: Int,
-    record: WakeUpRecord?,
-    isToday: Boolean,
-    isDark: Boolean,
-    modifier: Modifier = Modifier
-) {
-    val hasRecord = record != null
-    
-    val backgroundColor = when {
-        isToday -> Purple500
-        hasRecord -> if (isDark) Green.copy(alpha = 0.2f) else Green.copy(alpha = 0.1f)
-        else -> Color.Transparent
-    }
-    
-    val textColor = when {
-        isToday -> Color.White
-        else -> if (isDark) Color.White else Color.Black
-    }
-    
-    Column(
-        modifier = modifier
-            .aspectRatio(1f)
-            .clip(RoundedCornerShape(8.dp))
-            .background(backgroundColor),
-        horizontalAlignment = Alignment.CenterHorizontally,
-        verticalArrangement = Arrangement.Center
-    ) {
-        Text(
-            text = day.toString(),
-            fontSize = 14.sp,
-            fontWeight = if (isToday) FontWeight.Bold else FontWeight.Normal,
-            color = textColor
-        )
-        
-        // 如果有打卡记录，显示闹钟类型图标
-        if (hasRecord) {
-            val label = record?.alarmLabel
-            if (label != null) {
-                Icon(
-                    imageVector = getCategoryIcon(label),
-                    contentDescription = null,
-                    tint = getCategoryColor(label),
-                    modifier = Modifier.size(12.dp)
-                )
-            } else {
-                // 没有类型信息，显示圆点
-                Box(
-                    modifier = Modifier
-                        .size(6.dp)
-                        .clip(CircleShape)
-                        .background(Green)
-                )
-            }
-        }
-    }
-}
-
-private fun getCategoryIcon(label: String): ImageVector = when (label) {
-    "work" -> Icons.Default.Work
-    "date" -> Icons.Default.Favorite
-    "flight" -> Icons.Default.Flight
-    "train" -> Icons.Default.Train
-    "meeting" -> Icons.Default.Groups
-    "doctor" -> Icons.Default.MedicalServices
-    "interview" -> Icons.Default.PersonAdd
-    "exam" -> Icons.Default.School
-    else -> Icons.Default.Alarm
-}
-
-private fun getCategoryColor(label: String): Color = when (label) {
-    "work" -> Color.Blue
-    "date" -> Color(0xFFE91E63) // Pink
-    "flight" -> Color.Cyan
-    "train" -> Orange
-    "meeting" -> Purple500
-    "doctor" -> Red
-    "interview" -> Green
-    "exam" -> Color.Yellow
-    else -> Color.Gray
-}
@@ -14,12 +14,16 @@ import androidx.compose.material.icons.filled.*
 import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
+import androidx.compose.ui.ExperimentalComposeUiApi
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.draw.shadow
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.platform.testTag
 import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.semantics.testTagsAsResourceId
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
@@ -27,6 +31,7 @@ import com.wakeup.clock.R
 import com.wakeup.clock.data.model.AlarmModel
 import com.wakeup.clock.data.model.RepeatMode
 import com.wakeup.clock.data.model.ThemeMode
+import com.wakeup.clock.ui.dashboard.AlarmRowModel
 import com.wakeup.clock.ui.theme.*
 import java.text.SimpleDateFormat
 import java.util.*
@@ -34,9 +39,10 @@ import java.util.*
 /**
  * 主界面
  */
+@OptIn(ExperimentalComposeUiApi::class)
 @Composable
 fun DashboardScreen(
-    alarms: List<AlarmModel>,
+    alarms: List<AlarmRowModel>,
     streak: Int,
     countdownText: String?,
     themeMode: ThemeMode,
@@ -44,8 +50,7 @@ fun DashboardScreen(
     onToggleAlarm: (AlarmModel) -> Unit,
     onDeleteAlarm: (AlarmModel) -> Unit,
     onOpenSettings: () -> Unit,
-    onOpenCalendar: () -> Unit,
-    getCountdownText: (AlarmModel) -> String?
+    onOpenCalendar: () -> Unit
 ) {
     val isDark = when (themeMode) {
         ThemeMode.AUTO -> isSystemInDarkTheme()
@@ -67,9 +72,12 @@ fun DashboardScreen(
             .fillMaxSize()
             .background(if (isDark) DarkBackground else LightBackground)
             .systemBarsPadding() // 添加系统栏内边距
+            .semantics { testTagsAsResourceId = true } // 供 UiAutomator 基准测试定位
     ) {
         LazyColumn(
-            modifier = Modifier.fillMaxSize(),
+            modifier = Modifier
+                .fillMaxSize()
+                .testTag("alarm_list"),
             contentPadding = PaddingValues(horizontal = 16.dp, vertical = 8.dp),
             verticalArrangement = Arrangement.spacedBy(16.dp)
         ) {
@@ -115,12 +123,13 @@ fun DashboardScreen(
                     EmptyStateSection(isDark = isDark)
                 }
             } else {
-                items(alarms, key = { it.id }) { alarm ->
+                // 行模型不可变且按 ID 复用，某个闹钟变化时只有该行重组
+                items(alarms, key = { it.id }) { row ->
                     AlarmRowItem(
-                        alarm = alarm,
+                        row = row,
                         isDark = isDark,
-                        onToggle = { onToggleAlarm(alarm) },
-                        onDelete = { onDeleteAlarm(alarm) }
+                        onToggle = { onToggleAlarm(row.alarm) },
+                        onDelete = { onDeleteAlarm(row.alarm) }
                     )
                 }
             }
@@ -216,7 +225,9 @@ private fun StreakSection(
         contentAlignment = Alignment.Center
     ) {
         Surface(
-            modifier = Modifier.clickable { onClick() },
+            modifier = Modifier
+                .testTag("streak_card")
+                .clickable { onClick() },
             shape = RoundedCornerShape(50),
             color = if (streak > 0) {
                 if (isDark) Orange.copy(alpha = 0.2f) else Orange.copy(alpha = 0.1f)
@@ -352,11 +363,12 @@ private fun EmptyStateSection(isDark: Boolean) {
 
 @Composable
 private fun AlarmRowItem(
-    alarm: AlarmModel,
+    row: AlarmRowModel,
     isDark: Boolean,
     onToggle: () -> Unit,
     onDelete: () -> Unit
 ) {
+    val alarm = row.alarm
     var showDeleteDialog by remember { mutableStateOf(false) }
     
     Surface(
@@ -472,6 +484,9 @@ private fun AlarmRowItem(
     }
 }
 
+// 自定义重复日期的显示顺序：周一到周日
+private val WEEK_DISPLAY_ORDER = intArrayOf(1, 2, 3, 4, 5, 6, 0)
+
 @Composable
 private fun RepeatInfoSection(alarm: AlarmModel, isDark: Boolean) {
     Row(
@@ -511,7 +526,7 @@ private fun RepeatInfoSection(alarm: AlarmModel, isDark: Boolean) {
             }
             RepeatMode.CUSTOM -> {
                 // 自定义
-                if (alarm.customDays.size == 7) {
+                if (alarm.customDayCount == 7) {
                     // 每天
                     Surface(
                         shape = RoundedCornerShape(50),
@@ -525,11 +540,12 @@ private fun RepeatInfoSection(alarm: AlarmModel, isDark: Boolean) {
                             modifier = Modifier.padding(horizontal = 10.dp, vertical = 5.dp)
                         )
                     }
-                } else if (alarm.customDays.isNotEmpty()) {
+                } else if (alarm.customDayCount > 0) {
                     // 显示具体日期
                     Row(horizontalArrangement = Arrangement.spacedBy(4.dp)) {
-                        val sortedDays = alarm.customDays.sortedBy { if (it == 0) 7 else it }
-                        sortedDays.forEach { day ->
+                        // 周一在前，周日在后
+                        WEEK_DISPLAY_ORDER.forEach { day ->
+                            if (!alarm.repeatsOn(day)) return@forEach
                             Surface(
                                 shape = CircleShape,
                                 color = if (isDark) Purple500.copy(alpha = 0.3f) else Purple500.copy(alpha = 0.2f)
@@ -0,0 +1,167 @@
+package com.wakeup.clock.ui.screens
+
+import androidx.compose.foundation.background
+import androidx.compose.foundation.isSystemInDarkTheme
+import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.shape.RoundedCornerShape
+import androidx.compose.material.icons.Icons
+import androidx.compose.material.icons.automirrored.filled.ArrowBack
+import androidx.compose.material3.*
+import androidx.compose.runtime.Composable
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.draw.clip
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.unit.dp
+import androidx.compose.ui.unit.sp
+import androidx.paging.LoadState
+import androidx.paging.PagingData
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
+import com.wakeup.clock.R
+import com.wakeup.clock.data.model.ThemeMode
+import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.ui.calendar.categoryColor
+import com.wakeup.clock.ui.calendar.categoryIcon
+import com.wakeup.clock.ui.theme.*
+import kotlinx.coroutines.flow.Flow
+
+// 占位行与记录行等高，加载完成时列表不跳动
+private val ROW_HEIGHT = 56.dp
+
+/**
+ * 起床历史页面
+ * 记录按时间倒序分页加载，未加载的位置显示占位行
+ */
+@OptIn(ExperimentalMaterial3Api::class)
+@Composable
+fun HistoryScreen(
+    history: Flow<PagingData<WakeUpRecord>>,
+    themeMode: ThemeMode,
+    onBack: () -> Unit
+) {
+    val isDark = when (themeMode) {
+        ThemeMode.AUTO -> isSystemInDarkTheme()
+        ThemeMode.LIGHT -> false
+        ThemeMode.DARK -> true
+    }
+    
+    val records = history.collectAsLazyPagingItems()
+    
+    Scaffold(
+        topBar = {
+            TopAppBar(
+                title = { Text(stringResource(R.string.history)) },
+                navigationIcon = {
+                    IconButton(onClick = onBack) {
+                        Icon(Icons.AutoMirrored.Filled.ArrowBack, contentDescription = "Back")
+                    }
+                },
+                colors = TopAppBarDefaults.topAppBarColors(
+                    containerColor = if (isDark) DarkBackground else LightBackground
+                )
+            )
+        },
+        containerColor = if (isDark) DarkBackground else LightBackground
+    ) { paddingValues ->
+        when {
+            records.loadState.refresh is LoadState.Loading && records.itemCount == 0 -> {
+                Box(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .padding(paddingValues),
+                    contentAlignment = Alignment.Center
+                ) {
+                    CircularProgressIndicator(color = Purple500)
+                }
+            }
+            records.itemCount == 0 -> {
+                Box(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .padding(paddingValues),
+                    contentAlignment = Alignment.Center
+                ) {
+                    Text(
+                        text = stringResource(R.string.no_history),
+                        fontSize = 16.sp,
+                        color = Color.Gray
+                    )
+                }
+            }
+            else -> {
+                LazyColumn(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .padding(paddingValues),
+                    contentPadding = PaddingValues(16.dp),
+                    verticalArrangement = Arrangement.spacedBy(8.dp)
+                ) {
+                    items(
+                        count = records.itemCount,
+                        key = records.itemKey { it.id }
+                    ) { index ->
+                        val record = records[index]
+                        if (record != null) {
+                            HistoryRow(record = record, isDark = isDark)
+                        } else {
+                            HistoryPlaceholder(isDark = isDark)
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
+
+@Composable
+private fun HistoryRow(record: WakeUpRecord, isDark: Boolean) {
+    val label = record.alarmLabel ?: "other"
+    
+    Surface(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(ROW_HEIGHT),
+        shape = RoundedCornerShape(12.dp),
+        color = if (isDark) DarkSurface else Color.White
+    ) {
+        Row(
+            modifier = Modifier.padding(horizontal = 16.dp),
+            verticalAlignment = Alignment.CenterVertically
+        ) {
+            Icon(
+                imageVector = categoryIcon(label),
+                contentDescription = null,
+                tint = categoryColor(label),
+                modifier = Modifier.size(20.dp)
+            )
+            Spacer(modifier = Modifier.width(12.dp))
+            Text(
+                text = record.date,
+                fontSize = 15.sp,
+                color = if (isDark) Color.White else Color.Black,
+                modifier = Modifier.weight(1f)
+            )
+            Text(
+                text = record.time,
+                fontSize = 17.sp,
+                fontWeight = FontWeight.SemiBold,
+                color = if (isDark) Color.White else Color.Black
+            )
+        }
+    }
+}
+
+@Composable
+private fun HistoryPlaceholder(isDark: Boolean) {
+    Box(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(ROW_HEIGHT)
+            .clip(RoundedCornerShape(12.dp))
+            .background(if (isDark) DarkSurface.copy(alpha = 0.5f) else LightSurface)
+    )
+}
@@ -9,6 +9,8 @@ import android.os.Build
 import android.os.LocaleList
 import android.os.PowerManager
 import android.provider.Settings
+import androidx.activity.compose.rememberLauncherForActivityResult
+import androidx.activity.result.contract.ActivityResultContracts
 import androidx.compose.foundation.clickable
 import androidx.compose.foundation.isSystemInDarkTheme
 import androidx.compose.foundation.layout.*
@@ -31,9 +33,12 @@ import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.wakeup.clock.R
+import com.wakeup.clock.data.backup.BackupFormat
 import com.wakeup.clock.data.model.AppSettings
 import com.wakeup.clock.data.model.ThemeMode
 import com.wakeup.clock.ui.theme.*
+import com.wakeup.clock.ui.viewmodel.BackupStatus
+import java.time.LocalDate
 
 /**
  * 设置页面
@@ -44,6 +49,10 @@ fun SettingsScreen(
     settings: AppSettings,
     onSettingsChanged: (AppSettings) -> Unit,
     onResetData: () -> Unit,
+    backupStatus: BackupStatus?,
+    onExportData: (Uri) -> Unit,
+    onImportData: (Uri) -> Unit,
+    onDismissBackupStatus: () -> Unit,
     onBack: () -> Unit
 ) {
     val isDark = when (settings.themeMode) {
@@ -55,6 +64,14 @@ fun SettingsScreen(
     var showResetDialog by remember { mutableStateOf(false) }
     var showUsageGuide by remember { mutableStateOf(false) }
     
+    // 通过存储访问框架选择备份文件
+    val exportLauncher = rememberLauncherForActivityResult(
+        ActivityResultContracts.CreateDocument(BackupFormat.MIME_TYPE)
+    ) { uri -> uri?.let(onExportData) }
+    val importLauncher = rememberLauncherForActivityResult(
+        ActivityResultContracts.OpenDocument()
+    ) { uri -> uri?.let(onImportData) }
+    
     val context = LocalContext.current
     var selectedLanguage by remember { 
         mutableStateOf(
@@ -369,6 +386,21 @@ fun SettingsScreen(
             
             // 数据管理
             SettingsSection(title = stringResource(R.string.data_management), isDark = isDark) {
+                DataActionButton(
+                    icon = Icons.Default.Upload,
+                    text = stringResource(R.string.export_data),
+                    onClick = { exportLauncher.launch("wakeup-backup-${LocalDate.now()}.jsonl") }
+                )
+                DataActionButton(
+                    icon = Icons.Default.Download,
+                    text = stringResource(R.string.import_data),
+                    onClick = {
+                        // 部分文件管理器不识别 ndjson 类型，同时接受常见的文本类型
+                        importLauncher.launch(
+                            arrayOf(BackupFormat.MIME_TYPE, "application/json", "text/plain", "application/octet-stream")
+                        )
+                    }
+                )
                 TextButton(
                     onClick = { showResetDialog = true },
                     modifier = Modifier.fillMaxWidth()
@@ -465,6 +497,33 @@ fun SettingsScreen(
         )
     }
     
+    // 备份结果
+    if (backupStatus != null) {
+        val result = backupStatus.result
+        AlertDialog(
+            onDismissRequest = onDismissBackupStatus,
+            title = {
+                Text(stringResource(if (backupStatus.isImport) R.string.import_data else R.string.export_data))
+            },
+            text = {
+                Text(
+                    when {
+                        result == null -> stringResource(R.string.backup_failed)
+                        !backupStatus.isImport -> stringResource(R.string.export_done, result.alarms, result.records)
+                        result.skipped == 0 -> stringResource(R.string.import_done, result.alarms, result.records)
+                        else -> stringResource(R.string.import_done, result.alarms, result.records) + "\n" +
+                            stringResource(R.string.import_skipped, result.skipped)
+                    }
+                )
+            },
+            confirmButton = {
+                TextButton(onClick = onDismissBackupStatus) {
+                    Text(stringResource(R.string.done))
+                }
+            }
+        )
+    }
+    
     // 使用指南
     if (showUsageGuide) {
         UsageGuideDialog(
@@ -474,6 +533,38 @@ fun SettingsScreen(
     }
 }
 
+/**
+ * 数据管理中的一个操作按钮
+ */
+@Composable
+private fun DataActionButton(
+    icon: ImageVector,
+    text: String,
+    onClick: () -> Unit
+) {
+    TextButton(
+        onClick = onClick,
+        modifier = Modifier.fillMaxWidth()
+    ) {
+        Row(
+            modifier = Modifier.fillMaxWidth(),
+            horizontalArrangement = Arrangement.Start,
+            verticalAlignment = Alignment.CenterVertically
+        ) {
+            Icon(
+                imageVector = icon,
+                contentDescription = null,
+                tint = Purple500
+            )
+            Spacer(modifier = Modifier.width(8.dp))
+            Text(
+                text = text,
+                color = Purple500
+            )
+        }
+    }
+}
+
 @Composable
 private fun SettingsSection(
     title: String,
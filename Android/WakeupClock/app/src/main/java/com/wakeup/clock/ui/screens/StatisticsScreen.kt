@@ -0,0 +1,306 @@
+package com.wakeup.clock.ui.screens
+
+import androidx.compose.foundation.Canvas
+import androidx.compose.foundation.isSystemInDarkTheme
+import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.rememberScrollState
+import androidx.compose.foundation.shape.RoundedCornerShape
+import androidx.compose.foundation.verticalScroll
+import androidx.compose.material.icons.Icons
+import androidx.compose.material.icons.automirrored.filled.ArrowBack
+import androidx.compose.material3.*
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.collectAsState
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.remember
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.geometry.CornerRadius
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.geometry.Size
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.unit.dp
+import androidx.compose.ui.unit.sp
+import com.wakeup.clock.R
+import com.wakeup.clock.core.DateCodec
+import com.wakeup.clock.data.model.ThemeMode
+import com.wakeup.clock.data.model.WakeUpStat
+import com.wakeup.clock.data.model.WakeUpStatistics
+import com.wakeup.clock.ui.calendar.categoryColor
+import com.wakeup.clock.ui.theme.*
+import kotlinx.coroutines.flow.Flow
+import kotlin.math.roundToInt
+
+// 分布图的时间范围（含两端的分段），超出范围的记录归入两端
+private const val HISTOGRAM_START_MINUTE = 4 * 60
+private const val HISTOGRAM_END_MINUTE = 12 * 60
+
+/**
+ * 起床统计页面
+ * 数据来自 SQL 聚合的统计缓存，页面只做展示
+ */
+@OptIn(ExperimentalMaterial3Api::class)
+@Composable
+fun StatisticsScreen(
+    statistics: Flow<WakeUpStatistics>,
+    themeMode: ThemeMode,
+    onBack: () -> Unit
+) {
+    val isDark = when (themeMode) {
+        ThemeMode.AUTO -> isSystemInDarkTheme()
+        ThemeMode.LIGHT -> false
+        ThemeMode.DARK -> true
+    }
+    
+    val stats by statistics.collectAsState(initial = null)
+    
+    Scaffold(
+        topBar = {
+            TopAppBar(
+                title = { Text(stringResource(R.string.statistics)) },
+                navigationIcon = {
+                    IconButton(onClick = onBack) {
+                        Icon(Icons.AutoMirrored.Filled.ArrowBack, contentDescription = "Back")
+                    }
+                },
+                colors = TopAppBarDefaults.topAppBarColors(
+                    containerColor = if (isDark) DarkBackground else LightBackground
+                )
+            )
+        },
+        containerColor = if (isDark) DarkBackground else LightBackground
+    ) { paddingValues ->
+        val current = stats
+        val overall = current?.overall
+        when {
+            current == null -> {
+                Box(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .padding(paddingValues),
+                    contentAlignment = Alignment.Center
+                ) {
+                    CircularProgressIndicator(color = Purple500)
+                }
+            }
+            overall == null -> {
+                Box(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .padding(paddingValues),
+                    contentAlignment = Alignment.Center
+                ) {
+                    Text(
+                        text = stringResource(R.string.no_history),
+                        fontSize = 16.sp,
+                        color = Color.Gray
+                    )
+                }
+            }
+            else -> {
+                Column(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .padding(paddingValues)
+                        .verticalScroll(rememberScrollState())
+                        .padding(16.dp),
+                    verticalArrangement = Arrangement.spacedBy(16.dp)
+                ) {
+                    // 总体：平均起床时间和波动
+                    StatisticsCard(title = stringResource(R.string.average_wake_time), isDark = isDark) {
+                        Text(
+                            text = DateCodec.formatMinuteOfDay(overall.mean.roundToInt()),
+                            fontSize = 40.sp,
+                            fontWeight = FontWeight.Bold,
+                            color = Purple500
+                        )
+                        Text(
+                            text = stringResource(
+                                R.string.consistency_minutes,
+                                overall.standardDeviation.roundToInt(),
+                                overall.count
+                            ),
+                            fontSize = 14.sp,
+                            color = Color.Gray
+                        )
+                    }
+                    
+                    if (current.histogram.isNotEmpty()) {
+                        StatisticsCard(title = stringResource(R.string.wake_time_distribution), isDark = isDark) {
+                            WakeTimeHistogram(histogram = current.histogram, isDark = isDark)
+                        }
+                    }
+                    
+                    StatisticsCard(title = stringResource(R.string.by_weekday), isDark = isDark) {
+                        current.byWeekday.forEach { stat ->
+                            StatRow(name = weekdayName(stat.bucket.toInt()), stat = stat, isDark = isDark)
+                        }
+                    }
+                    
+                    StatisticsCard(title = stringResource(R.string.by_label), isDark = isDark) {
+                        current.byLabel.forEach { stat ->
+                            StatRow(
+                                name = labelName(stat.bucket),
+                                stat = stat,
+                                isDark = isDark,
+                                accent = categoryColor(stat.bucket)
+                            )
+                        }
+                    }
+                    
+                    StatisticsCard(title = stringResource(R.string.by_month), isDark = isDark) {
+                        current.byMonth.asReversed().forEach { stat ->
+                            StatRow(name = stat.bucket, stat = stat, isDark = isDark)
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
+
+@Composable
+private fun StatisticsCard(
+    title: String,
+    isDark: Boolean,
+    content: @Composable ColumnScope.() -> Unit
+) {
+    Card(
+        modifier = Modifier.fillMaxWidth(),
+        colors = CardDefaults.cardColors(
+            containerColor = if (isDark) DarkSurface else Color.White
+        ),
+        shape = RoundedCornerShape(16.dp)
+    ) {
+        Column(
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(16.dp),
+            verticalArrangement = Arrangement.spacedBy(8.dp)
+        ) {
+            Text(
+                text = title,
+                fontSize = 16.sp,
+                fontWeight = FontWeight.SemiBold,
+                color = if (isDark) Color.White else Color.Black
+            )
+            content()
+        }
+    }
+}
+
+/**
+ * 一个分组：名称、平均起床时间、波动和记录数
+ */
+@Composable
+private fun StatRow(
+    name: String,
+    stat: WakeUpStat,
+    isDark: Boolean,
+    accent: Color = Purple500
+) {
+    Row(
+        modifier = Modifier.fillMaxWidth(),
+        verticalAlignment = Alignment.CenterVertically
+    ) {
+        Text(
+            text = name,
+            fontSize = 15.sp,
+            color = if (isDark) Color.White else Color.Black,
+            modifier = Modifier.weight(1f)
+        )
+        Text(
+            text = "±${stat.standardDeviation.roundToInt()}′ · ${stat.count}",
+            fontSize = 13.sp,
+            color = Color.Gray
+        )
+        Spacer(modifier = Modifier.width(12.dp))
+        Text(
+            text = DateCodec.formatMinuteOfDay(stat.mean.roundToInt()),
+            fontSize = 17.sp,
+            fontWeight = FontWeight.SemiBold,
+            color = accent
+        )
+    }
+}
+
+/**
+ * 起床时间分布柱状图，整张图在一个 Canvas 中绘制
+ */
+@Composable
+private fun WakeTimeHistogram(histogram: List<WakeUpStat>, isDark: Boolean) {
+    val firstBucket = HISTOGRAM_START_MINUTE / WakeUpStat.HISTOGRAM_MINUTES
+    val lastBucket = HISTOGRAM_END_MINUTE / WakeUpStat.HISTOGRAM_MINUTES
+    val counts = remember(histogram) {
+        IntArray(lastBucket - firstBucket + 1).also { counts ->
+            histogram.forEach { stat ->
+                val index = stat.bucket.toInt().coerceIn(firstBucket, lastBucket) - firstBucket
+                counts[index] += stat.count
+            }
+        }
+    }
+    val maxCount = counts.maxOrNull()?.coerceAtLeast(1) ?: 1
+    val emptyColor = if (isDark) DarkBackground else LightSurface
+    
+    Canvas(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(120.dp)
+    ) {
+        val slot = size.width / counts.size
+        val barWidth = slot * 0.7f
+        val radius = CornerRadius(barWidth / 4, barWidth / 4)
+        counts.forEachIndexed { index, count ->
+            val barHeight = if (count == 0) 2.dp.toPx() else size.height * count / maxCount
+            drawRoundRect(
+                color = if (count == 0) emptyColor else Purple500,
+                topLeft = Offset(index * slot + (slot - barWidth) / 2, size.height - barHeight),
+                size = Size(barWidth, barHeight),
+                cornerRadius = radius
+            )
+        }
+    }
+    Row(modifier = Modifier.fillMaxWidth()) {
+        Text(
+            text = DateCodec.formatMinuteOfDay(HISTOGRAM_START_MINUTE),
+            fontSize = 12.sp,
+            color = Color.Gray,
+            modifier = Modifier.weight(1f)
+        )
+        Text(
+            text = DateCodec.formatMinuteOfDay(HISTOGRAM_END_MINUTE),
+            fontSize = 12.sp,
+            color = Color.Gray
+        )
+    }
+}
+
+@Composable
+private fun weekdayName(index: Int): String = stringResource(
+    when (index) {
+        0 -> R.string.day_0
+        1 -> R.string.day_1
+        2 -> R.string.day_2
+        3 -> R.string.day_3
+        4 -> R.string.day_4
+        5 -> R.string.day_5
+        else -> R.string.day_6
+    }
+)
+
+@Composable
+private fun labelName(label: String): String = stringResource(
+    when (label) {
+        "work" -> R.string.label_work
+        "date" -> R.string.label_date
+        "flight" -> R.string.label_flight
+        "train" -> R.string.label_train
+        "meeting" -> R.string.label_meeting
+        "doctor" -> R.string.label_doctor
+        "interview" -> R.string.label_interview
+        "exam" -> R.string.label_exam
+        else -> R.string.label_other
+    }
+)
@@ -1,72 +1,112 @@
 package com.wakeup.clock.ui.viewmodel
 
 import android.app.Application
+import android.net.Uri
+import android.util.Log
 import androidx.lifecycle.AndroidViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.wakeup.clock.data.backup.BackupManager
+import com.wakeup.clock.data.backup.BackupResult
 import com.wakeup.clock.data.database.AppDatabase
 import com.wakeup.clock.data.model.AlarmModel
 import com.wakeup.clock.data.model.AppSettings
 import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.data.model.WakeUpStatistics
 import com.wakeup.clock.data.repository.AlarmRepository
+import com.wakeup.clock.data.repository.AppDataHub
 import com.wakeup.clock.data.repository.SettingsRepository
 import com.wakeup.clock.data.repository.WakeUpRecordRepository
+import com.wakeup.clock.data.repository.WakeUpStatsRepository
+import com.wakeup.clock.data.settings.SettingsStore
+import com.wakeup.clock.manager.AlarmReconciler
 import com.wakeup.clock.manager.AlarmScheduler
+import com.wakeup.clock.ui.calendar.CalendarMonthSource
+import com.wakeup.clock.ui.calendar.MonthModel
+import com.wakeup.clock.ui.calendar.YearHeatmap
+import com.wakeup.clock.ui.dashboard.AlarmListDiffer
+import com.wakeup.clock.ui.dashboard.AlarmRowModel
+import com.wakeup.clock.util.HolidayChecker
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
-import java.text.SimpleDateFormat
-import java.util.*
+import java.time.YearMonth
+
+/**
+ * 备份操作的结果
+ *
+ * @property result 成功时的行数统计，失败时为 null
+ */
+data class BackupStatus(
+    val isImport: Boolean,
+    val result: BackupResult?
+)
 
 /**
  * 闹钟 ViewModel
  */
 class AlarmViewModel(application: Application) : AndroidViewModel(application) {
     
+    companion object {
+        private const val TAG = "AlarmViewModel"
+    }
+    
     private val database = AppDatabase.getDatabase(application)
+    private val hub = AppDataHub.getInstance(application)
     private val alarmRepository = AlarmRepository(database.alarmDao())
-    private val recordRepository = WakeUpRecordRepository(database.wakeUpRecordDao())
-    private val settingsRepository = SettingsRepository(database.appSettingsDao())
+    private val recordRepository = WakeUpRecordRepository(database.wakeUpRecordDao(), database.invalidationTracker)
+    private val statsRepository = WakeUpStatsRepository(database.wakeUpStatsDao(), database.wakeUpRecordDao())
+    private val settingsRepository = SettingsRepository(SettingsStore.getInstance(application))
     private val alarmScheduler = AlarmScheduler(application)
+    private val alarmReconciler = AlarmReconciler.getInstance(application)
+    private val calendarMonths = CalendarMonthSource(recordRepository)
+    private val backupManager = BackupManager(application)
+    private val alarmListDiffer = AlarmListDiffer(alarmScheduler::calculateNextTriggerTime)
     
-    // 所有闹钟
-    val alarms: StateFlow<List<AlarmModel>> = alarmRepository.allAlarms
-        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), emptyList())
+    // 首页闹钟列表（与其他界面共享同一个查询，已有结果时直接作为初始值）；
+    // 按 ID 差分，只有新增或变化的闹钟生成新的行并重新计算触发时间。
+    // 跨过午夜、修改时间或时区、节假日数据更新后，重新计算全部启用闹钟的触发时间
+    val alarmRows: StateFlow<List<AlarmRowModel>> =
+        combine(hub.alarms, hub.clockTicks, HolidayChecker.revision) { alarms, tick, holidayRevision ->
+            alarmListDiffer.diff(alarms, calendarKey = tick to holidayRevision)
+        }
+            .flowOn(Dispatchers.Default)
+            .stateIn(
+                viewModelScope,
+                SharingStarted.WhileSubscribed(5000),
+                hub.latestAlarms()?.let { alarmListDiffer.diff(it) } ?: emptyList()
+            )
     
-    // 应用设置
-    val settings: StateFlow<AppSettings> = settingsRepository.settings
+    // 应用设置（进程内快照已载入时，初始值就是实际设置）
+    val settings: StateFlow<AppSettings> = hub.settings
         .filterNotNull()
-        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), AppSettings())
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), hub.settings.value ?: AppSettings())
     
     // 连续天数
-    private val _streak = MutableStateFlow(0)
-    val streak: StateFlow<Int> = _streak.asStateFlow()
+    val streak: StateFlow<Int> = hub.streak
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), hub.latestStreak() ?: 0)
     
-    // 下一个闹钟倒计时
-    private val _countdownText = MutableStateFlow<String?>(null)
-    val countdownText: StateFlow<String?> = _countdownText.asStateFlow()
+    // 下一个闹钟倒计时，由首页订阅驱动，与闹钟列表一起在界面不可见时停止
+    val countdownText: StateFlow<String?> = alarmRows
+        .map(::countdownOf)
+        .distinctUntilChanged()
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), countdownOf(alarmRows.value))
     
-    init {
-        // 初始化设置
-        viewModelScope.launch {
-            val existingSettings = settingsRepository.getSettingsOnce()
-            if (existingSettings.id == 0) {
-                settingsRepository.updateSettings(AppSettings())
-            }
-        }
-        
-        // 加载连续天数
-        loadStreak()
-        
-        // 更新倒计时
-        updateCountdown()
-    }
+    // 最近一次备份操作的结果，界面显示后清除
+    private val _backupStatus = MutableStateFlow<BackupStatus?>(null)
+    val backupStatus: StateFlow<BackupStatus?> = _backupStatus.asStateFlow()
+    
+    // 起床历史（分页），在 ViewModel 范围内缓存，旋转屏幕或返回时不重新加载
+    val history: Flow<PagingData<WakeUpRecord>> = recordRepository.history().cachedIn(viewModelScope)
     
     /**
      * 添加闹钟
      */
     fun addAlarm(alarm: AlarmModel) {
         viewModelScope.launch {
+            // 系统调度由 AlarmReconciler 监听闹钟表变化后增量完成
             alarmRepository.insertAlarm(alarm)
-            alarmScheduler.scheduleAlarm(alarm)
         }
     }
     
@@ -76,11 +116,6 @@ class AlarmViewModel(application: Application) : AndroidViewModel(application) {
     fun updateAlarm(alarm: AlarmModel) {
         viewModelScope.launch {
             alarmRepository.updateAlarm(alarm)
-            if (alarm.enabled) {
-                alarmScheduler.scheduleAlarm(alarm)
-            } else {
-                alarmScheduler.cancelAlarm(alarm)
-            }
         }
     }
     
@@ -89,7 +124,6 @@ class AlarmViewModel(application: Application) : AndroidViewModel(application) {
      */
     fun deleteAlarm(alarm: AlarmModel) {
         viewModelScope.launch {
-            alarmScheduler.cancelAlarm(alarm)
             alarmRepository.deleteAlarm(alarm)
         }
     }
@@ -101,33 +135,51 @@ class AlarmViewModel(application: Application) : AndroidViewModel(application) {
         viewModelScope.launch {
             val newEnabled = !alarm.enabled
             alarmRepository.setAlarmEnabled(alarm.id, newEnabled)
-            
-            if (newEnabled) {
-                alarmScheduler.scheduleAlarm(alarm.copy(enabled = true))
-            } else {
-                alarmScheduler.cancelAlarm(alarm)
-            }
         }
     }
     
     /**
-     * 记录起床
+     * 启用或停用某一类型的所有闹钟
      */
-    fun recordWakeUp(alarmId: String, alarmLabel: String) {
+    fun setLabelEnabled(label: String, enabled: Boolean) {
         viewModelScope.launch {
-            val now = Date()
-            val dateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault())
-            val timeFormat = SimpleDateFormat("HH:mm", Locale.getDefault())
-            
-            val record = WakeUpRecord(
-                date = dateFormat.format(now),
-                time = timeFormat.format(now),
-                alarmLabel = alarmLabel,
-                alarmId = alarmId
-            )
-            
-            recordRepository.insertRecord(record)
-            loadStreak()
+            alarmRepository.setEnabledByLabel(label, enabled)
+        }
+    }
+    
+    /**
+     * 批量启用或停用闹钟
+     */
+    fun setAlarmsEnabled(ids: Collection<String>, enabled: Boolean) {
+        viewModelScope.launch {
+            alarmRepository.setAlarmsEnabled(ids, enabled)
+        }
+    }
+    
+    /**
+     * 平移闹钟时间（ids 为 null 时平移全部闹钟）
+     */
+    fun shiftAlarms(minutes: Int, ids: Collection<String>? = null) {
+        viewModelScope.launch {
+            alarmRepository.shiftAlarms(minutes, ids)
+        }
+    }
+    
+    /**
+     * 把一组闹钟复制到指定日期
+     */
+    fun duplicateAlarms(ids: Collection<String>, days: Iterable<Int>) {
+        viewModelScope.launch {
+            alarmRepository.duplicateAlarms(ids, days)
+        }
+    }
+    
+    /**
+     * 批量删除闹钟
+     */
+    fun deleteAlarms(ids: Collection<String>) {
+        viewModelScope.launch {
+            alarmRepository.deleteAlarms(ids)
         }
     }
     
@@ -145,66 +197,80 @@ class AlarmViewModel(application: Application) : AndroidViewModel(application) {
      */
     fun resetAllData() {
         viewModelScope.launch {
-            // 取消所有闹钟
-            alarms.value.forEach { alarm ->
-                alarmScheduler.cancelAlarm(alarm)
-            }
-            
-            // 删除所有数据
+            // 删除所有数据（系统中的注册由 AlarmReconciler 随闹钟表变化取消）
             alarmRepository.deleteAllAlarms()
             recordRepository.deleteAllRecords()
             settingsRepository.resetSettings()
-            
-            _streak.value = 0
         }
     }
     
     /**
-     * 获取闹钟倒计时文本
+     * 导出备份到用户选择的文件
      */
-    fun getCountdownText(alarm: AlarmModel): String? {
-        return alarmScheduler.getCountdownText(alarm)
+    fun exportBackup(uri: Uri) {
+        viewModelScope.launch {
+            val result = try {
+                backupManager.export(uri)
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to export backup: ${e.message}")
+                null
+            }
+            _backupStatus.value = BackupStatus(isImport = false, result = result)
+        }
     }
     
     /**
-     * 加载连续天数
+     * 从用户选择的文件导入备份，导入后不依赖已注册记录，全部重新调度
      */
-    private fun loadStreak() {
+    fun importBackup(uri: Uri) {
         viewModelScope.launch {
-            _streak.value = recordRepository.getStreak()
+            val result = try {
+                backupManager.import(uri)
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to import backup: ${e.message}")
+                null
+            }
+            _backupStatus.value = BackupStatus(isImport = true, result = result)
+            if (result != null) rescheduleAllAlarms()
         }
     }
     
+    fun clearBackupStatus() {
+        _backupStatus.value = null
+    }
+    
     /**
-     * 更新倒计时
+     * 日历某月的数据（每月一个 Flow，只查询该月）
      */
-    private fun updateCountdown() {
-        viewModelScope.launch {
-            alarms.collect { alarmList ->
-                val enabledAlarms = alarmList.filter { it.enabled }
-                if (enabledAlarms.isEmpty()) {
-                    _countdownText.value = null
-                    return@collect
-                }
-                
-                // 找到最近的闹钟
-                var nearestAlarm: AlarmModel? = null
-                var nearestTime: Long = Long.MAX_VALUE
-                
-                enabledAlarms.forEach { alarm ->
-                    alarmScheduler.calculateNextTriggerTime(alarm)?.let { triggerTime ->
-                        if (triggerTime < nearestTime) {
-                            nearestTime = triggerTime
-                            nearestAlarm = alarm
-                        }
-                    }
-                }
-                
-                nearestAlarm?.let { alarm ->
-                    _countdownText.value = alarmScheduler.getCountdownText(alarm)
-                }
-            }
-        }
+    fun monthModel(yearMonth: YearMonth): Flow<MonthModel> = calendarMonths.month(yearMonth)
+    
+    /**
+     * 缓存中的日历月份数据，用于翻页时立即显示
+     */
+    fun cachedMonthModel(yearMonth: YearMonth): MonthModel? = calendarMonths.cached(yearMonth)
+    
+    /**
+     * 某年的打卡热力图，聚合查询结果在后台线程转换为数组
+     */
+    fun yearHeatmap(year: Int): Flow<YearHeatmap> =
+        recordRepository.getDailyCountsByYear(year)
+            .map { YearHeatmap.build(year, it) }
+            .flowOn(Dispatchers.Default)
+    
+    /**
+     * 起床统计（SQL 聚合 + 增量缓存），记录变化后自动更新
+     */
+    fun statistics(): Flow<WakeUpStatistics> = statsRepository.statistics()
+    
+    /**
+     * 最近一个闹钟的倒计时文本
+     */
+    private fun countdownOf(rows: List<AlarmRowModel>): String? {
+        // 找到最近的闹钟，直接使用行中缓存的触发时间（停用的闹钟为 null）
+        val nearestTime = rows.minOfOrNull { it.nextTriggerTime ?: Long.MAX_VALUE }
+        return nearestTime
+            ?.takeIf { it != Long.MAX_VALUE }
+            ?.let { alarmScheduler.getCountdownText(it) }
     }
     
     /**
@@ -213,13 +279,11 @@ class AlarmViewModel(application: Application) : AndroidViewModel(application) {
     fun canScheduleExactAlarms(): Boolean = alarmScheduler.canScheduleExactAlarms()
     
     /**
-     * 重新调度所有闹钟
+     * 重新调度所有闹钟：不依赖已注册记录，全部取消后重新注册
      */
     fun rescheduleAllAlarms() {
         viewModelScope.launch {
-            alarms.value.filter { it.enabled }.forEach { alarm ->
-                alarmScheduler.scheduleAlarm(alarm)
-            }
+            alarmReconciler.resync()
         }
     }
 }
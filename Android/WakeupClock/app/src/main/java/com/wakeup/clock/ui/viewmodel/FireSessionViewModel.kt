@@ -0,0 +1,61 @@
+package com.wakeup.clock.ui.viewmodel
+
+import android.app.Application
+import android.util.Log
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.viewModelScope
+import com.wakeup.clock.WakeupClockApp
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.data.repository.AppDataHub
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.launch
+import java.time.LocalDateTime
+
+/**
+ * 响铃界面（任务解锁、防赖床确认）的状态
+ *
+ * 只持有设置快照（来自内存，不打开数据库），响铃期间不查询闹钟列表、连续天数和倒计时；
+ * 起床记录在关闭闹钟之后才写入
+ */
+class FireSessionViewModel(application: Application) : AndroidViewModel(application) {
+    
+    companion object {
+        private const val TAG = "FireSessionViewModel"
+    }
+    
+    private val hub = AppDataHub.getInstance(application)
+    
+    // 应用设置（快照通常在进程启动时已载入）
+    val settings: StateFlow<AppSettings> = hub.settings
+        .filterNotNull()
+        .stateIn(viewModelScope, SharingStarted.Eagerly, hub.settings.value ?: AppSettings())
+    
+    /**
+     * 记录起床：时间取调用时刻，写入放到应用级作用域中执行，
+     * 界面关闭（viewModelScope 取消）不会丢失记录
+     */
+    fun recordWakeUp(alarmId: String, alarmLabel: String) {
+        val now = LocalDateTime.now()
+        val record = WakeUpRecord(
+            epochDay = now.toLocalDate().toEpochDay(),
+            minuteOfDay = now.hour * 60 + now.minute,
+            alarmLabel = alarmLabel,
+            alarmId = alarmId
+        )
+        
+        val app = getApplication<WakeupClockApp>()
+        app.applicationScope.launch {
+            try {
+                // 写入记录并在同一事务中更新连续状态
+                AppDatabase.getDatabase(app).wakeUpRecordDao().insertRecord(record)
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to record wake-up: ${e.message}")
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.wakeup.clock.util
+
+import android.content.Context
+import android.util.Log
+import java.io.FileInputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.time.LocalDate
+
+/**
+ * 随应用打包的节假日数据（assets/holidays.bin，构建时由 holidays/ 下的文本编译生成）
+ * 通过 AssetFileDescriptor 内存映射，查询时直接读取位图，不做任何解析
+ *
+ * 每年两个位图：放假日、调休上班日；未列出的周末视为放假
+ */
+class HolidayAsset private constructor(private val buffer: ByteBuffer) {
+    
+    companion object {
+        private const val TAG = "HolidayAsset"
+        private const val ASSET_NAME = "holidays.bin"
+        private const val MAGIC = 0x574B4844 // "WKHD"
+        private const val VERSION = 1
+        
+        private const val HEADER_SIZE = 10
+        private const val BITMAP_WORDS = 6
+        private const val YEAR_BLOCK_SIZE = BITMAP_WORDS * 8 * 2
+        
+        /**
+         * 打开并映射打包的节假日数据，缺失或格式不对时返回 null
+         */
+        fun open(context: Context): HolidayAsset? {
+            return try {
+                context.assets.openFd(ASSET_NAME).use { descriptor ->
+                    FileInputStream(descriptor.fileDescriptor).use { input ->
+                        val buffer = input.channel.map(
+                            FileChannel.MapMode.READ_ONLY,
+                            descriptor.startOffset,
+                            descriptor.length
+                        )
+                        if (buffer.getInt(0) != MAGIC || buffer.get(4).toInt() != VERSION) {
+                            Log.e(TAG, "Unsupported holiday asset")
+                            null
+                        } else {
+                            HolidayAsset(buffer)
+                        }
+                    }
+                }
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to map holiday asset: ${e.message}")
+                null
+            }
+        }
+    }
+    
+    /** 第一年 */
+    val firstYear: Int = buffer.getShort(6).toInt() and 0xFFFF
+    
+    /** 年数 */
+    val yearCount: Int = buffer.getShort(8).toInt() and 0xFFFF
+    
+    // 每年 1 月 1 日的纪元日，多一项作为结束边界
+    private val yearStarts = LongArray(yearCount + 1) { LocalDate.of(firstYear + it, 1, 1).toEpochDay() }
+    
+    /** 数据覆盖的纪元日范围 [firstEpochDay, endEpochDay) */
+    val firstEpochDay: Long get() = yearStarts[0]
+    val endEpochDay: Long get() = yearStarts[yearCount]
+    
+    /**
+     * 是否包含该日期所在年份的数据
+     */
+    fun covers(epochDay: Long): Boolean = epochDay >= firstEpochDay && epochDay < endEpochDay
+    
+    /**
+     * 该日期是否应跳过闹钟：放假日，或不是调休上班日的周末
+     * 不在数据范围内返回 false
+     */
+    fun isSkipDay(epochDay: Long): Boolean {
+        if (!covers(epochDay)) return false
+        var yearIndex = 0
+        while (epochDay >= yearStarts[yearIndex + 1]) yearIndex++
+        
+        val day = (epochDay - yearStarts[yearIndex]).toInt()
+        val block = HEADER_SIZE + yearIndex * YEAR_BLOCK_SIZE
+        val wordOffset = (day ushr 6) * 8
+        val mask = 1L shl (day and 63)
+        
+        if (buffer.getLong(block + wordOffset) and mask != 0L) return true
+        if (buffer.getLong(block + BITMAP_WORDS * 8 + wordOffset) and mask != 0L) return false
+        // 1970-01-01 是周四：floorMod(epochDay + 4, 7) 为 0 表示周日，6 表示周六
+        val weekday = Math.floorMod(epochDay + 4, 7L)
+        return weekday == 0L || weekday == 6L
+    }
+}
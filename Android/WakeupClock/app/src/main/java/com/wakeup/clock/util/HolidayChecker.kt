@@ -1,33 +1,81 @@
 package com.wakeup.clock.util
 
+import android.content.Context
 import android.util.Log
+import androidx.annotation.VisibleForTesting
+import com.wakeup.clock.core.HolidayMask
+import com.wakeup.clock.core.NextTriggerCalculator
+import com.wakeup.clock.data.database.AppDatabase
+import com.wakeup.clock.data.model.HolidayDay
+import com.wakeup.clock.data.model.HolidayYear
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
 import org.json.JSONObject
 import java.net.HttpURLConnection
 import java.net.URL
-import java.text.SimpleDateFormat
+import java.time.Instant
+import java.time.LocalDate
+import java.time.Year
+import java.time.ZoneId
 import java.util.*
 
 /**
  * 节假日检查器
  * 用于检查指定日期是否为节假日或调休工作日
+ *
+ * 节假日数据按年整体下载并保存在 Room 中，进程启动后从数据库载入位图，
+ * 之后的查询只是位运算，不依赖网络，重启后也可用
+ *
+ * 数据库中没有的年份回退到随应用打包的数据（内存映射的 holidays.bin），
+ * 首次启动、离线时也能正确跳过节假日；同一年份以网络数据为准
  */
-object HolidayChecker {
+object HolidayChecker : HolidayMask {
     
     private const val TAG = "HolidayChecker"
     
-    // 节假日 API（使用免费的节假日 API）
-    private const val HOLIDAY_API_URL = "https://timor.tech/api/holiday/info/"
+    // 位图起点：2000-01-01 的纪元日
+    private const val BASE_EPOCH_DAY = 10957L
     
-    // 缓存节假日数据
-    private val holidayCache = mutableMapOf<String, HolidayInfo>()
+    // 节假日 API（使用免费的节假日 API），按年批量获取
+    private const val HOLIDAY_API_URL = "https://timor.tech/api/holiday/year/"
     
-    data class HolidayInfo(
-        val isHoliday: Boolean,      // 是否为节假日
-        val isWorkday: Boolean,       // 是否为调休工作日
-        val name: String?             // 节假日名称
-    )
+    // 距上次检查超过该时间才重新请求（请求本身是条件请求，未变化时服务器返回 304）
+    private const val REFRESH_INTERVAL_MS = 7 * 24 * 60 * 60 * 1000L
+    
+    /**
+     * 数据库中数据的快照（bit = epochDay - BASE_EPOCH_DAY），只整体替换，不原地修改
+     *
+     * @property skipDays 应跳过的日期
+     * @property coveredDays 数据库中有数据的年份的所有日期
+     */
+    private class Snapshot(val skipDays: BitSet, val coveredDays: BitSet)
+    
+    @Volatile
+    private var snapshot = Snapshot(BitSet(), BitSet())
+    
+    // 打包的节假日数据，ensureLoaded 时映射
+    @Volatile
+    private var bundled: HolidayAsset? = null
+    
+    @Volatile
+    private var loaded = false
+    
+    private val loadMutex = Mutex()
+    
+    private val _revision = MutableStateFlow(0)
+    
+    /** 内存中的节假日数据每替换一次加一，缓存了触发时间的地方据此重新计算 */
+    val revision: StateFlow<Int> = _revision.asStateFlow()
+    
+    /** 节假日 API 地址，测试中替换为本地服务器 */
+    @VisibleForTesting
+    @Volatile
+    internal var apiBaseUrl: String = HOLIDAY_API_URL
     
     /**
      * 检查是否应该跳过闹钟
@@ -35,93 +83,162 @@ object HolidayChecker {
      * - 如果是调休工作日，不跳过
      */
     fun shouldSkipAlarm(date: Date): Boolean {
-        val dateStr = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(date)
-        
-        // 先检查缓存
-        val cached = holidayCache[dateStr]
-        if (cached != null) {
-            // 节假日跳过，调休工作日不跳过
-            return cached.isHoliday && !cached.isWorkday
+        val epochDay = LocalDate.ofInstant(Instant.ofEpochMilli(date.time), ZoneId.systemDefault()).toEpochDay()
+        return shouldSkipEpochDay(epochDay)
+    }
+    
+    /**
+     * 按纪元日检查是否应该跳过闹钟（没有该年数据时默认不跳过）
+     */
+    fun shouldSkipEpochDay(epochDay: Long): Boolean = isSkipDay(snapshot, bundled, epochDay)
+    
+    /**
+     * 返回从 startEpochDay 起连续 days 天的跳过位（bit k 表示 startEpochDay + k）
+     */
+    override fun skipBits(startEpochDay: Long, days: Int): Int {
+        val current = snapshot
+        val asset = bundled
+        var result = 0
+        for (k in 0 until days) {
+            if (isSkipDay(current, asset, startEpochDay + k)) result = result or (1 shl k)
         }
-        
-        // 没有缓存数据，默认不跳过
-        return false
+        return result
+    }
+    
+    /**
+     * 优先使用数据库中的数据，该年份没有数据时查打包数据
+     */
+    private fun isSkipDay(current: Snapshot, asset: HolidayAsset?, epochDay: Long): Boolean {
+        val index = epochDay - BASE_EPOCH_DAY
+        if (index >= 0 && index <= Int.MAX_VALUE && current.coveredDays.get(index.toInt())) {
+            return current.skipDays.get(index.toInt())
+        }
+        return asset?.isSkipDay(epochDay) ?: false
     }
     
     /**
-     * 预加载节假日数据
+     * 映射打包数据并从数据库载入节假日位图（每个进程只载入一次），计算触发时间前调用
      */
-    suspend fun preloadHolidays(forceRefresh: Boolean = false) {
-        if (!forceRefresh && holidayCache.isNotEmpty()) {
-            return
+    suspend fun ensureLoaded(context: Context) {
+        if (loaded) return
+        loadMutex.withLock {
+            if (loaded) return
+            if (bundled == null) {
+                bundled = withContext(Dispatchers.IO) { HolidayAsset.open(context) }
+            }
+            reloadFromDatabase(context)
+            loaded = true
         }
+    }
+    
+    /**
+     * 预加载节假日数据：载入本地数据，并按需刷新今年和明年的数据
+     *
+     * @param forceRefresh 忽略刷新间隔立即检查（仍是条件请求）
+     * @return 本地数据是否有变化，有变化时调用方需要重新调度闹钟
+     */
+    suspend fun preloadHolidays(context: Context, forceRefresh: Boolean = false): Boolean {
+        ensureLoaded(context)
         
-        withContext(Dispatchers.IO) {
-            try {
-                // 获取未来30天的节假日信息
-                val calendar = Calendar.getInstance()
-                for (i in 0 until 30) {
-                    val dateStr = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault())
-                        .format(calendar.time)
-                    
-                    if (!holidayCache.containsKey(dateStr) || forceRefresh) {
-                        fetchHolidayInfo(dateStr)?.let { info ->
-                            holidayCache[dateStr] = info
-                        }
-                    }
-                    
-                    calendar.add(Calendar.DAY_OF_MONTH, 1)
+        return withContext(Dispatchers.IO) {
+            val holidayDao = AppDatabase.getDatabase(context).holidayDao()
+            val thisYear = LocalDate.now().year
+            var changed = false
+            
+            for (year in listOf(thisYear, thisYear + 1)) {
+                val stored = holidayDao.getYear(year)
+                if (!forceRefresh && stored != null &&
+                    System.currentTimeMillis() - stored.fetchedAt < REFRESH_INTERVAL_MS) {
+                    continue
                 }
                 
-                Log.d(TAG, "Preloaded ${holidayCache.size} holiday entries")
-            } catch (e: Exception) {
-                Log.e(TAG, "Failed to preload holidays: ${e.message}")
+                try {
+                    changed = refreshYear(context, year, stored) || changed
+                } catch (e: Exception) {
+                    Log.e(TAG, "Failed to refresh holidays for $year: ${e.message}")
+                }
+            }
+            
+            if (changed) {
+                loadMutex.withLock { reloadFromDatabase(context) }
             }
+            changed
         }
     }
     
     /**
-     * 从 API 获取节假日信息
+     * 条件请求一整年的数据，返回数据库内容是否有变化
      */
-    private fun fetchHolidayInfo(dateStr: String): HolidayInfo? {
-        return try {
-            val url = URL("$HOLIDAY_API_URL$dateStr")
-            val connection = url.openConnection() as HttpURLConnection
+    private suspend fun refreshYear(context: Context, year: Int, stored: HolidayYear?): Boolean {
+        val holidayDao = AppDatabase.getDatabase(context).holidayDao()
+        val connection = URL("$apiBaseUrl$year").openConnection() as HttpURLConnection
+        try {
             connection.connectTimeout = 5000
             connection.readTimeout = 5000
+            stored?.etag?.let { connection.setRequestProperty("If-None-Match", it) }
+            stored?.lastModified?.let { connection.setRequestProperty("If-Modified-Since", it) }
             
-            if (connection.responseCode == HttpURLConnection.HTTP_OK) {
-                val response = connection.inputStream.bufferedReader().readText()
-                parseHolidayResponse(response)
-            } else {
-                null
+            when (connection.responseCode) {
+                HttpURLConnection.HTTP_NOT_MODIFIED -> {
+                    stored?.let { holidayDao.upsertYear(it.copy(fetchedAt = System.currentTimeMillis())) }
+                    Log.d(TAG, "Holidays for $year not modified")
+                    return false
+                }
+                HttpURLConnection.HTTP_OK -> {
+                    val response = connection.inputStream.bufferedReader().use { it.readText() }
+                    val days = parseHolidayYear(response, year) ?: return false
+                    // 明年的安排尚未公布时不保存，避免把"没有数据"当成"没有节假日"
+                    if (days.isEmpty()) return false
+                    
+                    holidayDao.replaceYear(
+                        HolidayYear(
+                            year = year,
+                            etag = connection.getHeaderField("ETag"),
+                            lastModified = connection.getHeaderField("Last-Modified")
+                        ),
+                        days
+                    )
+                    Log.d(TAG, "Stored ${days.size} holiday entries for $year")
+                    return true
+                }
+                else -> {
+                    Log.e(TAG, "Holiday API returned ${connection.responseCode} for $year")
+                    return false
+                }
             }
-        } catch (e: Exception) {
-            Log.e(TAG, "Failed to fetch holiday info for $dateStr: ${e.message}")
-            null
+        } finally {
+            connection.disconnect()
         }
     }
     
     /**
-     * 解析节假日 API 响应
+     * 解析节假日 API 的年度响应
+     * holiday 字段中每一项是一个放假日（holiday=true）或调休上班日（holiday=false）
      */
-    private fun parseHolidayResponse(response: String): HolidayInfo? {
+    private fun parseHolidayYear(response: String, year: Int): List<HolidayDay>? {
         return try {
             val json = JSONObject(response)
             if (json.getInt("code") != 0) {
                 return null
             }
             
-            val type = json.getJSONObject("type")
-            val typeCode = type.getInt("type")
-            val name: String? = if (type.has("name") && !type.isNull("name")) type.getString("name") else null
-            
-            // type: 0=工作日, 1=周末, 2=节假日, 3=调休工作日
-            HolidayInfo(
-                isHoliday = typeCode == 1 || typeCode == 2,
-                isWorkday = typeCode == 0 || typeCode == 3,
-                name = name
-            )
+            val holiday = json.optJSONObject("holiday") ?: return emptyList()
+            val days = ArrayList<HolidayDay>(holiday.length())
+            val keys = holiday.keys()
+            while (keys.hasNext()) {
+                val entry = holiday.getJSONObject(keys.next())
+                val date = LocalDate.parse(entry.getString("date"))
+                if (date.year != year) continue
+                days.add(
+                    HolidayDay(
+                        epochDay = date.toEpochDay(),
+                        year = year,
+                        isHoliday = entry.getBoolean("holiday"),
+                        name = if (entry.isNull("name")) null else entry.optString("name")
+                    )
+                )
+            }
+            days
         } catch (e: Exception) {
             Log.e(TAG, "Failed to parse holiday response: ${e.message}")
             null
@@ -129,9 +246,45 @@ object HolidayChecker {
     }
     
     /**
-     * 清除缓存
+     * 从数据库重建跳过位图：已有数据的年份中，周末和放假日跳过，调休上班日不跳过
+     */
+    private suspend fun reloadFromDatabase(context: Context) {
+        val holidayDao = AppDatabase.getDatabase(context).holidayDao()
+        val years = holidayDao.getYears()
+        val days = holidayDao.getAllDays()
+        
+        val bits = BitSet()
+        val covered = BitSet()
+        for (holidayYear in years) {
+            val firstDay = LocalDate.of(holidayYear.year, 1, 1).toEpochDay()
+            val length = Year.of(holidayYear.year).length()
+            for (epochDay in firstDay until firstDay + length) {
+                setBit(covered, epochDay, true)
+                val weekday = NextTriggerCalculator.dayOfWeekIndex(epochDay)
+                if (weekday == 0 || weekday == 6) setBit(bits, epochDay, true)
+            }
+        }
+        for (day in days) {
+            setBit(bits, day.epochDay, day.isHoliday)
+        }
+        
+        snapshot = Snapshot(bits, covered)
+        _revision.value++
+        Log.d(TAG, "Loaded holidays for ${years.size} year(s), ${days.size} entries")
+    }
+    
+    private fun setBit(bits: BitSet, epochDay: Long, value: Boolean) {
+        val index = epochDay - BASE_EPOCH_DAY
+        if (index < 0 || index > Int.MAX_VALUE) return
+        bits.set(index.toInt(), value)
+    }
+    
+    /**
+     * 清除内存中的数据（下次使用时重新从数据库载入）
      */
     fun clearCache() {
-        holidayCache.clear()
+        snapshot = Snapshot(BitSet(), BitSet())
+        loaded = false
+        _revision.value++
     }
 }
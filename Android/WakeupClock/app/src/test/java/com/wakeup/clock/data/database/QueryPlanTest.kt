@@ -0,0 +1,323 @@
+package com.wakeup.clock.data.database
+
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import com.wakeup.clock.data.model.AlarmModel
+import com.wakeup.clock.data.model.AppSettings
+import com.wakeup.clock.data.model.BootMetrics
+import com.wakeup.clock.data.model.FireLatency
+import com.wakeup.clock.data.model.HolidayDay
+import com.wakeup.clock.data.model.HolidayYear
+import com.wakeup.clock.data.model.ScheduledAlarm
+import com.wakeup.clock.data.model.WakeUpRecord
+import com.wakeup.clock.data.model.WakeUpStatsMeta
+import com.wakeup.clock.data.model.WakeUpStreak
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.time.LocalDate
+import java.time.Year
+import java.util.Collections
+import java.util.concurrent.Executor
+
+/**
+ * 每个 DAO 查询的 EXPLAIN QUERY PLAN
+ *
+ * 先给每张表写入超过阈值的数据，再逐个调用 DAO 方法，用 QueryCallback 捕获实际执行的 SQL 和参数，
+ * 对每条语句执行 EXPLAIN QUERY PLAN：不允许出现没有 USING INDEX / USING COVERING INDEX 的 SCAN。
+ * 设计上就要读取整张表的调用（清空表、读取整张小表、导出）需显式列出允许扫描的表。
+ * 不执行 ANALYZE，与设备上没有统计信息时的查询计划一致
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [35])
+class QueryPlanTest {
+    
+    companion object {
+        private const val ALARM_COUNT = 300
+        private const val RECORD_DAYS = 2_000
+        private const val RECORDS_PER_DAY = 2
+        private const val FIRST_DAY = 18_000L
+        private const val HOLIDAY_YEARS = 10
+        private const val FIRE_LATENCY_COUNT = 500
+        private const val BOOT_METRICS_COUNT = 200
+        
+        /** SCAN 行：旧版 SQLite 输出 "SCAN TABLE x"，新版输出 "SCAN x" */
+        private val SCAN = Regex("""^SCAN (?:TABLE )?(\w+)""")
+        
+        private val PLANNED = Regex("""^\s*(SELECT|UPDATE|DELETE|INSERT|REPLACE|WITH)\b""", RegexOption.IGNORE_CASE)
+    }
+    
+    private lateinit var db: AppDatabase
+    
+    /** 应用自己的表（不含 Room 和 SQLite 的内部表） */
+    private lateinit var tables: Set<String>
+    
+    @Volatile
+    private var capturing = false
+    
+    private val captured = Collections.synchronizedList(ArrayList<Pair<String, List<Any?>>>())
+    
+    private val violations = ArrayList<String>()
+    
+    @Before
+    fun setUp() {
+        db = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase::class.java)
+            .setQueryCallback(
+                RoomDatabase.QueryCallback { sql, args -> if (capturing) captured += sql to args.toList() },
+                Executor { it.run() }
+            )
+            .allowMainThreadQueries()
+            .build()
+        
+        tables = db.openHelper.writableDatabase.query(
+            "SELECT name FROM sqlite_master WHERE type = 'table' " +
+                "AND name NOT LIKE 'sqlite_%' AND name NOT LIKE 'room_%' AND name != 'android_metadata'"
+        ).use { cursor ->
+            buildSet { while (cursor.moveToNext()) add(cursor.getString(0)) }
+        }
+        seed()
+    }
+    
+    @After
+    fun tearDown() {
+        db.close()
+    }
+    
+    @Test
+    fun alarmDaoQueriesUseIndexes() {
+        val dao = db.alarmDao()
+        val ids = listOf("alarm-1", "alarm-2", "alarm-3")
+        val alarm = AlarmModel(id = "alarm-1", minuteOfDay = 420)
+        
+        check("getAllAlarms") { dao.getAllAlarms().first() }
+        check("getEnabledAlarms") { dao.getEnabledAlarms().first() }
+        check("getEnabledAlarmsOnce") { dao.getEnabledAlarmsOnce() }
+        check("getAlarmById") { dao.getAlarmById("alarm-1") }
+        // 导出备份按创建顺序读取全部闹钟
+        check("getAllAlarmsCursor", "alarms") { dao.getAllAlarmsCursor().close() }
+        check("insertAlarm") { dao.insertAlarm(alarm) }
+        check("updateAlarm") { dao.updateAlarm(alarm) }
+        check("setAlarmEnabled") { dao.setAlarmEnabled("alarm-1", false) }
+        check("setAlarmsEnabled") { dao.setAlarmsEnabled(ids, true) }
+        // 按标签批量开关，闹钟表只有几十行，不为标签单独建索引
+        check("setEnabledByLabel", "alarms") { dao.setEnabledByLabel("work", true) }
+        check("shiftAlarms") { dao.shiftAlarms(ids, 0) }
+        check("shiftAllAlarms", "alarms") { dao.shiftAllAlarms(0) }
+        check("getAlarmsByIds") { dao.getAlarmsByIds(ids) }
+        check("duplicateAlarms") { dao.duplicateAlarms(ids, 0x3E) }
+        check("deleteAlarmsByIds") { dao.deleteAlarmsByIds(listOf("alarm-2")) }
+        check("deleteAlarmById") { dao.deleteAlarmById("alarm-3") }
+        check("deleteAlarm") { dao.deleteAlarm(alarm) }
+        check("deleteAllAlarms", "alarms") { dao.deleteAllAlarms() }
+        
+        assertNoUnindexedScans()
+    }
+    
+    @Test
+    fun wakeUpRecordDaoQueriesUseIndexes() {
+        val dao = db.wakeUpRecordDao()
+        val lastDay = FIRST_DAY + RECORD_DAYS - 1
+        val pivot = record(FIRST_DAY + RECORD_DAYS / 2, 0)
+        
+        check("getHistoryFirstPage") { dao.getHistoryFirstPage(20) }
+        check("getHistoryOlderThan") { dao.getHistoryOlderThan(pivot.timestamp, pivot.id, 20) }
+        check("getHistoryNewerThan") { dao.getHistoryNewerThan(pivot.timestamp, pivot.id, 20) }
+        check("countNotOlderThan") { dao.countNotOlderThan(pivot.timestamp, pivot.id) }
+        check("getRecordsInRange") { dao.getRecordsInRange(lastDay - 41, lastDay).first() }
+        check("getDailyCounts") { dao.getDailyCounts(lastDay - 364, lastDay).first() }
+        check("getAllRecordsCursor") { dao.getAllRecordsCursor().close() }
+        check("getRecordByDay") { dao.getRecordByDay(lastDay) }
+        check("getRecordById") { dao.getRecordById(pivot.id) }
+        check("getTotalCount") { dao.getTotalCount().first() }
+        check("getTotalCountOnce") { dao.getTotalCountOnce() }
+        check("countByDay") { dao.countByDay(lastDay) }
+        check("getDistinctDays") { dao.getDistinctDays() }
+        check("getStreak") { dao.getStreak() }
+        check("observeStreak") { dao.observeStreak().first() }
+        check("upsertStreak") { dao.upsertStreak(WakeUpStreak()) }
+        check("insertRecord") { dao.insertRecord(record(lastDay + 1, 0)) }
+        check("deleteRecord") { dao.deleteRecord(record(lastDay + 1, 0)) }
+        check("refreshStreak") { dao.refreshStreak() }
+        // 清空只有一行的统计水位表
+        check("insertRecords", "wakeup_stats_meta") { dao.insertRecords(listOf(record(lastDay + 2, 0))) }
+        check("deleteRecordRow") { dao.deleteRecordRow(pivot) }
+        check("deleteAllRecords", "wakeup_records", "wakeup_streak") { dao.deleteAllRecords() }
+        
+        assertNoUnindexedScans()
+    }
+    
+    @Test
+    fun wakeUpStatsDaoQueriesUseIndexes() {
+        val dao = db.wakeUpStatsDao()
+        val after = record(FIRST_DAY + RECORD_DAYS - 30, 0).timestamp
+        
+        check("aggregateOverall") { dao.aggregateOverall(after) }
+        check("aggregateByWeekday") { dao.aggregateByWeekday(after) }
+        check("aggregateByLabel") { dao.aggregateByLabel(after) }
+        check("aggregateByMonth") { dao.aggregateByMonth(after) }
+        check("aggregateHistogram") { dao.aggregateHistogram(after) }
+        check("getLatestTimestamp") { dao.getLatestTimestamp() }
+        check("getRecordCount") { dao.getRecordCount() }
+        check("countNewerThan") { dao.countNewerThan(after) }
+        check("getMeta") { dao.getMeta() }
+        check("upsertMeta") { dao.upsertMeta(WakeUpStatsMeta(watermark = after, recordCount = 0)) }
+        // 统计缓存表只有几十个分桶，整表读取
+        check("refreshAndGet", "wakeup_stats") { dao.refreshAndGet() }
+        check("getStats", "wakeup_stats") { dao.getStats() }
+        check("deleteStats", "wakeup_stats") { dao.deleteStats() }
+        
+        assertNoUnindexedScans()
+    }
+    
+    @Test
+    fun otherDaoQueriesUseIndexes() {
+        val settingsDao = db.appSettingsDao()
+        check("getSettings") { settingsDao.getSettings().first() }
+        check("getSettingsOnce") { settingsDao.getSettingsOnce() }
+        check("updateSettings") { settingsDao.updateSettings(AppSettings(language = "en")) }
+        check("deleteSettings", "app_settings") { settingsDao.deleteSettings() }
+        
+        // 对账时读取全部已注册闹钟
+        val scheduledDao = db.scheduledAlarmDao()
+        check("scheduled.getAll", "scheduled_alarms") { scheduledDao.getAll() }
+        check("scheduled.upsert") { scheduledDao.upsert(listOf(ScheduledAlarm("alarm-1", 0L, 10_000, 0))) }
+        check("scheduled.deleteByIds") { scheduledDao.deleteByIds(listOf("alarm-1", "alarm-2")) }
+        check("scheduled.deleteAll", "scheduled_alarms") { scheduledDao.deleteAll() }
+        
+        // boot_metrics 按自增主键（rowid）倒序只读前几行；清理时保留条数有上限
+        val bootDao = db.bootMetricsDao()
+        check("boot.getRecent", "boot_metrics") { bootDao.getRecent(10) }
+        check("boot.getLatest", "boot_metrics") { bootDao.getLatest() }
+        check("boot.prune", "boot_metrics") { bootDao.prune(50) }
+        
+        val latencyDao = db.fireLatencyDao()
+        check("latency.getRecent") { latencyDao.getRecent(50) }
+        check("latency.upsert") { latencyDao.upsert(latency(0)) }
+        check("latency.prune", "fire_latency") { latencyDao.prune(100) }
+        
+        // 启动时把全部节假日载入内存快照
+        val holidayDao = db.holidayDao()
+        check("holiday.getAllDays", "holidays") { holidayDao.getAllDays() }
+        check("holiday.getYears", "holiday_years") { holidayDao.getYears() }
+        check("holiday.getYear") { holidayDao.getYear(2020) }
+        check("holiday.deleteDaysOfYear") { holidayDao.deleteDaysOfYear(2020) }
+        check("holiday.replaceYear") { holidayDao.replaceYear(HolidayYear(2021), holidays(2021)) }
+        
+        assertNoUnindexedScans()
+    }
+    
+    /**
+     * 执行一组 DAO 调用，对期间发出的每条语句执行 EXPLAIN QUERY PLAN
+     *
+     * @param fullScan 设计上就要读取整张表、允许出现 SCAN 的表名
+     */
+    private fun check(name: String, vararg fullScan: String, block: suspend () -> Unit) {
+        captured.clear()
+        capturing = true
+        try {
+            runBlocking { block() }
+        } finally {
+            capturing = false
+        }
+        
+        val statements = captured.toList().filter { (sql, _) -> PLANNED.containsMatchIn(sql) }
+        if (statements.isEmpty()) {
+            violations += "$name: 没有捕获到语句"
+        }
+        for ((sql, args) in statements) {
+            for (detail in explain(sql, args)) {
+                val table = SCAN.find(detail)?.groupValues?.get(1) ?: continue
+                if (table !in tables || table in fullScan) continue
+                if ("USING INDEX" in detail || "USING COVERING INDEX" in detail) continue
+                violations += "$name: $detail\n    $sql"
+            }
+        }
+    }
+    
+    private fun explain(sql: String, args: List<Any?>): List<String> =
+        db.openHelper.writableDatabase.query("EXPLAIN QUERY PLAN $sql", args.toTypedArray()).use { cursor ->
+            val detail = cursor.getColumnIndexOrThrow("detail")
+            buildList { while (cursor.moveToNext()) add(cursor.getString(detail)) }
+        }
+    
+    private fun assertNoUnindexedScans() {
+        assertTrue(violations.joinToString("\n"), violations.isEmpty())
+    }
+    
+    private fun seed() = runBlocking {
+        db.alarmDao().insertAlarms(
+            List(ALARM_COUNT) { i ->
+                AlarmModel(
+                    id = "alarm-$i",
+                    minuteOfDay = (i * 7) % 1440,
+                    enabled = i % 3 != 0,
+                    label = if (i % 2 == 0) "work" else "other",
+                    createdAt = i.toLong()
+                )
+            }
+        )
+        
+        val recordDao = db.wakeUpRecordDao()
+        (0 until RECORD_DAYS).chunked(200).forEach { days ->
+            recordDao.insertRecordRows(
+                days.flatMap { day -> List(RECORDS_PER_DAY) { record(FIRST_DAY + day, it) } }
+            )
+        }
+        recordDao.refreshStreak()
+        
+        db.appSettingsDao().insertSettings(AppSettings())
+        db.scheduledAlarmDao().upsert(
+            List(ALARM_COUNT) { ScheduledAlarm("alarm-$it", it * 60_000L, 10_000 + it, it) }
+        )
+        repeat(BOOT_METRICS_COUNT) {
+            db.bootMetricsDao().insert(
+                BootMetrics(
+                    bootTime = it.toLong(),
+                    receivedAtElapsed = 0L,
+                    armedAtElapsed = 0L,
+                    dbReadMs = 0L,
+                    computeMs = 0L,
+                    registerMs = 0L,
+                    alarmCount = 0,
+                    systemCalls = 0,
+                    timedOut = false
+                )
+            )
+        }
+        repeat(FIRE_LATENCY_COUNT) { db.fireLatencyDao().upsert(latency(it)) }
+        for (year in 2016 until 2016 + HOLIDAY_YEARS) {
+            db.holidayDao().replaceYear(HolidayYear(year), holidays(year))
+        }
+        db.wakeUpStatsDao().refreshAndGet()
+    }
+    
+    private fun record(epochDay: Long, index: Int) = WakeUpRecord(
+        id = "record-$epochDay-$index",
+        epochDay = epochDay,
+        minuteOfDay = 360 + index * 15,
+        alarmLabel = if (index == 0) "work" else null,
+        alarmId = "alarm-${epochDay % ALARM_COUNT}",
+        timestamp = epochDay * 86_400_000L + index * 60_000L
+    )
+    
+    private fun latency(index: Int) = FireLatency(
+        fireId = "fire-$index",
+        alarmId = "alarm-${index % ALARM_COUNT}",
+        isAntiSnooze = false,
+        scheduledTime = index * 60_000L,
+        receiverDelayMs = 0L,
+        receiverElapsed = 0L
+    )
+    
+    private fun holidays(year: Int): List<HolidayDay> {
+        val firstDay = LocalDate.of(year, 1, 1).toEpochDay()
+        return List(Year.of(year).length()) { HolidayDay(firstDay + it, year, isHoliday = it % 7 < 2) }
+    }
+}
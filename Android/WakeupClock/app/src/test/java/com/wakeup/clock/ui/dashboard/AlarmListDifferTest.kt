@@ -0,0 +1,115 @@
+package com.wakeup.clock.ui.dashboard
+
+import com.wakeup.clock.data.model.AlarmModel
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class AlarmListDifferTest {
+    
+    private val now = 1_000_000L
+    
+    /** 每个闹钟的触发时间计算次数 */
+    private val computed = HashMap<String, Int>()
+    
+    /** 假的触发时间：分钟数 + 偏移，可在用例中修改偏移模拟时钟或节假日变化 */
+    private var offset = 0L
+    
+    private val differ = AlarmListDiffer { alarm, nowMillis ->
+        computed[alarm.id] = (computed[alarm.id] ?: 0) + 1
+        nowMillis + alarm.minuteOfDay * 60_000L + offset
+    }
+    
+    private fun alarm(id: String, minuteOfDay: Int = 420, enabled: Boolean = true) =
+        AlarmModel(id = id, minuteOfDay = minuteOfDay, enabled = enabled, createdAt = 0L)
+    
+    @Test
+    fun firstListComputesEveryEnabledRowInOrder() {
+        val rows = differ.diff(listOf(alarm("a", 360), alarm("b", 420), alarm("c", 480)), now)
+        
+        assertEquals(listOf("a", "b", "c"), rows.map { it.id })
+        assertEquals(now + 360 * 60_000L, rows[0].nextTriggerTime)
+        assertEquals(mapOf("a" to 1, "b" to 1, "c" to 1), computed)
+    }
+    
+    @Test
+    fun unchangedAlarmsKeepTheirRowInstance() {
+        val first = differ.diff(listOf(alarm("a"), alarm("b")), now)
+        val second = differ.diff(listOf(alarm("a"), alarm("b")), now + 1)
+        
+        assertSame(first[0], second[0])
+        assertSame(first[1], second[1])
+        assertEquals(mapOf("a" to 1, "b" to 1), computed)
+    }
+    
+    @Test
+    fun toggleRebuildsOnlyTheToggledRow() {
+        val first = differ.diff(listOf(alarm("a"), alarm("b")), now)
+        val second = differ.diff(listOf(alarm("a", enabled = false), alarm("b")), now)
+        
+        assertNotSame(first[0], second[0])
+        assertNull(second[0].nextTriggerTime)
+        assertSame(first[1], second[1])
+        // 停用的闹钟不计算触发时间
+        assertEquals(mapOf("a" to 1, "b" to 1), computed)
+        
+        val third = differ.diff(listOf(alarm("a"), alarm("b")), now)
+        assertEquals(now + 420 * 60_000L, third[0].nextTriggerTime)
+        assertSame(first[1], third[1])
+        assertEquals(mapOf("a" to 2, "b" to 1), computed)
+    }
+    
+    @Test
+    fun insertedAndRemovedAlarms() {
+        val first = differ.diff(listOf(alarm("a"), alarm("b")), now)
+        val second = differ.diff(listOf(alarm("b"), alarm("c", 500)), now)
+        
+        assertEquals(listOf("b", "c"), second.map { it.id })
+        assertSame(first[1], second[0])
+        assertEquals(1, computed["c"])
+        
+        // 删除后再出现的闹钟没有缓存，重新计算
+        differ.diff(listOf(alarm("a"), alarm("b"), alarm("c", 500)), now)
+        assertEquals(2, computed["a"])
+    }
+    
+    @Test
+    fun passedTriggerTimeIsRecomputed() {
+        val first = differ.diff(listOf(alarm("a", 1), alarm("b", 600)), now)
+        val later = first[0].nextTriggerTime!!
+        
+        val second = differ.diff(listOf(alarm("a", 1), alarm("b", 600)), later)
+        
+        assertNotSame(first[0], second[0])
+        assertEquals(later + 60_000L, second[0].nextTriggerTime)
+        assertSame(first[1], second[1])
+        assertEquals(mapOf("a" to 2, "b" to 1), computed)
+    }
+    
+    @Test
+    fun calendarKeyChangeRecomputesEnabledRows() {
+        val alarms = listOf(alarm("a"), alarm("b", enabled = false))
+        val first = differ.diff(alarms, now, calendarKey = 1)
+        
+        // 相同的键不重新计算
+        assertSame(first[0], differ.diff(alarms, now, calendarKey = 1)[0])
+        assertEquals(1, computed["a"])
+        
+        // 键变化但结果不变：重新计算，仍沿用原实例
+        val unchanged = differ.diff(alarms, now, calendarKey = 2)
+        assertSame(first[0], unchanged[0])
+        assertEquals(2, computed["a"])
+        
+        // 节假日或时区变化使触发时间改变：生成新的行
+        offset = 24 * 60 * 60_000L
+        val moved = differ.diff(alarms, now, calendarKey = 3)
+        assertNotSame(first[0], moved[0])
+        assertEquals(first[0].nextTriggerTime!! + offset, moved[0].nextTriggerTime)
+        
+        // 停用的闹钟始终不计算
+        assertSame(first[1], moved[1])
+        assertNull(computed["b"])
+    }
+}
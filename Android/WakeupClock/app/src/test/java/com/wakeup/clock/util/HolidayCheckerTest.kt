@@ -0,0 +1,173 @@
+package com.wakeup.clock.util
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import com.wakeup.clock.data.database.AppDatabase
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.json.JSONObject
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.time.DayOfWeek
+import java.time.LocalDate
+import java.time.temporal.TemporalAdjusters
+
+/**
+ * 节假日数据的下载、条件请求、离线回退和持久化
+ *
+ * 节假日 API 替换为本地 MockWebServer；preloadHolidays 每次检查今年和明年两个年份
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [35])
+class HolidayCheckerTest {
+    
+    private val context: Context = ApplicationProvider.getApplicationContext()
+    
+    private val server = MockWebServer()
+    
+    private val thisYear = LocalDate.now().year
+    private val nextYear = thisYear + 1
+    
+    /** 接口中标为放假的工作日（明年三月第一个周三），打包数据中没有 */
+    private val extraHoliday = LocalDate.of(nextYear, 3, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.WEDNESDAY))
+    
+    /** 接口中标为调休上班的周六 */
+    private val workSaturday = LocalDate.of(nextYear, 3, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.SATURDAY))
+    
+    /** 同一年中没有特别安排的周六 */
+    private val plainSaturday = workSaturday.plusWeeks(1)
+    
+    @Before
+    fun setUp() {
+        AppDatabase.closeInstance()
+        context.deleteDatabase("wakeup_clock_database")
+        HolidayChecker.clearCache()
+        server.start()
+        HolidayChecker.apiBaseUrl = server.url("/api/holiday/year/").toString()
+    }
+    
+    @After
+    fun tearDown() {
+        server.shutdown()
+        AppDatabase.closeInstance()
+        HolidayChecker.clearCache()
+    }
+    
+    @Test
+    fun fetchesEachYearInOneRequest() = runBlocking {
+        server.enqueue(yearResponse(thisYear))
+        server.enqueue(yearResponse(nextYear))
+        val revision = HolidayChecker.revision.value
+        
+        assertTrue(HolidayChecker.preloadHolidays(context))
+        
+        assertEquals(2, server.requestCount)
+        assertEquals("/api/holiday/year/$thisYear", server.takeRequest().path)
+        assertEquals("/api/holiday/year/$nextYear", server.takeRequest().path)
+        assertTrue(HolidayChecker.revision.value > revision)
+        
+        assertTrue(HolidayChecker.shouldSkipEpochDay(extraHoliday.toEpochDay()))
+        assertFalse(HolidayChecker.shouldSkipEpochDay(workSaturday.toEpochDay()))
+        assertTrue(HolidayChecker.shouldSkipEpochDay(plainSaturday.toEpochDay()))
+        assertFalse(HolidayChecker.shouldSkipEpochDay(extraHoliday.plusDays(1).toEpochDay()))
+    }
+    
+    @Test
+    fun recentlyFetchedYearsAreNotRequestedAgain() = runBlocking {
+        server.enqueue(yearResponse(thisYear))
+        server.enqueue(yearResponse(nextYear))
+        HolidayChecker.preloadHolidays(context)
+        
+        assertFalse(HolidayChecker.preloadHolidays(context))
+        assertEquals(2, server.requestCount)
+    }
+    
+    @Test
+    fun notModifiedSendsValidatorsAndKeepsStoredData() = runBlocking {
+        server.enqueue(yearResponse(thisYear))
+        server.enqueue(yearResponse(nextYear))
+        HolidayChecker.preloadHolidays(context)
+        server.takeRequest()
+        server.takeRequest()
+        
+        server.enqueue(MockResponse().setResponseCode(304))
+        server.enqueue(MockResponse().setResponseCode(304))
+        val revision = HolidayChecker.revision.value
+        
+        assertFalse(HolidayChecker.preloadHolidays(context, forceRefresh = true))
+        
+        val request = server.takeRequest()
+        assertEquals("\"$thisYear-v1\"", request.getHeader("If-None-Match"))
+        assertEquals(LAST_MODIFIED, request.getHeader("If-Modified-Since"))
+        assertEquals("\"$nextYear-v1\"", server.takeRequest().getHeader("If-None-Match"))
+        assertEquals(revision, HolidayChecker.revision.value)
+        assertTrue(HolidayChecker.shouldSkipEpochDay(extraHoliday.toEpochDay()))
+    }
+    
+    @Test
+    fun networkFailureFallsBackToBundledAsset() = runBlocking {
+        server.shutdown()
+        
+        assertFalse(HolidayChecker.preloadHolidays(context))
+        
+        // 数据库中没有任何年份，按打包数据判断
+        assertNull(AppDatabase.getDatabase(context).holidayDao().getYear(thisYear))
+        assertTrue(HolidayChecker.shouldSkipEpochDay(LocalDate.of(2024, 10, 1).toEpochDay()))
+        assertFalse(HolidayChecker.shouldSkipEpochDay(LocalDate.of(2024, 9, 14).toEpochDay()))
+        assertFalse(HolidayChecker.shouldSkipEpochDay(LocalDate.of(2024, 10, 8).toEpochDay()))
+    }
+    
+    @Test
+    fun storedYearsSurviveProcessRestart() = runBlocking {
+        server.enqueue(yearResponse(thisYear))
+        server.enqueue(yearResponse(nextYear))
+        HolidayChecker.preloadHolidays(context)
+        server.shutdown()
+        
+        // 模拟进程重启：丢弃内存中的快照和数据库连接，网络不可用
+        AppDatabase.closeInstance()
+        HolidayChecker.clearCache()
+        assertFalse(HolidayChecker.shouldSkipEpochDay(extraHoliday.toEpochDay()))
+        
+        HolidayChecker.ensureLoaded(context)
+        
+        assertTrue(HolidayChecker.shouldSkipEpochDay(extraHoliday.toEpochDay()))
+        assertFalse(HolidayChecker.shouldSkipEpochDay(workSaturday.toEpochDay()))
+        assertEquals("\"$nextYear-v1\"", AppDatabase.getDatabase(context).holidayDao().getYear(nextYear)?.etag)
+    }
+    
+    /**
+     * 一整年的接口响应：今年只有元旦，明年另有一个放假的周三和一个调休上班的周六
+     */
+    private fun yearResponse(year: Int): MockResponse {
+        val holiday = JSONObject()
+        holiday.put("01-01", entry(LocalDate.of(year, 1, 1), true, "元旦"))
+        if (year == nextYear) {
+            holiday.put("extra", entry(extraHoliday, true, "测试"))
+            holiday.put("work", entry(workSaturday, false, "测试"))
+        }
+        val body = JSONObject().put("code", 0).put("holiday", holiday)
+        return MockResponse()
+            .setHeader("ETag", "\"$year-v1\"")
+            .setHeader("Last-Modified", LAST_MODIFIED)
+            .setBody(body.toString())
+    }
+    
+    private fun entry(date: LocalDate, isHoliday: Boolean, name: String) = JSONObject()
+        .put("holiday", isHoliday)
+        .put("name", name)
+        .put("date", date.toString())
+    
+    companion object {
+        private const val LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT"
+    }
+}
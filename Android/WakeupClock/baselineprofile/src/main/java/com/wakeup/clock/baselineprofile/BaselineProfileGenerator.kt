@@ -0,0 +1,93 @@
+package com.wakeup.clock.baselineprofile
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.UiDevice
+import androidx.test.uiautomator.Until
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.regex.Pattern
+
+/**
+ * 生成基线配置和启动配置，覆盖两条关键路径：
+ * - AlarmReceiver -> AlarmLockdownActivity -> 五种任务（进程被杀后响铃，对延迟最敏感）
+ * - MainActivity -> DashboardScreen
+ */
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+    
+    companion object {
+        private const val TARGET_PACKAGE = "com.wakeup.clock"
+        private const val UI_TIMEOUT_MS = 5_000L
+        
+        // 任务是随机选择的，多次响铃直到五种任务都出现过
+        private const val MISSION_COUNT = 5
+        private const val MAX_FIRE_ATTEMPTS = 40
+        
+        private val MISSION_PATTERN = Pattern.compile("mission_.*")
+    }
+    
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+    
+    private val device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation())
+    
+    @Before
+    fun seed() {
+        device.executeShellCommand("pm grant $TARGET_PACKAGE android.permission.POST_NOTIFICATIONS")
+        device.executeShellCommand("appops set $TARGET_PACKAGE SYSTEM_ALERT_WINDOW allow")
+        device.executeShellCommand("appops set $TARGET_PACKAGE SCHEDULE_EXACT_ALARM allow")
+        device.executeShellCommand(
+            "am broadcast -a com.wakeup.clock.benchmark.SEED " +
+                "-n $TARGET_PACKAGE/.benchmark.BenchmarkSeedReceiver " +
+                "--ei alarm_count 30 --ei record_days 60"
+        )
+        device.executeShellCommand("am force-stop $TARGET_PACKAGE")
+    }
+    
+    @Test
+    fun alarmFire() = baselineProfileRule.collect(
+        packageName = TARGET_PACKAGE,
+        includeInStartupProfile = true
+    ) {
+        val seen = mutableSetOf<String>()
+        var attempts = 0
+        while (seen.size < MISSION_COUNT && attempts++ < MAX_FIRE_ATTEMPTS) {
+            // 每次从被杀死的进程开始，与真实响铃一致，也让任务重新随机
+            killProcess()
+            device.executeShellCommand(
+                "am broadcast -a com.wakeup.clock.ALARM_TRIGGER " +
+                    "-n $TARGET_PACKAGE/.service.AlarmReceiver " +
+                    "--es alarm_id baseline --es alarm_label other --es alarm_time 07:00 " +
+                    "--ei alarm_difficulty 1 --el trigger_time ${System.currentTimeMillis()}"
+            )
+            val start = device.wait(Until.findObject(By.res("start_mission")), UI_TIMEOUT_MS) ?: continue
+            start.click()
+            val mission = device.wait(Until.findObject(By.res(MISSION_PATTERN)), UI_TIMEOUT_MS) ?: continue
+            mission.resourceName?.let { seen += it }
+            device.waitForIdle()
+        }
+        killProcess()
+    }
+    
+    @Test
+    fun dashboard() = baselineProfileRule.collect(
+        packageName = TARGET_PACKAGE,
+        includeInStartupProfile = true
+    ) {
+        pressHome()
+        startActivityAndWait()
+        
+        val list = device.wait(Until.findObject(By.res("alarm_list")), UI_TIMEOUT_MS) ?: return@collect
+        list.setGestureMargin(device.displayWidth / 5)
+        list.fling(Direction.DOWN)
+        device.waitForIdle()
+        list.fling(Direction.UP)
+        device.waitForIdle()
+    }
+}
@@ -0,0 +1,32 @@
+plugins {
+    alias(libs.plugins.kotlin.jvm)
+    alias(libs.plugins.jmh)
+}
+
+// 纯 JVM 模块：不依赖 Android，可以在电脑上直接跑单元测试和基准测试
+// 运行：./gradlew :core:test、./gradlew :core:jmh
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+kotlin {
+    jvmToolchain(17)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    // 只跑部分基准：./gradlew :core:jmh -PjmhIncludes=NextTrigger
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.set(listOf(it)) }
+}
+
+dependencies {
+    testImplementation(libs.junit)
+    
+    jmh(libs.jmh.core)
+    jmh(libs.jmh.generator.annprocess)
+}
@@ -0,0 +1,61 @@
+package com.wakeup.clock.core.benchmark
+
+import com.wakeup.clock.core.DateCodec
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.time.LocalDate
+import java.util.concurrent.TimeUnit
+
+/**
+ * 类型转换吞吐量：Room TypeConverter 和文本日期/时间字段的编解码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class CodecBenchmark {
+    
+    @Param("10", "1000", "100000")
+    var count: Int = 0
+    
+    private lateinit var dayLists: List<List<Int>>
+    private lateinit var encodedDayLists: List<String>
+    private lateinit var times: List<String>
+    private lateinit var dates: List<String>
+    
+    @Setup
+    fun setUp() {
+        dayLists = SyntheticData.dayLists(count)
+        encodedDayLists = dayLists.map { DateCodec.encodeIntList(it) }
+        val alarms = SyntheticData.alarms(count)
+        times = List(count) { DateCodec.formatMinuteOfDay(alarms.minuteOfDay[it]) }
+        val today = LocalDate.of(2025, 3, 3).toEpochDay()
+        dates = List(count) { DateCodec.formatEpochDay(today - it % 3650) }
+    }
+    
+    @Benchmark
+    fun encodeIntLists(blackhole: Blackhole) {
+        for (days in dayLists) blackhole.consume(DateCodec.encodeIntList(days))
+    }
+    
+    @Benchmark
+    fun decodeIntLists(blackhole: Blackhole) {
+        for (value in encodedDayLists) blackhole.consume(DateCodec.decodeIntList(value))
+    }
+    
+    @Benchmark
+    fun parseTimes(blackhole: Blackhole) {
+        for (time in times) blackhole.consume(DateCodec.parseMinuteOfDay(time))
+    }
+    
+    @Benchmark
+    fun parseDates(blackhole: Blackhole) {
+        for (date in dates) blackhole.consume(DateCodec.parseEpochDay(date))
+    }
+}
@@ -0,0 +1,72 @@
+package com.wakeup.clock.core.benchmark
+
+import com.wakeup.clock.core.HolidayMask
+import com.wakeup.clock.core.NextTriggerCalculator
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.time.LocalDate
+import java.time.ZoneId
+import java.util.concurrent.TimeUnit
+
+/**
+ * 下一次触发时间：对全部闹钟各计算一次（开机重新调度、对账时的热点）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class NextTriggerBenchmark {
+    
+    @Param("10", "1000", "100000")
+    var alarmCount: Int = 0
+    
+    private lateinit var alarms: SyntheticData.Alarms
+    private lateinit var holidays: HolidayMask
+    private val zone = ZoneId.of("Asia/Shanghai")
+    
+    @Setup
+    fun setUp() {
+        alarms = SyntheticData.alarms(alarmCount)
+        val today = LocalDate.of(2025, 1, 1).toEpochDay()
+        holidays = SyntheticData.holidays(today, 1)
+    }
+    
+    @Benchmark
+    fun nextTriggerForAll(blackhole: Blackhole) {
+        for (i in 0 until alarms.size) {
+            blackhole.consume(
+                NextTriggerCalculator.nextTriggerTime(
+                    minuteOfDay = alarms.minuteOfDay[i],
+                    weekMask = alarms.weekMaskOrNull(i),
+                    skipHolidays = alarms.skipHolidays[i],
+                    nowMillis = SyntheticData.NOW_MILLIS,
+                    zone = zone,
+                    holidays = holidays
+                )
+            )
+        }
+    }
+    
+    @Benchmark
+    fun earliestTrigger(): Long {
+        var earliest = Long.MAX_VALUE
+        for (i in 0 until alarms.size) {
+            val trigger = NextTriggerCalculator.nextTriggerTime(
+                minuteOfDay = alarms.minuteOfDay[i],
+                weekMask = alarms.weekMaskOrNull(i),
+                skipHolidays = alarms.skipHolidays[i],
+                nowMillis = SyntheticData.NOW_MILLIS,
+                zone = zone,
+                holidays = holidays
+            ) ?: continue
+            if (trigger < earliest) earliest = trigger
+        }
+        return earliest
+    }
+}
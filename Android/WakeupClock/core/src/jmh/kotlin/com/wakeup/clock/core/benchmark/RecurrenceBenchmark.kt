@@ -0,0 +1,91 @@
+package com.wakeup.clock.core.benchmark
+
+import com.wakeup.clock.core.HolidayMask
+import com.wakeup.clock.core.NextTriggerCalculator
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.time.LocalDate
+import java.time.ZoneId
+import java.util.concurrent.TimeUnit
+
+/**
+ * 重复规则展开：把每个闹钟展开成一段时间内的全部触发时间
+ * expandAll 为按周批量展开（RecurrenceExpander），nextTriggerLoop 为应用现有的做法：
+ * 从区间起点反复调用 NextTriggerCalculator.nextTriggerTime
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class RecurrenceBenchmark {
+    
+    @Param("10", "1000", "100000")
+    var alarmCount: Int = 0
+    
+    /** 展开的天数：一个月、一年 */
+    @Param("31", "366")
+    var days: Int = 0
+    
+    private lateinit var alarms: SyntheticData.Alarms
+    private lateinit var holidays: HolidayMask
+    private val zone = ZoneId.of("Asia/Shanghai")
+    private val fromEpochDay = LocalDate.of(2025, 1, 1).toEpochDay()
+    
+    private var fromMillis = 0L
+    private var untilMillis = 0L
+    
+    @Setup
+    fun setUp() {
+        alarms = SyntheticData.alarms(alarmCount)
+        holidays = SyntheticData.holidays(fromEpochDay, 2)
+        // 区间第一天 00:00 的闹钟也算在内
+        fromMillis = NextTriggerCalculator.triggerMillis(fromEpochDay, 0, zone) - 1
+        untilMillis = NextTriggerCalculator.triggerMillis(fromEpochDay + days, 0, zone)
+    }
+    
+    @Benchmark
+    fun expandAll(blackhole: Blackhole) {
+        for (i in 0 until alarms.size) {
+            blackhole.consume(
+                RecurrenceExpander.expand(
+                    minuteOfDay = alarms.minuteOfDay[i],
+                    weekMask = alarms.weekMaskOrNull(i),
+                    skipHolidays = alarms.skipHolidays[i],
+                    fromEpochDay = fromEpochDay,
+                    days = days,
+                    zone = zone,
+                    holidays = holidays
+                )
+            )
+        }
+    }
+    
+    @Benchmark
+    fun nextTriggerLoop(blackhole: Blackhole) {
+        for (i in 0 until alarms.size) {
+            val weekMask = alarms.weekMaskOrNull(i)
+            var now = fromMillis
+            while (true) {
+                val next = NextTriggerCalculator.nextTriggerTime(
+                    minuteOfDay = alarms.minuteOfDay[i],
+                    weekMask = weekMask,
+                    skipHolidays = alarms.skipHolidays[i],
+                    nowMillis = now,
+                    zone = zone,
+                    holidays = holidays
+                ) ?: break
+                if (next >= untilMillis) break
+                blackhole.consume(next)
+                // 只响一次的闹钟只取第一次
+                if (weekMask == null) break
+                now = next
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.wakeup.clock.core.benchmark
+
+import com.wakeup.clock.core.HolidayMask
+import com.wakeup.clock.core.NextTriggerCalculator
+import java.time.ZoneId
+
+/**
+ * 重复规则展开（基准测试夹具，应用中没有调用）
+ * 按周处理：每周一次掩码旋转 + 一次节假日位图查询，得到区间内所有触发时间；
+ * 与逐次调用 NextTriggerCalculator 的做法对比，评估批量展开是否值得引入应用
+ */
+object RecurrenceExpander {
+    
+    /**
+     * 展开 [fromEpochDay, fromEpochDay + days) 内的所有触发时间（升序）
+     *
+     * @param weekMask 星期掩码，null 表示只响一次（只取区间第一天）
+     */
+    fun expand(
+        minuteOfDay: Int,
+        weekMask: Int?,
+        skipHolidays: Boolean,
+        fromEpochDay: Long,
+        days: Int,
+        zone: ZoneId = ZoneId.systemDefault(),
+        holidays: HolidayMask = HolidayMask.NONE
+    ): LongArray {
+        if (days <= 0 || minuteOfDay !in 0 until NextTriggerCalculator.MINUTES_PER_DAY) return LongArray(0)
+        if (weekMask == null) {
+            return longArrayOf(NextTriggerCalculator.triggerMillis(fromEpochDay, minuteOfDay, zone))
+        }
+        val mask = weekMask and NextTriggerCalculator.ALL_DAYS_MASK
+        if (mask == 0) return LongArray(0)
+        
+        val result = LongArray(countDays(mask, fromEpochDay, days))
+        var size = 0
+        var weekStart = fromEpochDay
+        var remaining = days
+        while (remaining > 0) {
+            val span = minOf(remaining, NextTriggerCalculator.DAYS_PER_WEEK)
+            var candidates = NextTriggerCalculator.rotateMask(mask, NextTriggerCalculator.dayOfWeekIndex(weekStart)) and
+                ((1 shl span) - 1)
+            if (skipHolidays) {
+                candidates = candidates and holidays.skipBits(weekStart, span).inv()
+            }
+            while (candidates != 0) {
+                val offset = Integer.numberOfTrailingZeros(candidates)
+                result[size++] = NextTriggerCalculator.triggerMillis(weekStart + offset, minuteOfDay, zone)
+                candidates = candidates and (candidates - 1)
+            }
+            weekStart += span
+            remaining -= span
+        }
+        return if (size == result.size) result else result.copyOf(size)
+    }
+    
+    /**
+     * 不考虑节假日时区间内命中的天数，用于预分配结果数组
+     */
+    private fun countDays(mask: Int, fromEpochDay: Long, days: Int): Int {
+        val fullWeeks = days / NextTriggerCalculator.DAYS_PER_WEEK
+        val rest = days % NextTriggerCalculator.DAYS_PER_WEEK
+        val tailStart = fromEpochDay + fullWeeks.toLong() * NextTriggerCalculator.DAYS_PER_WEEK
+        val tail = NextTriggerCalculator.rotateMask(mask, NextTriggerCalculator.dayOfWeekIndex(tailStart)) and
+            ((1 shl rest) - 1)
+        return fullWeeks * Integer.bitCount(mask) + Integer.bitCount(tail)
+    }
+}
@@ -0,0 +1,53 @@
+package com.wakeup.clock.core.benchmark
+
+import com.wakeup.clock.core.DateCodec
+import com.wakeup.clock.core.StreakCalculator
+import com.wakeup.clock.core.StreakState
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.time.LocalDate
+import java.util.concurrent.TimeUnit
+
+/**
+ * 连续打卡天数：10 年记录，连续不断（最坏情况）和每周缺一次卡两种分布
+ * 对比全量扫描、重建物化状态和读取物化状态
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class StreakBenchmark {
+    
+    @Param("1", "10")
+    var years: Int = 0
+    
+    /** 每隔多少天缺一次卡，0 表示从不缺卡 */
+    @Param("0", "7")
+    var gapEveryDays: Int = 0
+    
+    private lateinit var dates: List<String>
+    private lateinit var daysAscending: LongArray
+    private lateinit var state: StreakState
+    private val today = LocalDate.of(2025, 3, 3).toEpochDay()
+    
+    @Setup
+    fun setUp() {
+        dates = SyntheticData.recordDates(today, years, gapEveryDays)
+        daysAscending = dates.map { DateCodec.parseEpochDay(it) }.sorted().toLongArray()
+        state = StreakCalculator.rebuild(daysAscending, daysAscending.size)
+    }
+    
+    @Benchmark
+    fun currentStreak(): Int = StreakCalculator.currentStreak(dates, today)
+    
+    @Benchmark
+    fun rebuildState(): StreakState = StreakCalculator.rebuild(daysAscending, daysAscending.size)
+    
+    @Benchmark
+    fun readState(): Int = StreakCalculator.currentStreak(state, today)
+}
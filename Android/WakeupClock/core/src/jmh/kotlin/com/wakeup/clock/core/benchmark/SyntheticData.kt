@@ -0,0 +1,104 @@
+package com.wakeup.clock.core.benchmark
+
+import com.wakeup.clock.core.DateCodec
+import com.wakeup.clock.core.HolidayMask
+import com.wakeup.clock.core.NextTriggerCalculator
+import java.util.BitSet
+import kotlin.random.Random
+
+/**
+ * 基准测试用的合成数据，固定随机种子保证每次运行数据一致
+ */
+object SyntheticData {
+    
+    private const val SEED = 20240101
+    
+    /** 基准时间：2025-03-03 08:30（UTC），周一 */
+    const val NOW_MILLIS = 1_740_990_600_000L
+    
+    /** 只响一次的闹钟在掩码数组中的标记 */
+    const val ONCE = -1
+    
+    /**
+     * 合成闹钟
+     * @property minuteOfDay 一天中的分钟数
+     * @property weekMask 星期掩码，ONCE 表示只响一次
+     * @property skipHolidays 是否跳过节假日
+     */
+    class Alarms(
+        val minuteOfDay: IntArray,
+        val weekMask: IntArray,
+        val skipHolidays: BooleanArray
+    ) {
+        val size: Int get() = minuteOfDay.size
+        
+        fun weekMaskOrNull(index: Int): Int? = weekMask[index].takeIf { it != ONCE }
+    }
+    
+    /**
+     * 生成 count 个闹钟：一次性、工作日、自定义各占一部分
+     */
+    fun alarms(count: Int): Alarms {
+        val random = Random(SEED)
+        val minuteOfDay = IntArray(count)
+        val weekMask = IntArray(count)
+        val skipHolidays = BooleanArray(count)
+        for (i in 0 until count) {
+            minuteOfDay[i] = random.nextInt(NextTriggerCalculator.MINUTES_PER_DAY)
+            weekMask[i] = when (random.nextInt(10)) {
+                0, 1 -> ONCE
+                2, 3, 4, 5 -> NextTriggerCalculator.WORKDAYS_MASK
+                else -> random.nextInt(1, NextTriggerCalculator.ALL_DAYS_MASK + 1)
+            }
+            skipHolidays[i] = random.nextInt(3) == 0
+        }
+        return Alarms(minuteOfDay, weekMask, skipHolidays)
+    }
+    
+    /**
+     * 生成 years 年的节假日位图，约 8% 的日期需要跳过
+     */
+    fun holidays(fromEpochDay: Long, years: Int): HolidayMask {
+        val random = Random(SEED + 1)
+        val days = years * 366
+        val skip = BitSet(days)
+        for (i in 0 until days) {
+            if (random.nextInt(100) < 8) skip.set(i)
+        }
+        return HolidayMask { startEpochDay, count ->
+            var bits = 0
+            for (k in 0 until count) {
+                val index = startEpochDay + k - fromEpochDay
+                if (index in 0 until days && skip.get(index.toInt())) bits = bits or (1 shl k)
+            }
+            bits
+        }
+    }
+    
+    /**
+     * 生成到 todayEpochDay 为止 years 年的打卡日期（降序，每天 1~2 条）
+     * @param gapEveryDays 每隔多少天缺一次卡，0 表示从不缺卡（连续天数最长）
+     */
+    fun recordDates(todayEpochDay: Long, years: Int, gapEveryDays: Int): List<String> {
+        val random = Random(SEED + 2)
+        val days = years * 365
+        val dates = ArrayList<String>(days * 2)
+        for (i in 0 until days) {
+            if (gapEveryDays > 0 && i > 0 && i % gapEveryDays == 0) continue
+            val date = DateCodec.formatEpochDay(todayEpochDay - i)
+            dates.add(date)
+            if (random.nextInt(4) == 0) dates.add(date)
+        }
+        return dates
+    }
+    
+    /**
+     * 生成 count 个自定义重复日期列表及其文本形式
+     */
+    fun dayLists(count: Int): List<List<Int>> {
+        val random = Random(SEED + 3)
+        return List(count) {
+            (0 until NextTriggerCalculator.DAYS_PER_WEEK).filter { random.nextBoolean() }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.wakeup.clock.core
+
+import java.time.LocalDate
+
+/**
+ * 日期、时间和列表的文本编解码
+ * 数据库中以文本保存的字段（"yyyy-MM-dd"、"HH:mm"、"1,2,3"）统一在这里转换
+ */
+object DateCodec {
+    
+    /** 无效日期 */
+    const val INVALID_DAY = Long.MIN_VALUE
+    
+    /** 无效时间 */
+    const val INVALID_MINUTE = -1
+    
+    /**
+     * "yyyy-MM-dd" -> 纪元日，格式不正确返回 INVALID_DAY
+     */
+    fun parseEpochDay(date: String): Long {
+        if (date.length != 10 || date[4] != '-' || date[7] != '-') return INVALID_DAY
+        val year = digits(date, 0, 4)
+        val month = digits(date, 5, 7)
+        val day = digits(date, 8, 10)
+        if (year < 0 || month !in 1..12 || day !in 1..31) return INVALID_DAY
+        return try {
+            LocalDate.of(year, month, day).toEpochDay()
+        } catch (e: Exception) {
+            INVALID_DAY
+        }
+    }
+    
+    /**
+     * 纪元日 -> "yyyy-MM-dd"
+     */
+    fun formatEpochDay(epochDay: Long): String = LocalDate.ofEpochDay(epochDay).toString()
+    
+    /**
+     * "HH:mm" -> 一天中的分钟数，格式不正确返回 INVALID_MINUTE
+     */
+    fun parseMinuteOfDay(time: String): Int {
+        val colon = time.indexOf(':')
+        if (colon <= 0 || colon == time.length - 1) return INVALID_MINUTE
+        val hour = digits(time, 0, colon)
+        val minute = digits(time, colon + 1, time.length)
+        if (hour !in 0..23 || minute !in 0..59) return INVALID_MINUTE
+        return hour * 60 + minute
+    }
+    
+    /**
+     * 一天中的分钟数 -> "HH:mm"
+     */
+    fun formatMinuteOfDay(minuteOfDay: Int): String {
+        val hour = minuteOfDay / 60
+        val minute = minuteOfDay % 60
+        return buildString(5) {
+            if (hour < 10) append('0')
+            append(hour)
+            append(':')
+            if (minute < 10) append('0')
+            append(minute)
+        }
+    }
+    
+    /**
+     * List<Int> -> "1,2,3"
+     */
+    fun encodeIntList(value: List<Int>): String = value.joinToString(",")
+    
+    /**
+     * "1,2,3" -> List<Int>，忽略无法解析的项
+     */
+    fun decodeIntList(value: String): List<Int> {
+        if (value.isEmpty()) return emptyList()
+        return value.split(",").mapNotNull { it.toIntOrNull() }
+    }
+    
+    /**
+     * 解析 [start, end) 范围内的十进制数字，含非数字字符返回 -1
+     */
+    private fun digits(text: String, start: Int, end: Int): Int {
+        if (end - start !in 1..9) return -1
+        var value = 0
+        for (i in start until end) {
+            val c = text[i]
+            if (c !in '0'..'9') return -1
+            value = value * 10 + (c - '0')
+        }
+        return value
+    }
+}
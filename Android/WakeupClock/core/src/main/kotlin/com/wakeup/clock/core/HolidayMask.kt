@@ -0,0 +1,15 @@
+package com.wakeup.clock.core
+
+/**
+ * 节假日位图来源
+ * 返回从 startEpochDay 开始连续 days 天中"应跳过"的日期位（bit k 表示 startEpochDay + k）
+ */
+fun interface HolidayMask {
+    
+    fun skipBits(startEpochDay: Long, days: Int): Int
+    
+    companion object {
+        /** 没有节假日数据时不跳过任何日期 */
+        val NONE = HolidayMask { _, _ -> 0 }
+    }
+}
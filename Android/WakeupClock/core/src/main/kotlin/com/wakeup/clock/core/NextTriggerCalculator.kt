@@ -0,0 +1,106 @@
+package com.wakeup.clock.core
+
+import java.time.Instant
+import java.time.LocalDate
+import java.time.ZoneId
+
+/**
+ * 下一次触发时间计算器
+ * 基于纪元日(epoch day)运算 + 7 位星期掩码 + 节假日位图，
+ * 每次查询只做常数次位运算，不再逐天构造 Calendar
+ *
+ * 星期掩码约定与 AlarmModel.dayMask 一致：bit0=周日, bit1=周一, ..., bit6=周六
+ */
+object NextTriggerCalculator {
+    
+    /** 一周天数 */
+    const val DAYS_PER_WEEK = 7
+    
+    /** 完整一周的掩码 */
+    const val ALL_DAYS_MASK = 0b1111111
+    
+    /** 工作日掩码（周一到周五） */
+    const val WORKDAYS_MASK = 0b0111110
+    
+    /** 一天的分钟数 */
+    const val MINUTES_PER_DAY = 24 * 60
+    
+    /** 1970-01-01 是周四 */
+    private const val EPOCH_DAY_WEEKDAY_OFFSET = 4
+    
+    /**
+     * 将自定义日期 (0=周日, 1=周一, ..., 6=周六) 转换为星期掩码，范围外的值忽略
+     */
+    fun maskOf(days: Iterable<Int>): Int {
+        var mask = 0
+        for (day in days) {
+            if (day in 0 until DAYS_PER_WEEK) mask = mask or (1 shl day)
+        }
+        return mask
+    }
+    
+    /**
+     * 纪元日对应的星期 (0=周日, 1=周一, ..., 6=周六)
+     */
+    fun dayOfWeekIndex(epochDay: Long): Int =
+        Math.floorMod(epochDay + EPOCH_DAY_WEEKDAY_OFFSET, DAYS_PER_WEEK.toLong()).toInt()
+    
+    /**
+     * 把星期掩码循环右移到以 startWeekday 为 bit0
+     */
+    fun rotateMask(mask: Int, startWeekday: Int): Int {
+        if (startWeekday == 0) return mask and ALL_DAYS_MASK
+        return ((mask ushr startWeekday) or (mask shl (DAYS_PER_WEEK - startWeekday))) and ALL_DAYS_MASK
+    }
+    
+    /**
+     * 计算下一次触发时间
+     *
+     * 与原 Calendar 实现保持一致的语义：
+     * - 今天的时间已过（含正好相等）则从明天开始找
+     * - 在起始日起的 7 天窗口内查找，跳过节假日的日期也占用窗口，窗口内找不到返回 null
+     * - 夏令时跳变缺失的时刻顺延到跳变之后，重叠时刻取第一次出现的那一刻
+     *   （原实现逐天 add 时会在夏令时切换周内漂移一小时，这里始终以目标日的墙上时间为准）
+     *
+     * @param minuteOfDay 一天中的分钟数 (0..1439)
+     * @param weekMask 星期掩码，null 表示只响一次
+     */
+    fun nextTriggerTime(
+        minuteOfDay: Int,
+        weekMask: Int?,
+        skipHolidays: Boolean,
+        nowMillis: Long,
+        zone: ZoneId = ZoneId.systemDefault(),
+        holidays: HolidayMask = HolidayMask.NONE
+    ): Long? {
+        if (minuteOfDay !in 0 until MINUTES_PER_DAY) return null
+        
+        val today = LocalDate.ofInstant(Instant.ofEpochMilli(nowMillis), zone).toEpochDay()
+        var startDay = today
+        if (triggerMillis(today, minuteOfDay, zone) <= nowMillis) {
+            startDay++
+        }
+        
+        if (weekMask == null) return triggerMillis(startDay, minuteOfDay, zone)
+        val mask = weekMask and ALL_DAYS_MASK
+        if (mask == 0) return null
+        
+        var candidates = rotateMask(mask, dayOfWeekIndex(startDay))
+        if (skipHolidays) {
+            candidates = candidates and holidays.skipBits(startDay, DAYS_PER_WEEK).inv()
+        }
+        if (candidates == 0) return null
+        
+        return triggerMillis(startDay + Integer.numberOfTrailingZeros(candidates), minuteOfDay, zone)
+    }
+    
+    /**
+     * 指定纪元日 + 分钟数对应的时间戳
+     */
+    fun triggerMillis(epochDay: Long, minuteOfDay: Int, zone: ZoneId): Long {
+        return LocalDate.ofEpochDay(epochDay)
+            .atTime(minuteOfDay / 60, minuteOfDay % 60)
+            .atZone(zone)
+            .toEpochSecond() * 1000L
+    }
+}
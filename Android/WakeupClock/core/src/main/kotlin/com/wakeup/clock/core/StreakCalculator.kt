@@ -0,0 +1,93 @@
+package com.wakeup.clock.core
+
+/**
+ * 连续打卡天数计算
+ * 只要某天有打卡记录就算一天；今天还没打卡时从昨天开始往前数
+ *
+ * 应用中连续状态以 StreakState 保存，打卡时增量更新，只有补打或删除记录时才全量重建
+ */
+object StreakCalculator {
+    
+    /**
+     * @param datesDescending 打卡日期 "yyyy-MM-dd"，按日期降序，可以重复
+     * @param todayEpochDay 今天的纪元日
+     */
+    fun currentStreak(datesDescending: List<String>, todayEpochDay: Long): Int {
+        val days = LongArray(datesDescending.size)
+        var size = 0
+        for (date in datesDescending) {
+            val day = DateCodec.parseEpochDay(date)
+            if (day != DateCodec.INVALID_DAY) days[size++] = day
+        }
+        return currentStreak(days, size, todayEpochDay)
+    }
+    
+    /**
+     * @param daysDescending 打卡纪元日，按降序排列，可以重复
+     * @param size 有效元素个数
+     */
+    fun currentStreak(daysDescending: LongArray, size: Int, todayEpochDay: Long): Int {
+        var hasToday = false
+        for (i in 0 until size) {
+            if (daysDescending[i] == todayEpochDay) {
+                hasToday = true
+                break
+            }
+            if (daysDescending[i] < todayEpochDay) break
+        }
+        
+        var expected = if (hasToday) todayEpochDay else todayEpochDay - 1
+        var streak = 0
+        var previous = DateCodec.INVALID_DAY
+        for (i in 0 until size) {
+            val day = daysDescending[i]
+            // 同一天可能有多条记录，只算一天
+            if (day == previous) continue
+            previous = day
+            if (day != expected) break
+            streak++
+            expected--
+        }
+        return streak
+    }
+    
+    /**
+     * 读取当前连续天数：最后一次打卡是今天或昨天时连续仍然有效
+     */
+    fun currentStreak(state: StreakState, todayEpochDay: Long): Int {
+        if (state.lastDay == DateCodec.INVALID_DAY) return 0
+        return if (state.lastDay == todayEpochDay || state.lastDay == todayEpochDay - 1) state.current else 0
+    }
+    
+    /**
+     * 新增一天打卡后的状态
+     * 补打更早的日期可能连接两段连续记录，无法增量计算，返回 null 表示需要重建
+     */
+    fun afterCheckIn(state: StreakState, day: Long): StreakState? {
+        if (state.lastDay == DateCodec.INVALID_DAY) return StreakState(1, day, maxOf(state.best, 1))
+        return when {
+            day == state.lastDay -> state
+            day == state.lastDay + 1 -> {
+                val current = state.current + 1
+                StreakState(current, day, maxOf(state.best, current))
+            }
+            day > state.lastDay -> StreakState(1, day, maxOf(state.best, 1))
+            else -> null
+        }
+    }
+    
+    /**
+     * 从全部打卡日重建状态
+     *
+     * @param daysAscending 打卡纪元日，按升序排列，可以重复
+     * @param size 有效元素个数
+     */
+    fun rebuild(daysAscending: LongArray, size: Int): StreakState {
+        var state = StreakState.EMPTY
+        for (i in 0 until size) {
+            // 升序输入只会走增量分支
+            state = afterCheckIn(state, daysAscending[i]) ?: state
+        }
+        return state
+    }
+}
@@ -0,0 +1,18 @@
+package com.wakeup.clock.core
+
+/**
+ * 连续打卡状态
+ *
+ * @property current 以 lastDay 结尾的连续打卡天数
+ * @property lastDay 最后一次打卡的纪元日，没有打卡记录时为 DateCodec.INVALID_DAY
+ * @property best 历史最长连续打卡天数
+ */
+data class StreakState(
+    val current: Int,
+    val lastDay: Long,
+    val best: Int
+) {
+    companion object {
+        val EMPTY = StreakState(current = 0, lastDay = DateCodec.INVALID_DAY, best = 0)
+    }
+}
@@ -0,0 +1,99 @@
+package com.wakeup.clock.core
+
+import java.time.LocalDate
+import java.util.Calendar
+import java.util.TimeZone
+
+/**
+ * 测试基准：原 AlarmScheduler.calculateNextTriggerTime 的 Calendar 逐天实现
+ *
+ * 逻辑原样保留，只把当前时间、时区和节假日判断（原来是 HolidayChecker.shouldSkipAlarm）改为参数
+ */
+internal object LegacyNextTrigger {
+    
+    enum class Repeat { ONCE, WORKDAYS, CUSTOM }
+    
+    fun calculateNextTriggerTime(
+        hour: Int,
+        minute: Int,
+        repeatMode: Repeat,
+        customDays: List<Int>,
+        skipHolidays: Boolean,
+        nowMillis: Long,
+        zone: TimeZone,
+        isHoliday: (epochDay: Long) -> Boolean
+    ): Long? {
+        val now = Calendar.getInstance(zone).apply { timeInMillis = nowMillis }
+        val alarmTime = Calendar.getInstance(zone).apply {
+            timeInMillis = nowMillis
+            set(Calendar.HOUR_OF_DAY, hour)
+            set(Calendar.MINUTE, minute)
+            set(Calendar.SECOND, 0)
+            set(Calendar.MILLISECOND, 0)
+        }
+        
+        // 如果今天的时间已过，从明天开始找
+        if (alarmTime.timeInMillis <= now.timeInMillis) {
+            alarmTime.add(Calendar.DAY_OF_MONTH, 1)
+        }
+        
+        // 根据重复模式找到下一个有效日期
+        when (repeatMode) {
+            Repeat.ONCE -> {
+                // 一次性闹钟，直接返回
+                return alarmTime.timeInMillis
+            }
+            
+            Repeat.WORKDAYS -> {
+                // 工作日：周一到周五
+                for (i in 0 until 7) {
+                    val dayOfWeek = alarmTime.get(Calendar.DAY_OF_WEEK)
+                    val isWorkday = dayOfWeek in Calendar.MONDAY..Calendar.FRIDAY
+                    
+                    if (isWorkday) {
+                        // 检查是否跳过节假日
+                        if (skipHolidays && isHoliday(epochDayOf(alarmTime))) {
+                            alarmTime.add(Calendar.DAY_OF_MONTH, 1)
+                            continue
+                        }
+                        return alarmTime.timeInMillis
+                    }
+                    alarmTime.add(Calendar.DAY_OF_MONTH, 1)
+                }
+            }
+            
+            Repeat.CUSTOM -> {
+                // 自定义日期
+                if (customDays.isEmpty()) return null
+                
+                for (i in 0 until 7) {
+                    val dayOfWeek = alarmTime.get(Calendar.DAY_OF_WEEK)
+                    // Calendar: 1=周日, 2=周一, ..., 7=周六
+                    // 我们的格式: 0=周日, 1=周一, ..., 6=周六
+                    val dayIndex = if (dayOfWeek == Calendar.SUNDAY) 0 else dayOfWeek - 1
+                    
+                    if (customDays.contains(dayIndex)) {
+                        // 检查是否跳过节假日
+                        if (skipHolidays && isHoliday(epochDayOf(alarmTime))) {
+                            alarmTime.add(Calendar.DAY_OF_MONTH, 1)
+                            continue
+                        }
+                        return alarmTime.timeInMillis
+                    }
+                    alarmTime.add(Calendar.DAY_OF_MONTH, 1)
+                }
+            }
+        }
+        
+        return null
+    }
+    
+    /**
+     * 原实现按默认时区把日期格式化为 "yyyy-MM-dd" 查节假日，这里等价地取日历字段
+     */
+    private fun epochDayOf(calendar: Calendar): Long = LocalDate.of(
+        calendar.get(Calendar.YEAR),
+        calendar.get(Calendar.MONTH) + 1,
+        calendar.get(Calendar.DAY_OF_MONTH)
+    ).toEpochDay()
+}
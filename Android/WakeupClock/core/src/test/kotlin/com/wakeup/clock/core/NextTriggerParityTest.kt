@@ -0,0 +1,313 @@
+package com.wakeup.clock.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.Duration
+import java.time.Instant
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.time.ZonedDateTime
+import java.util.TimeZone
+
+/**
+ * NextTriggerCalculator 与原 Calendar 逐天实现（LegacyNextTrigger）的一致性
+ *
+ * 查找窗口内没有时区跳变时两者必须完全一致。
+ * 窗口内有夏令时跳变时，新实现有意与原实现不同（见下方 DST 用例），
+ * 但选中的日期仍然一致，只有一天中的时刻按目标日的墙上时间重新解析
+ */
+class NextTriggerParityTest {
+    
+    private val shanghai = ZoneId.of("Asia/Shanghai")
+    private val newYork = ZoneId.of("America/New_York")
+    private val sydney = ZoneId.of("Australia/Sydney")
+    private val zones = listOf(shanghai, newYork, sydney)
+    
+    private val nows = listOf(
+        // 跨年
+        "2024-12-31T07:00", "2024-12-31T23:59", "2024-12-31T23:59:30", "2025-01-01T00:00", "2025-12-31T22:00",
+        // 闰日
+        "2024-02-28T08:00", "2024-02-29T06:59", "2024-02-29T23:30", "2025-02-28T12:00",
+        // 纽约夏令时开始（3 月 10 日 02:00 -> 03:00）和结束（11 月 3 日 02:00 -> 01:00）
+        "2024-03-09T12:00", "2024-03-10T00:30", "2024-03-10T03:30",
+        "2024-11-02T12:00", "2024-11-03T00:30", "2024-11-03T01:30", "2024-11-03T03:00",
+        // 悉尼夏令时开始（10 月 6 日 02:00 -> 03:00）和结束（4 月 7 日 03:00 -> 02:00）
+        "2024-10-05T12:00", "2024-10-06T01:00", "2024-04-06T12:00", "2024-04-07T02:30",
+        // 整周节假日之前
+        "2025-09-30T08:00"
+    ).map { LocalDateTime.parse(it) }
+    
+    private val minutes = listOf(0, 30, 90, 120, 150, 180, 420, 719, 1439)
+    
+    private val holidays: Set<Long> = (
+        listOf("2024-12-31", "2025-01-01", "2026-01-01", "2024-02-29", "2024-03-01", "2025-03-03") +
+            (1..8).map { "2025-10-0$it" }
+        ).map { LocalDate.parse(it).toEpochDay() }.toSet()
+    
+    private val holidayMask = HolidayMask { start, days ->
+        var bits = 0
+        for (k in 0 until days) {
+            if (start + k in holidays) bits = bits or (1 shl k)
+        }
+        bits
+    }
+    
+    /**
+     * 一组输入及两种实现的结果
+     */
+    private class Case(
+        val zone: ZoneId,
+        val nowMillis: Long,
+        val minuteOfDay: Int,
+        val weekMask: Int?,
+        val repeat: LegacyNextTrigger.Repeat,
+        val skipHolidays: Boolean,
+        val legacy: Long?,
+        val actual: Long?
+    ) {
+        override fun toString(): String =
+            "zone=$zone now=${format(nowMillis)} minute=$minuteOfDay mask=$weekMask repeat=$repeat " +
+                "skip=$skipHolidays legacy=${legacy?.let(::format)} actual=${actual?.let(::format)}"
+        
+        private fun format(millis: Long) = Instant.ofEpochMilli(millis).atZone(zone).toString()
+    }
+    
+    /**
+     * 所有时区、当前时间、闹钟时间、重复方式（只响一次、工作日、全部 128 种自定义掩码）和是否跳过节假日的组合
+     */
+    private fun allCases(): List<Case> {
+        val cases = ArrayList<Case>()
+        for (zone in zones) for (local in nows) {
+            val nowMillis = local.atZone(zone).toInstant().toEpochMilli()
+            // 额外加上与当前时刻相同的闹钟时间（"正好相等" 视为已过）
+            for (minute in minutes + (local.hour * 60 + local.minute)) {
+                for (skip in listOf(false, true)) {
+                    cases += case(zone, nowMillis, minute, null, LegacyNextTrigger.Repeat.ONCE, skip)
+                    cases += case(
+                        zone, nowMillis, minute, NextTriggerCalculator.WORKDAYS_MASK,
+                        LegacyNextTrigger.Repeat.WORKDAYS, skip
+                    )
+                    for (mask in 0..NextTriggerCalculator.ALL_DAYS_MASK) {
+                        cases += case(zone, nowMillis, minute, mask, LegacyNextTrigger.Repeat.CUSTOM, skip)
+                    }
+                }
+            }
+        }
+        return cases
+    }
+    
+    private fun case(
+        zone: ZoneId,
+        nowMillis: Long,
+        minute: Int,
+        weekMask: Int?,
+        repeat: LegacyNextTrigger.Repeat,
+        skip: Boolean
+    ): Case {
+        val customDays = (0..6).filter { weekMask != null && (weekMask shr it) and 1 != 0 }
+        val legacy = LegacyNextTrigger.calculateNextTriggerTime(
+            hour = minute / 60,
+            minute = minute % 60,
+            repeatMode = repeat,
+            customDays = customDays,
+            skipHolidays = skip,
+            nowMillis = nowMillis,
+            zone = TimeZone.getTimeZone(zone)
+        ) { it in holidays }
+        val actual = NextTriggerCalculator.nextTriggerTime(
+            minuteOfDay = minute,
+            weekMask = weekMask,
+            skipHolidays = skip,
+            nowMillis = nowMillis,
+            zone = zone,
+            holidays = holidayMask
+        )
+        return Case(zone, nowMillis, minute, weekMask, repeat, skip, legacy, actual)
+    }
+    
+    /**
+     * 原实现从今天的闹钟时刻开始，最多向后查到 8 天后；
+     * 这段时间内没有时区跳变时结果不受夏令时影响
+     */
+    private fun windowHasTransition(case: Case): Boolean {
+        val now = Instant.ofEpochMilli(case.nowMillis)
+        val rules = case.zone.rules
+        val previous = rules.previousTransition(now)
+        if (previous != null && previous.instant.isAfter(now.minus(Duration.ofDays(1)))) return true
+        val next = rules.nextTransition(now) ?: return false
+        return next.instant.isBefore(now.plus(Duration.ofDays(9)))
+    }
+    
+    private fun localDateOf(millis: Long, zone: ZoneId): LocalDate =
+        Instant.ofEpochMilli(millis).atZone(zone).toLocalDate()
+    
+    @Test
+    fun matchesLegacyWhenNoTransitionInWindow() {
+        val cases = allCases().filterNot(::windowHasTransition)
+        assertTrue(cases.size > 10_000)
+        cases.forEach { case -> assertEquals(case.toString(), case.legacy, case.actual) }
+    }
+    
+    @Test
+    fun picksSameDayAsLegacyAcrossTransitions() {
+        val cases = allCases().filter(::windowHasTransition)
+        assertTrue(cases.isNotEmpty())
+        cases.forEach { case ->
+            if (case.legacy == null || case.actual == null) {
+                assertEquals(case.toString(), case.legacy, case.actual)
+                return@forEach
+            }
+            val legacyDay = localDateOf(case.legacy, case.zone)
+            val actualDay = localDateOf(case.actual, case.zone)
+            if (legacyDay == actualDay) return@forEach
+            
+            // 唯一允许的日期差异：当前时刻处在回拨重复的那一小时的第一遍，闹钟时间也在这一小时内且不晚于当前。
+            // 原实现把今天的闹钟解析为第二遍（标准时间）而再响一次，新实现认为今天已响过，顺延到下一个有效日
+            val today = localDateOf(case.nowMillis, case.zone)
+            val wallTime = today.atTime(case.minuteOfDay / 60, case.minuteOfDay % 60)
+            assertEquals(case.toString(), today, legacyDay)
+            assertEquals(case.toString(), 2, case.zone.rules.getValidOffsets(wallTime).size)
+            assertTrue(case.toString(), actualDay.isAfter(legacyDay))
+        }
+    }
+    
+    @Test
+    fun everyCaseTriggersAtRequestedWallTime() {
+        allCases().forEach { case ->
+            val actual = case.actual ?: return@forEach
+            val day = localDateOf(actual, case.zone)
+            val expected = ZonedDateTime.of(
+                day.atTime(case.minuteOfDay / 60, case.minuteOfDay % 60),
+                case.zone
+            ).toInstant().toEpochMilli()
+            assertEquals(case.toString(), expected, actual)
+            assertTrue(case.toString(), actual > case.nowMillis)
+        }
+    }
+    
+    // ========== 跨年与闰日 ==========
+    
+    @Test
+    fun yearBoundaryRollsToJanuaryFirst() {
+        val now = millis("2024-12-31T23:59:30", shanghai)
+        val actual = NextTriggerCalculator.nextTriggerTime(0, null, false, now, shanghai)
+        assertEquals(millis("2025-01-01T00:00", shanghai), actual)
+    }
+    
+    @Test
+    fun yearBoundarySkipsNewYearHoliday() {
+        // 2024-12-31 是周二，闹钟时间已过；元旦（周三）放假，下一次是 1 月 2 日
+        val now = millis("2024-12-31T08:00", shanghai)
+        val actual = NextTriggerCalculator.nextTriggerTime(
+            420, NextTriggerCalculator.WORKDAYS_MASK, true, now, shanghai, holidayMask
+        )
+        assertEquals(millis("2025-01-02T07:00", shanghai), actual)
+    }
+    
+    @Test
+    fun leapDayIsAValidTriggerDay() {
+        // 2024-02-29 是周四
+        val now = millis("2024-02-28T08:00", shanghai)
+        val thursdayAndSaturday = (1 shl 4) or (1 shl 6)
+        assertEquals(
+            millis("2024-02-29T07:00", shanghai),
+            NextTriggerCalculator.nextTriggerTime(420, thursdayAndSaturday, false, now, shanghai)
+        )
+        // 跳过节假日时顺延到周六 3 月 2 日
+        assertEquals(
+            millis("2024-03-02T07:00", shanghai),
+            NextTriggerCalculator.nextTriggerTime(420, thursdayAndSaturday, true, now, shanghai, holidayMask)
+        )
+    }
+    
+    @Test
+    fun holidaysCoveringTheWholeWindowReturnNull() {
+        // 10 月 1 日到 8 日全部放假，与原实现一样只查 7 天
+        val now = millis("2025-09-30T08:00", shanghai)
+        assertNull(
+            NextTriggerCalculator.nextTriggerTime(
+                420, NextTriggerCalculator.ALL_DAYS_MASK, true, now, shanghai, holidayMask
+            )
+        )
+    }
+    
+    // ========== 夏令时：有意与原实现不同的行为 ==========
+    
+    @Test
+    fun springForwardGapMovesForward() {
+        // 3 月 10 日 02:00 不存在。原实现回落到跳变前的 01:00 EST（提前一小时），新实现顺延到 03:00 EDT
+        val now = millis("2024-03-09T12:00", newYork)
+        assertEquals(millis("2024-03-10T01:00", newYork), legacy(120, null, now, newYork))
+        assertEquals(
+            ZonedDateTime.parse("2024-03-10T03:00-04:00[America/New_York]").toInstant().toEpochMilli(),
+            NextTriggerCalculator.nextTriggerTime(120, null, false, now, newYork)
+        )
+    }
+    
+    @Test
+    fun springForwardDoesNotDriftOnFollowingDays() {
+        // 原实现在跳变日规范化出的 01:00 会沿用到之后几天，周一的闹钟在 01:00 响；新实现仍是 02:00
+        val now = millis("2024-03-09T12:00", newYork)
+        val monday = 1 shl 1
+        assertEquals(millis("2024-03-11T01:00", newYork), legacy(120, monday, now, newYork))
+        assertEquals(
+            millis("2024-03-11T02:00", newYork),
+            NextTriggerCalculator.nextTriggerTime(120, monday, false, now, newYork)
+        )
+    }
+    
+    @Test
+    fun fallBackOverlapUsesFirstOccurrence() {
+        // 11 月 3 日 01:30 出现两次。原实现取第二次（EST），新实现取第一次（EDT）
+        val now = millis("2024-11-03T00:30", newYork)
+        assertEquals(
+            ZonedDateTime.parse("2024-11-03T01:30-05:00[America/New_York]").toInstant().toEpochMilli(),
+            legacy(90, null, now, newYork)
+        )
+        assertEquals(
+            ZonedDateTime.parse("2024-11-03T01:30-04:00[America/New_York]").toInstant().toEpochMilli(),
+            NextTriggerCalculator.nextTriggerTime(90, null, false, now, newYork)
+        )
+    }
+    
+    @Test
+    fun fallBackRepeatedHourDoesNotFireTwice() {
+        // 当前是第一次 01:30（EDT）：原实现还会在一小时后的第二次 01:30 再响，新实现顺延到明天
+        val now = ZonedDateTime.parse("2024-11-03T01:30-04:00[America/New_York]").toInstant().toEpochMilli()
+        assertEquals(
+            ZonedDateTime.parse("2024-11-03T01:30-05:00[America/New_York]").toInstant().toEpochMilli(),
+            legacy(90, null, now, newYork)
+        )
+        assertEquals(
+            millis("2024-11-04T01:30", newYork),
+            NextTriggerCalculator.nextTriggerTime(90, null, false, now, newYork)
+        )
+    }
+    
+    @Test
+    fun southernHemisphereGapMovesForward() {
+        // 悉尼 10 月 6 日 02:00 -> 03:00，02:30 的闹钟在 03:30 响
+        val now = millis("2024-10-05T12:00", sydney)
+        assertEquals(
+            ZonedDateTime.parse("2024-10-06T03:30+11:00[Australia/Sydney]").toInstant().toEpochMilli(),
+            NextTriggerCalculator.nextTriggerTime(150, null, false, now, sydney)
+        )
+    }
+    
+    private fun millis(local: String, zone: ZoneId): Long =
+        LocalDateTime.parse(local).atZone(zone).toInstant().toEpochMilli()
+    
+    private fun legacy(minute: Int, weekMask: Int?, nowMillis: Long, zone: ZoneId): Long? =
+        LegacyNextTrigger.calculateNextTriggerTime(
+            hour = minute / 60,
+            minute = minute % 60,
+            repeatMode = if (weekMask == null) LegacyNextTrigger.Repeat.ONCE else LegacyNextTrigger.Repeat.CUSTOM,
+            customDays = (0..6).filter { weekMask != null && (weekMask shr it) and 1 != 0 },
+            skipHolidays = false,
+            nowMillis = nowMillis,
+            zone = TimeZone.getTimeZone(zone)
+        ) { false }
+}
@@ -0,0 +1,146 @@
+package com.wakeup.clock.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.time.LocalDate
+import kotlin.random.Random
+
+/**
+ * 增量维护的 StreakState 与原全量计算（currentStreak(List<String>)）的一致性
+ *
+ * Store 按 WakeUpRecordDao.insertRecord / deleteRecord 的方式维护连续状态：
+ * 能增量时调用 afterCheckIn，补打更早日期、修改记录日期或删除某天最后一条记录时全量重建。
+ * 每次操作后与原实现对全部记录重新计算的结果比较
+ */
+class StreakParityTest {
+    
+    private val start = LocalDate.parse("2024-12-20").toEpochDay()
+    
+    /**
+     * 记录表与连续状态
+     */
+    private class Store {
+        val records = LinkedHashMap<Int, Long>()
+        var state = StreakState.EMPTY
+        
+        fun insert(id: Int, day: Long) {
+            val previous = records.put(id, day)
+            val next = if (previous != null && previous != day) {
+                null
+            } else {
+                StreakCalculator.afterCheckIn(state, day)
+            }
+            state = next ?: rebuild()
+        }
+        
+        fun delete(id: Int) {
+            val day = records.remove(id) ?: return
+            if (day !in records.values) state = rebuild()
+        }
+        
+        private fun rebuild(): StreakState {
+            val days = records.values.distinct().sorted().toLongArray()
+            return StreakCalculator.rebuild(days, days.size)
+        }
+    }
+    
+    /**
+     * 原实现：全部记录的日期字符串按降序排列后从头计算
+     */
+    private fun legacyStreak(store: Store, today: Long): Int {
+        val dates = store.records.values.sortedDescending().map { LocalDate.ofEpochDay(it).toString() }
+        return StreakCalculator.currentStreak(dates, today)
+    }
+    
+    /**
+     * 历史最长连续天数的直接计算
+     */
+    private fun longestRun(store: Store): Int {
+        var best = 0
+        var run = 0
+        var previous = DateCodec.INVALID_DAY
+        for (day in store.records.values.distinct().sorted()) {
+            run = if (previous != DateCodec.INVALID_DAY && day == previous + 1) run + 1 else 1
+            best = maxOf(best, run)
+            previous = day
+        }
+        return best
+    }
+    
+    private fun assertParity(store: Store, step: String) {
+        val last = store.records.values.maxOrNull() ?: start
+        // 最后一天当天、次日、隔一天，以及早于最后一天（有未来日期的记录）
+        for (today in listOf(last - 3, last - 1, last, last + 1, last + 2, last + 30)) {
+            assertEquals(
+                "$step today=${LocalDate.ofEpochDay(today)}",
+                legacyStreak(store, today),
+                StreakCalculator.currentStreak(store.state, today)
+            )
+        }
+        assertEquals(step, longestRun(store), store.state.best)
+    }
+    
+    @Test
+    fun randomCheckInsMatchFullRecompute() {
+        val random = Random(20250101)
+        repeat(500) { sequence ->
+            val store = Store()
+            var nextId = 0
+            var day = start
+            repeat(random.nextInt(1, 80)) { step ->
+                val label = "sequence=$sequence step=$step"
+                when (random.nextInt(10)) {
+                    // 按顺序打卡：当天再打一次、次日或隔几天
+                    in 0..4 -> {
+                        day += listOf(0, 1, 1, 1, 2, 5)[random.nextInt(6)]
+                        store.insert(nextId++, day)
+                    }
+                    // 补打更早的日期，可能连接两段连续记录
+                    5, 6 -> store.insert(nextId++, day - random.nextInt(0, 15))
+                    // 修改已有记录（日期可能不变）
+                    7 -> if (store.records.isNotEmpty()) {
+                        val id = store.records.keys.random(random)
+                        store.insert(id, store.records.getValue(id) + random.nextInt(-3, 4))
+                    }
+                    // 删除记录，可能是某天唯一的一条
+                    else -> if (store.records.isNotEmpty()) store.delete(store.records.keys.random(random))
+                }
+                assertParity(store, label)
+            }
+        }
+    }
+    
+    @Test
+    fun backfillJoiningTwoRunsNeedsRebuild() {
+        val store = Store()
+        listOf(0L, 1, 3, 4).forEachIndexed { id, offset -> store.insert(id, start + offset) }
+        assertEquals(2, StreakCalculator.currentStreak(store.state, start + 4))
+        
+        assertNull(StreakCalculator.afterCheckIn(store.state, start + 2))
+        store.insert(4, start + 2)
+        assertEquals(5, StreakCalculator.currentStreak(store.state, start + 4))
+        assertEquals(5, store.state.best)
+        assertParity(store, "backfill")
+    }
+    
+    @Test
+    fun deletingOneOfSameDayRecordsKeepsStreak() {
+        val store = Store()
+        store.insert(0, start)
+        store.insert(1, start + 1)
+        store.insert(2, start + 1)
+        
+        store.delete(2)
+        assertEquals(2, StreakCalculator.currentStreak(store.state, start + 1))
+        store.delete(1)
+        assertEquals(1, StreakCalculator.currentStreak(store.state, start + 1))
+        assertParity(store, "delete")
+    }
+    
+    @Test
+    fun emptyHistoryHasNoStreak() {
+        assertEquals(0, StreakCalculator.currentStreak(StreakState.EMPTY, start))
+        assertEquals(0, StreakCalculator.currentStreak(emptyList(), start))
+    }
+}
@@ -0,0 +1,75 @@
+package com.wakeup.clock.macrobenchmark
+
+import androidx.benchmark.macro.ExperimentalMetricApi
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.TraceSectionMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Until
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * 响铃链路：
+ * - 广播 ACTION_ALARM_TRIGGER -> AlarmLockdownScreen 可交互（进程已被杀死，最坏情况）
+ * - 点击"开始任务" -> 任务界面第一帧
+ */
+@OptIn(ExperimentalMetricApi::class)
+@RunWith(AndroidJUnit4::class)
+class AlarmFireBenchmark {
+    
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+    
+    @Before
+    fun seed() = uiDevice().seedData()
+    
+    @After
+    fun stopAlarm() = uiDevice().stopApp()
+    
+    @Test
+    fun fireToInteractive() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(
+            TraceSectionMetric(TRACE_ALARM_FIRE, TraceSectionMetric.Mode.First),
+            FrameTimingMetric()
+        ),
+        iterations = 10,
+        // COLD：每次迭代前杀掉进程，与闹钟在后台被回收后触发的情况一致
+        startupMode = StartupMode.COLD,
+        setupBlock = {
+            pressHome()
+        }
+    ) {
+        device.fireAlarm()
+        device.waitForLockdownScreen()
+    }
+    
+    @Test
+    fun startMissionToFirstFrame() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(
+            TraceSectionMetric(TRACE_MISSION_START, TraceSectionMetric.Mode.First),
+            FrameTimingMetric()
+        ),
+        iterations = 10,
+        setupBlock = {
+            // 每次迭代都从新的锁屏界面开始（singleInstance 会复用已显示任务的界面）
+            device.stopApp()
+            pressHome()
+            device.fireAlarm()
+            device.waitForLockdownScreen()
+        }
+    ) {
+        device.findObject(By.res("start_mission")).click()
+        check(device.wait(Until.hasObject(By.res(MISSION_PATTERN)), UI_TIMEOUT_MS)) {
+            "Mission did not appear"
+        }
+        device.waitForIdle()
+    }
+}
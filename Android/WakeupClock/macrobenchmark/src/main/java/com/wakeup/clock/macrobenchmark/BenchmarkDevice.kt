@@ -0,0 +1,69 @@
+package com.wakeup.clock.macrobenchmark
+
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.UiDevice
+import androidx.test.uiautomator.Until
+import java.util.regex.Pattern
+
+/** 被测应用包名 */
+const val TARGET_PACKAGE = "com.wakeup.clock"
+
+/** 等待界面元素的超时时间 */
+const val UI_TIMEOUT_MS = 5_000L
+
+/** 与应用中 FireLatencyProbe 的 trace 区间名保持一致 */
+const val TRACE_ALARM_FIRE = "AlarmFire"
+const val TRACE_MISSION_START = "MissionStart"
+
+/** 任务界面的 testTag：mission_math、mission_memory ... */
+val MISSION_PATTERN: Pattern = Pattern.compile("mission_.*")
+
+/**
+ * 测试进程中的 UiDevice，用于在 measureRepeated 之外准备数据
+ */
+fun uiDevice(): UiDevice = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation())
+
+/**
+ * 授予权限并写入基准数据（跳过引导页），全程不依赖网络
+ * 写入会拉起应用进程，完成后结束进程，不影响之后的冷启动
+ */
+fun UiDevice.seedData(alarmCount: Int = 60, recordDays: Int = 365) {
+    executeShellCommand("pm grant $TARGET_PACKAGE android.permission.POST_NOTIFICATIONS")
+    executeShellCommand("appops set $TARGET_PACKAGE SYSTEM_ALERT_WINDOW allow")
+    executeShellCommand("appops set $TARGET_PACKAGE SCHEDULE_EXACT_ALARM allow")
+    executeShellCommand(
+        "am broadcast -a com.wakeup.clock.benchmark.SEED " +
+            "-n $TARGET_PACKAGE/.benchmark.BenchmarkSeedReceiver " +
+            "--ei alarm_count $alarmCount --ei record_days $recordDays"
+    )
+    stopApp()
+}
+
+/**
+ * 直接向 AlarmReceiver 发送闹钟广播，模拟系统在计划时间触发
+ */
+fun UiDevice.fireAlarm() {
+    executeShellCommand(
+        "am broadcast -a com.wakeup.clock.ALARM_TRIGGER " +
+            "-n $TARGET_PACKAGE/.service.AlarmReceiver " +
+            "--es alarm_id benchmark --es alarm_label other --es alarm_time 07:00 " +
+            "--ei alarm_difficulty 1 --el trigger_time ${System.currentTimeMillis()}"
+    )
+}
+
+/**
+ * 等待锁屏界面可交互（"开始任务"按钮出现）
+ */
+fun UiDevice.waitForLockdownScreen() {
+    check(wait(Until.hasObject(By.res("start_mission")), UI_TIMEOUT_MS)) {
+        "AlarmLockdownScreen did not become interactive"
+    }
+}
+
+/**
+ * 结束应用进程（同时停止闹钟服务和声音）
+ */
+fun UiDevice.stopApp() {
+    executeShellCommand("am force-stop $TARGET_PACKAGE")
+}
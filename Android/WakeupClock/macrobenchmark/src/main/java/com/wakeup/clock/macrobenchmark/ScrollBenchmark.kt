@@ -0,0 +1,83 @@
+package com.wakeup.clock.macrobenchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.Until
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * 帧耗时：DashboardScreen 闹钟列表滚动、CalendarScreen 翻月
+ */
+@RunWith(AndroidJUnit4::class)
+class ScrollBenchmark {
+    
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+    
+    @Test
+    fun scrollDashboard() {
+        uiDevice().seedData(alarmCount = 100)
+        measureDashboardScroll()
+    }
+    
+    @Test
+    fun pageCalendar() {
+        uiDevice().seedData(recordDays = 3650)
+        measureCalendarPaging()
+    }
+    
+    private fun measureDashboardScroll() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = CompilationMode.DEFAULT,
+        iterations = 10,
+        startupMode = StartupMode.WARM,
+        setupBlock = {
+            pressHome()
+            startActivityAndWait()
+        }
+    ) {
+        val list = device.wait(Until.findObject(By.res("alarm_list")), UI_TIMEOUT_MS)
+            ?: error("Alarm list not found")
+        // 避免从屏幕边缘开始手势触发系统返回
+        list.setGestureMargin(device.displayWidth / 5)
+        repeat(3) {
+            list.fling(Direction.DOWN)
+            device.waitForIdle()
+        }
+        list.fling(Direction.UP)
+        device.waitForIdle()
+    }
+    
+    private fun measureCalendarPaging() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = CompilationMode.DEFAULT,
+        iterations = 10,
+        startupMode = StartupMode.WARM,
+        setupBlock = {
+            pressHome()
+            startActivityAndWait()
+            val streak = device.wait(Until.findObject(By.res("streak_card")), UI_TIMEOUT_MS)
+                ?: error("Streak card not found")
+            streak.click()
+            device.wait(Until.hasObject(By.desc("Next")), UI_TIMEOUT_MS)
+        }
+    ) {
+        repeat(6) {
+            device.findObject(By.desc("Previous")).click()
+            device.waitForIdle()
+        }
+        repeat(6) {
+            device.findObject(By.desc("Next")).click()
+            device.waitForIdle()
+        }
+    }
+}
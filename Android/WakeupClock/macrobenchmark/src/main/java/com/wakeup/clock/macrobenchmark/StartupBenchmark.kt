@@ -0,0 +1,44 @@
+package com.wakeup.clock.macrobenchmark
+
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * MainActivity 冷启动、温启动、热启动
+ */
+@RunWith(AndroidJUnit4::class)
+class StartupBenchmark {
+    
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+    
+    @Before
+    fun seed() = uiDevice().seedData()
+    
+    @Test
+    fun startupCold() = startup(StartupMode.COLD)
+    
+    @Test
+    fun startupWarm() = startup(StartupMode.WARM)
+    
+    @Test
+    fun startupHot() = startup(StartupMode.HOT)
+    
+    private fun startup(startupMode: StartupMode) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric()),
+        iterations = 10,
+        startupMode = startupMode,
+        setupBlock = {
+            pressHome()
+        }
+    ) {
+        startActivityAndWait()
+    }
+}
@@ -21,3 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "WakeupClock"
 include(":app")
+include(":core")
+include(":macrobenchmark")
+include(":baselineprofile")